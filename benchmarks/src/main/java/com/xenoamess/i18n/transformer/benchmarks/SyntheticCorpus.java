@@ -0,0 +1,112 @@
+package com.xenoamess.i18n.transformer.benchmarks;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic java sources for benchmarks.
+ */
+public class SyntheticCorpus {
+
+    /**
+     * Number and size of files.
+     */
+    public enum Shape {
+
+        MANY_SMALL(400, 4),
+
+        FEW_HUGE(4, 1500);
+
+        private final int fileCount;
+
+        private final int methodsPerFile;
+
+        Shape(int fileCount, int methodsPerFile) {
+            this.fileCount = fileCount;
+            this.methodsPerFile = methodsPerFile;
+        }
+
+    }
+
+    /**
+     * Share of string literals which contain Chinese.
+     */
+    public enum Density {
+
+        DENSE(1),
+
+        SPARSE(20);
+
+        private final int chineseEvery;
+
+        Density(int chineseEvery) {
+            this.chineseEvery = chineseEvery;
+        }
+
+    }
+
+    private static final String[] CHINESE_WORDS = {
+            "用户", "订单", "支付", "已完成", "失败", "请稍后重试", "库存不足", "地址", "确认", "取消"
+    };
+
+    private static final String[] ASCII_WORDS = {
+            "user", "order", "pay", "done", "failed", "retry", "stock", "address", "confirm", "cancel"
+    };
+
+    private SyntheticCorpus() {
+    }
+
+    /**
+     * @param shape   number and size of files
+     * @param density share of string literals which contain Chinese
+     * @return java sources
+     */
+    @NotNull
+    public static List<String> generate(
+            @NotNull Shape shape,
+            @NotNull Density density
+    ) {
+        Random random = new Random(shape.ordinal() * 31L + density.ordinal());
+        List<String> sources = new ArrayList<>(shape.fileCount);
+        int[] literalCounter = new int[1];
+        for (int fileIndex = 0; fileIndex < shape.fileCount; fileIndex++) {
+            StringBuilder stringBuilder = new StringBuilder(shape.methodsPerFile * 512);
+            stringBuilder.append("package bench.p").append(fileIndex % 16).append(";\n\n");
+            stringBuilder.append("import java.util.Arrays;\n\n");
+            stringBuilder.append("public class C").append(fileIndex).append(" {\n\n");
+            stringBuilder.append("    private final String name = ")
+                    .append(literal(random, density, literalCounter)).append(";\n\n");
+            for (int methodIndex = 0; methodIndex < shape.methodsPerFile; methodIndex++) {
+                stringBuilder.append("    public String m").append(methodIndex).append("(String arg) {\n");
+                stringBuilder.append("        String a = ").append(literal(random, density, literalCounter)).append(";\n");
+                stringBuilder.append("        System.out.println(").append(literal(random, density, literalCounter))
+                        .append(");\n");
+                stringBuilder.append("        String[] array = new String[]{")
+                        .append(literal(random, density, literalCounter)).append(", ")
+                        .append(literal(random, density, literalCounter)).append("};\n");
+                stringBuilder.append("        Arrays.asList(array).forEach(System.out::println);\n");
+                stringBuilder.append("        return ").append(literal(random, density, literalCounter))
+                        .append(" + arg + ").append(literal(random, density, literalCounter)).append(";\n");
+                stringBuilder.append("    }\n\n");
+            }
+            stringBuilder.append("}\n");
+            sources.add(stringBuilder.toString());
+        }
+        return sources;
+    }
+
+    @NotNull
+    private static String literal(
+            @NotNull Random random,
+            @NotNull Density density,
+            @NotNull int[] literalCounter
+    ) {
+        int index = literalCounter[0]++;
+        String[] words = index % density.chineseEvery == 0 ? CHINESE_WORDS : ASCII_WORDS;
+        return "\"" + words[random.nextInt(words.length)] + index % 97 + "\"";
+    }
+
+}
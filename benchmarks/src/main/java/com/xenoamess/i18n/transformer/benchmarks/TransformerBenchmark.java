@@ -0,0 +1,304 @@
+package com.xenoamess.i18n.transformer.benchmarks;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.expr.StringLiteralExpr;
+import com.xenoamess.i18n.transformer.contexts.I18nTransformerContext;
+import com.xenoamess.i18n.transformer.detectors.ScriptDetector;
+import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import com.xenoamess.i18n.transformer.utils.FastPathUtil;
+import com.xenoamess.i18n.transformer.utils.I18nTransformerUtil;
+import com.xenoamess.i18n.transformer.utils.PreScanUtil;
+import com.xenoamess.i18n.transformer.utils.PropertiesWriterUtil;
+import com.xenoamess.i18n.transformer.utils.SpliceUtil;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of every stage of the transform pipeline, per java file unless said otherwise.
+ * <p/>
+ * Stages run the way the <code>transform</code> goal runs them: files are pre-scanned from their bytes,
+ * parsed by a reused {@link JavaParser} configured like the goal's default one, and written back by
+ * pretty printing, by splicing, or by the lexer fast path falling back to splicing.
+ * Bundles are written by the streaming writer the goal uses.
+ * <p/>
+ * Run with <code>-prof gc</code> to get allocation per operation too.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransformerBenchmark {
+
+    private static final String TEMPLATE =
+            "java.util.ResourceBundle.getBundle(\"${propertyBundleName}\", java.util.Locale.CHINA).getString(\"${value}\")";
+
+    private static final String BUNDLE_NAME = "bench_xi18nt";
+
+    @State(Scope.Thread)
+    public static class CorpusState {
+
+        @Param({"MANY_SMALL", "FEW_HUGE"})
+        public SyntheticCorpus.Shape shape;
+
+        @Param({"DENSE", "SPARSE"})
+        public SyntheticCorpus.Density density;
+
+        List<String> sources;
+
+        List<byte[]> contents;
+
+        List<String> literalValues;
+
+        List<PropertiesEntity> propertiesEntities;
+
+        JavaParser javaParser;
+
+        int fileCursor;
+
+        int literalCursor;
+
+        I18nTransformerContext handleStringContext;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            javaParser = newJavaParser();
+            sources = SyntheticCorpus.generate(shape, density);
+            contents = new ArrayList<>(sources.size());
+            literalValues = new ArrayList<>();
+            propertiesEntities = new ArrayList<>();
+            for (int i = 0; i < sources.size(); i++) {
+                contents.add(sources.get(i).getBytes(StandardCharsets.UTF_8));
+                CompilationUnit compilationUnit = parse(javaParser, contents.get(i));
+                for (StringLiteralExpr stringLiteralExpr : compilationUnit.findAll(StringLiteralExpr.class)) {
+                    literalValues.add(stringLiteralExpr.getValue());
+                }
+                I18nTransformerContext i18nTransformerContext = newContext(i);
+                I18nTransformerUtil.dfs(compilationUnit, i18nTransformerContext);
+                propertiesEntities.addAll(i18nTransformerContext.getChinesePropertiesEntities());
+            }
+        }
+
+        @Setup(Level.Iteration)
+        public void setUpIteration() {
+            handleStringContext = newContext(0);
+            handleStringContext.setPrefixKey(BUNDLE_NAME + ".bench.C0");
+        }
+
+        int nextFileIndex() {
+            int fileIndex = fileCursor;
+            fileCursor = (fileCursor + 1) % sources.size();
+            return fileIndex;
+        }
+
+        String nextLiteralValue() {
+            String literalValue = literalValues.get(literalCursor);
+            literalCursor = (literalCursor + 1) % literalValues.size();
+            if (literalCursor == 0) {
+                // keep the entity list from growing across the whole iteration
+                setUpIteration();
+            }
+            return literalValue;
+        }
+
+    }
+
+    /**
+     * A freshly parsed file for every invocation, as the traversal changes it.
+     */
+    @State(Scope.Thread)
+    public static class ParsedFileState {
+
+        CompilationUnit compilationUnit;
+
+        I18nTransformerContext i18nTransformerContext;
+
+        @Setup(Level.Invocation)
+        public void setUp(CorpusState corpusState) {
+            int fileIndex = corpusState.nextFileIndex();
+            compilationUnit = parse(corpusState.javaParser, corpusState.contents.get(fileIndex));
+            i18nTransformerContext = newContext(fileIndex);
+        }
+
+    }
+
+    /**
+     * Bundle files in a temp directory, which already hold the bundle of the corpus.
+     */
+    @State(Scope.Thread)
+    public static class BundleState {
+
+        Path directory;
+
+        List<Path> targets;
+
+        List<PropertiesEntity> changedPropertiesEntities;
+
+        boolean changed;
+
+        @Setup(Level.Trial)
+        public void setUp(CorpusState corpusState) throws IOException {
+            directory = Files.createTempDirectory("transformer-benchmark");
+            targets = Arrays.asList(
+                    directory.resolve(BUNDLE_NAME + ".properties"),
+                    directory.resolve(BUNDLE_NAME + "_zh_CN.properties")
+            );
+            PropertiesWriterUtil.writeIfChanged(corpusState.propertiesEntities, targets);
+            changedPropertiesEntities = new ArrayList<>(corpusState.propertiesEntities);
+            changedPropertiesEntities.add(new PropertiesEntity(BUNDLE_NAME + ".bench.Changed.1", "已修改"));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            FileUtils.deleteDirectory(directory.toFile());
+        }
+
+    }
+
+    /**
+     * @return parser configured like the one of the <code>transform</code> goal with its default parameters
+     */
+    private static JavaParser newJavaParser() {
+        ParserConfiguration parserConfiguration = new ParserConfiguration();
+        parserConfiguration.setCharacterEncoding(StandardCharsets.UTF_8);
+        parserConfiguration.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_11);
+        parserConfiguration.setAttributeComments(true);
+        parserConfiguration.setStoreTokens(true);
+        return new JavaParser(parserConfiguration);
+    }
+
+    private static CompilationUnit parse(JavaParser javaParser, byte[] content) {
+        ParseResult<CompilationUnit> parseResult = javaParser.parse(new ByteArrayInputStream(content), StandardCharsets.UTF_8);
+        if (!parseResult.isSuccessful() || parseResult.getResult().isEmpty()) {
+            throw new ParseProblemException(parseResult.getProblems());
+        }
+        return parseResult.getResult().get();
+    }
+
+    private static I18nTransformerContext newContext(int fileIndex) {
+        return new I18nTransformerContext(
+                TEMPLATE,
+                BUNDLE_NAME,
+                "C" + fileIndex + ".java",
+                null,
+                0,
+                new ArrayList<>()
+        );
+    }
+
+    @Benchmark
+    public boolean preScan(CorpusState corpusState) {
+        return PreScanUtil.mayContainMatch(
+                corpusState.contents.get(corpusState.nextFileIndex()),
+                StandardCharsets.UTF_8,
+                ScriptDetector.DEFAULT
+        );
+    }
+
+    @Benchmark
+    public CompilationUnit parse(CorpusState corpusState) {
+        return parse(corpusState.javaParser, corpusState.contents.get(corpusState.nextFileIndex()));
+    }
+
+    @Benchmark
+    public I18nTransformerContext dfs(ParsedFileState parsedFileState) {
+        I18nTransformerUtil.dfs(parsedFileState.compilationUnit, parsedFileState.i18nTransformerContext);
+        return parsedFileState.i18nTransformerContext;
+    }
+
+    /**
+     * Parse, traverse and print the whole file again, <code>rewriteMode</code> <code>PRETTY_PRINT</code>.
+     */
+    @Benchmark
+    public String transformFilePrettyPrint(CorpusState corpusState) {
+        int fileIndex = corpusState.nextFileIndex();
+        CompilationUnit compilationUnit = parse(corpusState.javaParser, corpusState.contents.get(fileIndex));
+        I18nTransformerUtil.dfs(compilationUnit, newContext(fileIndex));
+        return compilationUnit.toString();
+    }
+
+    /**
+     * Parse, traverse and splice the replacements into the source, <code>rewriteMode</code> <code>SPLICE</code>
+     * without <code>lexerFastPath</code>.
+     */
+    @Benchmark
+    public String transformFileSplice(CorpusState corpusState) {
+        int fileIndex = corpusState.nextFileIndex();
+        byte[] content = corpusState.contents.get(fileIndex);
+        String source = new String(content, StandardCharsets.UTF_8);
+        I18nTransformerContext i18nTransformerContext = newContext(fileIndex);
+        I18nTransformerUtil.dfs(parse(corpusState.javaParser, content), i18nTransformerContext);
+        return SpliceUtil.apply(source, i18nTransformerContext.getTextReplacements());
+    }
+
+    /**
+     * Transform from tokens only where possible, parsing otherwise, <code>rewriteMode</code> <code>SPLICE</code>
+     * with <code>lexerFastPath</code>.
+     */
+    @Benchmark
+    public String transformFileFastPath(CorpusState corpusState) {
+        int fileIndex = corpusState.nextFileIndex();
+        byte[] content = corpusState.contents.get(fileIndex);
+        String source = new String(content, StandardCharsets.UTF_8);
+        I18nTransformerContext i18nTransformerContext = newContext(fileIndex);
+        if (!FastPathUtil.transform(source, i18nTransformerContext)) {
+            I18nTransformerUtil.dfs(parse(corpusState.javaParser, content), i18nTransformerContext);
+        }
+        return SpliceUtil.apply(source, i18nTransformerContext.getTextReplacements());
+    }
+
+    /**
+     * Per string literal.
+     */
+    @Benchmark
+    public String handleString(CorpusState corpusState) {
+        return I18nTransformerUtil.handleString(corpusState.nextLiteralValue(), corpusState.handleStringContext);
+    }
+
+    /**
+     * Per whole bundle of the corpus, whose files already have the same content, as in most incremental builds.
+     */
+    @Benchmark
+    public int writeBundleUnchanged(CorpusState corpusState, BundleState bundleState) throws IOException {
+        return PropertiesWriterUtil.writeIfChanged(corpusState.propertiesEntities, bundleState.targets);
+    }
+
+    /**
+     * Per whole bundle of the corpus, whose files always have to be replaced.
+     */
+    @Benchmark
+    public int writeBundleChanged(CorpusState corpusState, BundleState bundleState) throws IOException {
+        bundleState.changed = !bundleState.changed;
+        return PropertiesWriterUtil.writeIfChanged(
+                bundleState.changed ? bundleState.changedPropertiesEntities : corpusState.propertiesEntities,
+                bundleState.targets
+        );
+    }
+
+}
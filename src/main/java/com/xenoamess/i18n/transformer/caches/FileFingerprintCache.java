@@ -0,0 +1,270 @@
+package com.xenoamess.i18n.transformer.caches;
+
+import com.xenoamess.i18n.transformer.entities.FileFingerprint;
+import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistent cache of java file fingerprints, and the properties entities each file produced.
+ * <p/>
+ * A file whose size and last modified time did not change, or whose content hash did not change,
+ * does not need to be parsed again, its cached properties entities can be reused.
+ * <p/>
+ * The cache is dropped as a whole when the configuration signature changes,
+ * as the same file might produce different properties entities then.
+ */
+public class FileFingerprintCache {
+
+    private static final int MAGIC = 0x78693138;
+
+    private static final int VERSION = 3;
+
+    @NotNull
+    private final File cacheFile;
+
+    @NotNull
+    private final String configurationSignature;
+
+    @NotNull
+    private final Map<String, FileFingerprint> previousFingerprints;
+
+    @NotNull
+    private final Map<String, FileFingerprint> currentFingerprints = new ConcurrentHashMap<>();
+
+    @NotNull
+    private final AtomicInteger reusedCount = new AtomicInteger();
+
+    private FileFingerprintCache(
+            @NotNull File cacheFile,
+            @NotNull String configurationSignature,
+            @NotNull Map<String, FileFingerprint> previousFingerprints
+    ) {
+        this.cacheFile = cacheFile;
+        this.configurationSignature = configurationSignature;
+        this.previousFingerprints = previousFingerprints;
+    }
+
+    /**
+     * Load the cache from cacheFile.
+     * <p/>
+     * A missing, unreadable or outdated cache file results in an empty cache.
+     *
+     * @param cacheFile              cache file
+     * @param configurationSignature signature of the configuration which produced the cached entities
+     * @return the cache
+     */
+    @NotNull
+    public static FileFingerprintCache load(
+            @NotNull File cacheFile,
+            @NotNull String configurationSignature
+    ) {
+        Map<String, FileFingerprint> fingerprints = Collections.emptyMap();
+        if (cacheFile.isFile()) {
+            try {
+                fingerprints = read(cacheFile, configurationSignature);
+            } catch (IOException | RuntimeException e) {
+                fingerprints = Collections.emptyMap();
+            }
+        }
+        return new FileFingerprintCache(cacheFile, configurationSignature, fingerprints);
+    }
+
+    /**
+     * Start another run in the same process, without going through the cache file.
+     * The fingerprints recorded during this run replace those of the last run.
+     *
+     * @return cache of the next run
+     */
+    @NotNull
+    public FileFingerprintCache next() {
+        Map<String, FileFingerprint> fingerprints = new HashMap<>(previousFingerprints);
+        fingerprints.putAll(currentFingerprints);
+        return new FileFingerprintCache(cacheFile, configurationSignature, fingerprints);
+    }
+
+    /**
+     * @param path absolute path of a java file
+     * @return fingerprint of this file from the last run, or null if none
+     */
+    @Nullable
+    public FileFingerprint getPrevious(@NotNull String path) {
+        return previousFingerprints.get(path);
+    }
+
+    /**
+     * Record the fingerprint of a file for this run.
+     * Only files recorded during this run are kept when saving.
+     *
+     * @param fileFingerprint fingerprint
+     */
+    public void put(@NotNull FileFingerprint fileFingerprint) {
+        currentFingerprints.put(fileFingerprint.getPath(), fileFingerprint);
+    }
+
+    /**
+     * Record the fingerprint of a file which is unchanged since the last run.
+     *
+     * @param fileFingerprint fingerprint
+     */
+    public void reuse(@NotNull FileFingerprint fileFingerprint) {
+        put(fileFingerprint);
+        reusedCount.incrementAndGet();
+    }
+
+    /**
+     * Forget every fingerprint recorded during this run, before the same files are transformed again.
+     */
+    public void reset() {
+        currentFingerprints.clear();
+        reusedCount.set(0);
+    }
+
+    /**
+     * @return number of files reused from the last run
+     */
+    public int getReusedCount() {
+        return reusedCount.get();
+    }
+
+    /**
+     * Save fingerprints recorded during this run to the cache file.
+     *
+     * @throws IOException if any
+     */
+    public void save() throws IOException {
+        File parent = cacheFile.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+        File tempFile = new File(cacheFile.getPath() + ".tmp");
+        try (DataOutputStream dataOutputStream = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempFile.toPath()))
+        )) {
+            dataOutputStream.writeInt(MAGIC);
+            dataOutputStream.writeInt(VERSION);
+            writeString(dataOutputStream, configurationSignature);
+            Map<String, FileFingerprint> sortedFingerprints = new TreeMap<>(currentFingerprints);
+            dataOutputStream.writeInt(sortedFingerprints.size());
+            for (FileFingerprint fileFingerprint : sortedFingerprints.values()) {
+                writeString(dataOutputStream, fileFingerprint.getPath());
+                dataOutputStream.writeLong(fileFingerprint.getSize());
+                dataOutputStream.writeLong(fileFingerprint.getLastModified());
+                writeString(dataOutputStream, fileFingerprint.getContentHash());
+                dataOutputStream.writeBoolean(fileFingerprint.getPackageName() != null);
+                if (fileFingerprint.getPackageName() != null) {
+                    writeString(dataOutputStream, fileFingerprint.getPackageName());
+                }
+                dataOutputStream.writeInt(fileFingerprint.getPropertiesEntities().size());
+                for (PropertiesEntity propertiesEntity : fileFingerprint.getPropertiesEntities()) {
+                    writeString(dataOutputStream, propertiesEntity.getPropertyName());
+                    writeString(dataOutputStream, propertiesEntity.getChineseValue());
+                    // bundle names are never empty
+                    writeString(dataOutputStream, StringUtils.defaultString(propertiesEntity.getBundleName()));
+                }
+            }
+        }
+        Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @param content file content
+     * @return hex SHA-256 of content
+     */
+    @NotNull
+    public static String hash(@NotNull byte[] content) {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported", e);
+        }
+        byte[] digest = messageDigest.digest(content);
+        StringBuilder stringBuilder = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            stringBuilder.append(Character.forDigit((b >> 4) & 0xF, 16));
+            stringBuilder.append(Character.forDigit(b & 0xF, 16));
+        }
+        return stringBuilder.toString();
+    }
+
+    @NotNull
+    private static Map<String, FileFingerprint> read(
+            @NotNull File cacheFile,
+            @NotNull String configurationSignature
+    ) throws IOException {
+        try (DataInputStream dataInputStream = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(cacheFile.toPath()))
+        )) {
+            if (dataInputStream.readInt() != MAGIC || dataInputStream.readInt() != VERSION) {
+                return Collections.emptyMap();
+            }
+            if (!configurationSignature.equals(readString(dataInputStream))) {
+                return Collections.emptyMap();
+            }
+            int fileCount = dataInputStream.readInt();
+            Map<String, FileFingerprint> fingerprints = new HashMap<>(fileCount * 2);
+            for (int i = 0; i < fileCount; i++) {
+                String path = readString(dataInputStream);
+                long size = dataInputStream.readLong();
+                long lastModified = dataInputStream.readLong();
+                String contentHash = readString(dataInputStream);
+                String packageName = dataInputStream.readBoolean() ? readString(dataInputStream) : null;
+                int entityCount = dataInputStream.readInt();
+                List<PropertiesEntity> propertiesEntities = new ArrayList<>(entityCount);
+                for (int j = 0; j < entityCount; j++) {
+                    propertiesEntities.add(
+                            new PropertiesEntity(
+                                    readString(dataInputStream),
+                                    readString(dataInputStream),
+                                    StringUtils.defaultIfEmpty(readString(dataInputStream), null)
+                            )
+                    );
+                }
+                fingerprints.put(
+                        path,
+                        new FileFingerprint(path, size, lastModified, contentHash, propertiesEntities, packageName)
+                );
+            }
+            return fingerprints;
+        }
+    }
+
+    private static void writeString(
+            @NotNull DataOutputStream dataOutputStream,
+            @NotNull String string
+    ) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        dataOutputStream.writeInt(bytes.length);
+        dataOutputStream.write(bytes);
+    }
+
+    @NotNull
+    private static String readString(@NotNull DataInputStream dataInputStream) throws IOException {
+        byte[] bytes = new byte[dataInputStream.readInt()];
+        dataInputStream.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
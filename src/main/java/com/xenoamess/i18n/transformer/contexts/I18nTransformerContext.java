@@ -1,13 +1,29 @@
 package com.xenoamess.i18n.transformer.contexts;
 
+import com.github.javaparser.ast.expr.StringLiteralExpr;
+import com.xenoamess.i18n.transformer.detectors.ScriptDetector;
+import com.xenoamess.i18n.transformer.entities.LiteralOccurrence;
 import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import com.xenoamess.i18n.transformer.entities.TextReplacement;
+import com.xenoamess.i18n.transformer.enums.BundleSharding;
+import com.xenoamess.i18n.transformer.enums.ConcatenationMode;
+import com.xenoamess.i18n.transformer.enums.ConstantMode;
+import com.xenoamess.i18n.transformer.enums.DedupScope;
+import com.xenoamess.i18n.transformer.enums.KeyStrategy;
+import com.xenoamess.i18n.transformer.enums.LiteralContextType;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Data
 @AllArgsConstructor
@@ -30,4 +46,108 @@ public class I18nTransformerContext {
     @NotNull
     private List<PropertiesEntity> chinesePropertiesEntities = new ArrayList<>();
 
+    @NotNull
+    private PropertyNameIndex propertyNameIndex = new PropertyNameIndex(DedupScope.FILE);
+
+    @Nullable
+    private String packageName;
+
+    /**
+     * Property names already in {@link #chinesePropertiesEntities}, used by {@link KeyStrategy#HASH}
+     * and by sharding, prefixed by their shard then.
+     */
+    @NotNull
+    private Set<String> localPropertyNames = new HashSet<>();
+
+    /**
+     * Source text replacements of the string literals replaced so far.
+     */
+    @NotNull
+    private List<TextReplacement> textReplacements = new ArrayList<>();
+
+    /**
+     * Whether the compilation unit got changed in a way that {@link #textReplacements} can not express.
+     */
+    private boolean structurallyModified = false;
+
+    /**
+     * Whether to only record string literals containing Chinese into {@link #literalOccurrences},
+     * without replacing them or generating properties.
+     */
+    private boolean reportOnly = false;
+
+    @NotNull
+    private List<LiteralOccurrence> literalOccurrences = new ArrayList<>();
+
+    /**
+     * Scripts string literals get transformed for.
+     */
+    @NotNull
+    private ScriptDetector scriptDetector = ScriptDetector.DEFAULT;
+
+    /**
+     * Whether each string literal checked so far contains any code point of {@link #scriptDetector}.
+     */
+    @NotNull
+    private Map<StringLiteralExpr, Boolean> literalVerdicts = new IdentityHashMap<>();
+
+    /**
+     * How string concatenations containing Chinese string literals are transformed.
+     */
+    @NotNull
+    private ConcatenationMode concatenationMode = ConcatenationMode.SPLIT;
+
+    /**
+     * Template replacing a concatenation in {@link ConcatenationMode#PLACEHOLDER} mode,
+     * <code>${arguments}</code> being the comma separated operands which are not string literals.
+     */
+    @Nullable
+    private String formatTemplate;
+
+    /**
+     * How string literals of static fields, enum constants and annotations are transformed.
+     */
+    @NotNull
+    private ConstantMode constantMode = ConstantMode.SUPPLIER;
+
+    /**
+     * How properties are split into bundles.
+     */
+    @NotNull
+    private BundleSharding bundleSharding = BundleSharding.NONE;
+
+    /**
+     * Bundle of the current top level class, or null for the bundle named {@link #propertyBundleName}.
+     */
+    @Nullable
+    private String shardBundleName;
+
+    /**
+     * Receives warnings about string literals needing manual handling, the file identifier already appended.
+     */
+    @NotNull
+    private Consumer<String> warningConsumer = message -> System.err.println("warn: " + message);
+
+    /**
+     * Number of string literals containing Chinese handled so far, by context type.
+     */
+    @NotNull
+    private Map<LiteralContextType, Integer> literalCounts = new EnumMap<>(LiteralContextType.class);
+
+    public I18nTransformerContext(
+            @NotNull String i18nTemplate,
+            @NotNull String propertyBundleName,
+            @NotNull String identifier,
+            @Nullable String prefixKey,
+            int currentIndex,
+            @NotNull List<PropertiesEntity> chinesePropertiesEntities
+    ) {
+        this.i18nTemplate = i18nTemplate;
+        this.propertyBundleName = propertyBundleName;
+        this.identifier = identifier;
+        this.prefixKey = prefixKey;
+        this.currentIndex = currentIndex;
+        this.chinesePropertiesEntities = chinesePropertiesEntities;
+    }
+
 }
@@ -0,0 +1,87 @@
+package com.xenoamess.i18n.transformer.contexts;
+
+import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import com.xenoamess.i18n.transformer.utils.AccessorGeneratorUtil;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Entries of this run put after the existing entries of the bundle, each property name once per bundle.
+ * <p/>
+ * Files share entries of the same value when keys are hashed, or reuse existing names, so later duplicates are dropped.
+ * An existing entry whose property name is neither generated by this run nor referenced by any java file is an orphan,
+ * removed when the referenced names are given.
+ */
+public class MergedBundle {
+
+    private final Map<String, PropertiesEntity> entries = new LinkedHashMap<>();
+
+    @Getter
+    private int keptCount = 0;
+
+    @Getter
+    private int appendedCount = 0;
+
+    @Getter
+    private int orphanCount = 0;
+
+    /**
+     * @param existingPropertiesEntityList entries already in the bundle
+     * @param propertiesEntityList         entries generated by this run, in source file order
+     * @param referencedNames              names appearing in the java files to remove orphans, or null to keep them
+     */
+    public MergedBundle(
+            @NotNull List<PropertiesEntity> existingPropertiesEntityList,
+            @NotNull List<PropertiesEntity> propertiesEntityList,
+            @Nullable Set<String> referencedNames
+    ) {
+        Set<String> usedPropertyNames = new HashSet<>();
+        for (PropertiesEntity propertiesEntity : propertiesEntityList) {
+            usedPropertyNames.add(propertiesEntity.getPropertyName());
+        }
+        for (PropertiesEntity propertiesEntity : existingPropertiesEntityList) {
+            String propertyName = propertiesEntity.getPropertyName();
+            if (referencedNames != null
+                    && !usedPropertyNames.contains(propertyName)
+                    && !referencedNames.contains(propertyName)
+                    && !referencedNames.contains(AccessorGeneratorUtil.toMethodName(propertyName))) {
+                orphanCount++;
+                continue;
+            }
+            entries.putIfAbsent(getEntryKey(propertiesEntity), propertiesEntity);
+        }
+        keptCount = entries.size();
+        for (PropertiesEntity propertiesEntity : propertiesEntityList) {
+            entries.putIfAbsent(getEntryKey(propertiesEntity), propertiesEntity);
+        }
+        appendedCount = entries.size() - keptCount;
+    }
+
+    /**
+     * @param propertiesEntity entry
+     * @return key of the entry among the entries of all bundles, as shards may have the same property name
+     */
+    @NotNull
+    public static String getEntryKey(@NotNull PropertiesEntity propertiesEntity) {
+        return propertiesEntity.getBundleName() == null
+                ? propertiesEntity.getPropertyName()
+                : propertiesEntity.getBundleName() + "=" + propertiesEntity.getPropertyName();
+    }
+
+    /**
+     * @return entries of the bundle to write
+     */
+    @NotNull
+    public List<PropertiesEntity> getPropertiesEntities() {
+        return new ArrayList<>(entries.values());
+    }
+
+}
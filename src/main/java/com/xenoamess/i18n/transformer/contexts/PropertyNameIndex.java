@@ -0,0 +1,260 @@
+package com.xenoamess.i18n.transformer.contexts;
+
+import com.github.javaparser.utils.StringEscapeUtils;
+import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import com.xenoamess.i18n.transformer.enums.DedupScope;
+import com.xenoamess.i18n.transformer.enums.KeyStrategy;
+import com.xenoamess.i18n.transformer.utils.HashUtil;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index from string literal values to property names, shared by all files in a run.
+ * <p/>
+ * Values are indexed together with a scope key derived from {@link DedupScope},
+ * so the same value only shares one property inside the same scope.
+ * Entries already in the bundle can be registered before the run, their property names are then reused for their values.
+ * Values are matched against them unescaped, so a literal written as <code>\u4f60</code> or <code>\'</code> in the source
+ * matches the same value read back from the bundle.
+ * It is safe to use from several threads, once existing entries are registered.
+ */
+public class PropertyNameIndex {
+
+    @Getter
+    @NotNull
+    private final DedupScope dedupScope;
+
+    @Getter
+    @NotNull
+    private final KeyStrategy keyStrategy;
+
+    private final Map<String, String> propertyNames = new ConcurrentHashMap<>();
+
+    /**
+     * Unescaped values of the property names generated by {@link KeyStrategy#HASH}, to detect hash collisions.
+     */
+    private final Map<String, String> hashKeyValues = new ConcurrentHashMap<>();
+
+    /**
+     * Unescaped values of the entries already in the bundle before this run, or of the files reused from the cache, by property name.
+     */
+    private final Map<String, String> existingValues = new HashMap<>();
+
+    /**
+     * First property name of every value already in the bundle before this run.
+     */
+    private final Map<String, String> existingPropertyNames = new HashMap<>();
+
+    /**
+     * Entries of {@link #propertyNames} registered before the run, kept by {@link #reset()}.
+     */
+    private final Map<String, String> registeredPropertyNames = new HashMap<>();
+
+    /**
+     * Whether two values generated during the run got the same {@link KeyStrategy#HASH} name,
+     * the one resolved first keeps it, so the names depend on the order files are transformed in.
+     */
+    private volatile boolean hashCollided = false;
+
+    @NotNull
+    private final HashFunction hashFunction;
+
+    /**
+     * Hash of a string literal value for {@link KeyStrategy#HASH}, with the seed to use after collisions.
+     */
+    interface HashFunction {
+
+        long hash(@NotNull String value, int seed);
+
+    }
+
+    public PropertyNameIndex(@NotNull DedupScope dedupScope) {
+        this(dedupScope, KeyStrategy.INDEX);
+    }
+
+    public PropertyNameIndex(
+            @NotNull DedupScope dedupScope,
+            @NotNull KeyStrategy keyStrategy
+    ) {
+        this(dedupScope, keyStrategy, HashUtil::murmur3);
+    }
+
+    PropertyNameIndex(
+            @NotNull DedupScope dedupScope,
+            @NotNull KeyStrategy keyStrategy,
+            @NotNull HashFunction hashFunction
+    ) {
+        this.dedupScope = dedupScope;
+        this.keyStrategy = keyStrategy;
+        this.hashFunction = hashFunction;
+    }
+
+    /**
+     * Get the property name of value in scope, or register propertyName for it if absent.
+     *
+     * @param scopeKey     scope key
+     * @param value        string literal value
+     * @param propertyName property name to register if absent
+     * @return previous property name, or null if propertyName got registered
+     */
+    @Nullable
+    public String putIfAbsent(
+            @NotNull String scopeKey,
+            @NotNull String value,
+            @NotNull String propertyName
+    ) {
+        return propertyNames.putIfAbsent(scopeKey + '\0' + value, propertyName);
+    }
+
+    /**
+     * Get the hash based property name of value under prefix.
+     * <p/>
+     * If the hash is already taken by another value, the value is hashed again with the next seed,
+     * so the same value always gets the same name as long as no colliding value under the same prefix came first.
+     * Collisions with names registered before the run do not depend on the order, others are told by {@link #isHashCollided()}.
+     *
+     * @param prefix prefix of the property name
+     * @param value  string literal value
+     * @return property name
+     */
+    @NotNull
+    public String getHashPropertyName(
+            @NotNull String prefix,
+            @NotNull String value
+    ) {
+        String unescapedValue = unescape(value);
+        for (int seed = 0; ; seed++) {
+            String propertyName = prefix + "." + toHex(hashFunction.hash(value, seed));
+            String existedValue = hashKeyValues.putIfAbsent(propertyName, unescapedValue);
+            if (existedValue == null || existedValue.equals(unescapedValue)) {
+                return propertyName;
+            }
+            if (!existingValues.containsKey(propertyName)) {
+                hashCollided = true;
+            }
+        }
+    }
+
+    /**
+     * @return whether two values generated during the run collided on a {@link KeyStrategy#HASH} name
+     */
+    public boolean isHashCollided() {
+        return hashCollided;
+    }
+
+    /**
+     * Forget every property name generated during the run, to transform the same files again.
+     * Names registered before the run are kept.
+     */
+    public void reset() {
+        propertyNames.clear();
+        propertyNames.putAll(registeredPropertyNames);
+        hashKeyValues.clear();
+        hashKeyValues.putAll(existingValues);
+        hashCollided = false;
+    }
+
+    @NotNull
+    private static String toHex(long hash) {
+        String hex = Long.toHexString(hash);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    /**
+     * Register the entries already in the bundle, before any file is transformed.
+     *
+     * @param propertiesEntities existing entries
+     */
+    public void registerExisting(@NotNull List<PropertiesEntity> propertiesEntities) {
+        for (PropertiesEntity propertiesEntity : propertiesEntities) {
+            String unescapedValue = unescape(propertiesEntity.getChineseValue());
+            existingValues.put(propertiesEntity.getPropertyName(), unescapedValue);
+            existingPropertyNames.putIfAbsent(unescapedValue, propertiesEntity.getPropertyName());
+            hashKeyValues.putIfAbsent(propertiesEntity.getPropertyName(), unescapedValue);
+        }
+    }
+
+    /**
+     * Register the entries of a java file reused from the fingerprint cache, before any file is transformed,
+     * so transformed files in the same scope share their property names instead of taking new ones,
+     * and do not give these names to other values.
+     * <p/>
+     * The scope of an entry is told by its property name for {@link DedupScope#CLASS},
+     * and by the package of the file for {@link DedupScope#PACKAGE}.
+     *
+     * @param packageName        package of the file, or null if unknown
+     * @param propertiesEntities entries of the file
+     */
+    public void registerCached(
+            @Nullable String packageName,
+            @NotNull List<PropertiesEntity> propertiesEntities
+    ) {
+        for (PropertiesEntity propertiesEntity : propertiesEntities) {
+            String propertyName = propertiesEntity.getPropertyName();
+            String scopeKey;
+            switch (dedupScope) {
+                case CLASS:
+                    int lastDot = propertyName.lastIndexOf('.');
+                    scopeKey = lastDot < 0 ? propertyName : propertyName.substring(0, lastDot);
+                    break;
+                case PACKAGE:
+                    if (packageName == null) {
+                        continue;
+                    }
+                    scopeKey = packageName;
+                    break;
+                case MODULE:
+                    scopeKey = "";
+                    break;
+                case FILE:
+                default:
+                    // no other file shares the scope of a file
+                    return;
+            }
+            String unescapedValue = unescape(propertiesEntity.getChineseValue());
+            existingValues.putIfAbsent(propertyName, unescapedValue);
+            hashKeyValues.putIfAbsent(propertyName, unescapedValue);
+            if (putIfAbsent(scopeKey, propertiesEntity.getChineseValue(), propertyName) == null) {
+                registeredPropertyNames.put(scopeKey + '\0' + propertiesEntity.getChineseValue(), propertyName);
+            }
+        }
+    }
+
+    /**
+     * @param value string literal value
+     * @return property name value already has in the bundle, or null
+     */
+    @Nullable
+    public String getExistingPropertyName(@NotNull String value) {
+        return existingPropertyNames.get(unescape(value));
+    }
+
+    /**
+     * @param propertyName property name
+     * @param value        string literal value
+     * @return whether propertyName is already in the bundle, or in a file reused from the cache, with another value
+     */
+    public boolean isTakenByOtherValue(
+            @NotNull String propertyName,
+            @NotNull String value
+    ) {
+        String existingValue = existingValues.get(propertyName);
+        return existingValue != null && !existingValue.equals(unescape(value));
+    }
+
+    /**
+     * @param value string literal value, escaped as java string literal content
+     * @return the value it stands for
+     */
+    @NotNull
+    private static String unescape(@NotNull String value) {
+        return value.indexOf('\\') < 0 ? value : StringEscapeUtils.unescapeJava(value);
+    }
+
+}
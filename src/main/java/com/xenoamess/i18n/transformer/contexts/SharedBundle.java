@@ -0,0 +1,138 @@
+package com.xenoamess.i18n.transformer.contexts;
+
+import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entries of several modules merged into one bundle by key, in the order modules are added.
+ * <p/>
+ * An entry whose key and value already are in the bundle is stored once.
+ * An entry whose key is already in the bundle with another value is a conflict,
+ * and so is a module whose call sites look another bundle up.
+ */
+public class SharedBundle {
+
+    /**
+     * Key of the entry recording the bundle the call sites of a module look up, first in its entries file.
+     * No property name starts with <code>#</code>.
+     */
+    public static final String BUNDLE_NAME_KEY = "#propertyBundleName";
+
+    @Getter
+    @NotNull
+    private final String propertyBundleName;
+
+    private final Map<String, String> entries = new LinkedHashMap<>();
+
+    private final Map<String, String> entryModules = new HashMap<>();
+
+    /**
+     * Entries whose key is already in the bundle with another value.
+     */
+    @Getter
+    private final List<String> conflicts = new ArrayList<>();
+
+    /**
+     * Modules whose call sites look up another bundle, or which did not record it.
+     */
+    @Getter
+    private final List<String> bundleNameConflicts = new ArrayList<>();
+
+    @Getter
+    private int moduleCount = 0;
+
+    @Getter
+    private int entryCount = 0;
+
+    @Getter
+    private int duplicatedCount = 0;
+
+    public SharedBundle(@NotNull String propertyBundleName) {
+        this.propertyBundleName = propertyBundleName;
+    }
+
+    /**
+     * @param propertyBundleName bundle the call sites of the module look up
+     * @param propertiesEntities entries of the module
+     * @return content of the entries file of the module
+     */
+    @NotNull
+    public static List<PropertiesEntity> toEntriesFile(
+            @NotNull String propertyBundleName,
+            @NotNull List<PropertiesEntity> propertiesEntities
+    ) {
+        List<PropertiesEntity> result = new ArrayList<>(propertiesEntities.size() + 1);
+        result.add(new PropertiesEntity(BUNDLE_NAME_KEY, propertyBundleName));
+        result.addAll(propertiesEntities);
+        return result;
+    }
+
+    /**
+     * Merge the entries file of a module.
+     *
+     * @param moduleName  name of the module, for messages
+     * @param entriesFile content of the entries file of the module, as written from {@link #toEntriesFile}
+     */
+    public void add(
+            @NotNull String moduleName,
+            @NotNull List<PropertiesEntity> entriesFile
+    ) {
+        moduleCount++;
+        String moduleBundleName = null;
+        for (PropertiesEntity propertiesEntity : entriesFile) {
+            if (BUNDLE_NAME_KEY.equals(propertiesEntity.getPropertyName())) {
+                moduleBundleName = propertiesEntity.getChineseValue();
+                continue;
+            }
+            entryCount++;
+            String existedValue = entries.putIfAbsent(
+                    propertiesEntity.getPropertyName(),
+                    propertiesEntity.getChineseValue()
+            );
+            if (existedValue == null) {
+                entryModules.put(propertiesEntity.getPropertyName(), moduleName);
+            } else if (existedValue.equals(propertiesEntity.getChineseValue())) {
+                duplicatedCount++;
+            } else {
+                conflicts.add(
+                        propertiesEntity.getPropertyName() + " is " + existedValue + " in "
+                                + entryModules.get(propertiesEntity.getPropertyName()) + " but "
+                                + propertiesEntity.getChineseValue() + " in " + moduleName
+                );
+            }
+        }
+        checkBundleName(moduleName, moduleBundleName);
+    }
+
+    private void checkBundleName(
+            @NotNull String moduleName,
+            @Nullable String moduleBundleName
+    ) {
+        if (moduleBundleName == null) {
+            bundleNameConflicts.add(moduleName + " did not record its propertyBundleName, transform it again");
+        } else if (!moduleBundleName.equals(propertyBundleName)) {
+            bundleNameConflicts.add(moduleName + " looks up " + moduleBundleName + " but the shared bundle is " + propertyBundleName);
+        }
+    }
+
+    /**
+     * @return merged entries, in the order they were first added
+     */
+    @NotNull
+    public List<PropertiesEntity> getPropertiesEntities() {
+        List<PropertiesEntity> propertiesEntities = new ArrayList<>(entries.size());
+        entries.forEach(
+                (key, value) -> propertiesEntities.add(new PropertiesEntity(key, value))
+        );
+        return propertiesEntities;
+    }
+
+}
@@ -0,0 +1,206 @@
+package com.xenoamess.i18n.transformer.contexts;
+
+import com.xenoamess.i18n.transformer.entities.FileTiming;
+import com.xenoamess.i18n.transformer.enums.LiteralContextType;
+import com.xenoamess.i18n.transformer.enums.TransformPhase;
+import com.xenoamess.i18n.transformer.utils.JsonUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timings and counters of a transform run, shared by all files.
+ * <p/>
+ * It is safe to use from several threads, phase timings add up the time of all threads.
+ */
+public class TransformMetrics {
+
+    private final long startNanos = System.nanoTime();
+
+    private final LongAdder[] phaseNanos = newAdders(TransformPhase.values().length);
+
+    private final LongAdder[] literalCounts = newAdders(LiteralContextType.values().length);
+
+    private final LongAdder reusedFileCount = new LongAdder();
+
+    private final LongAdder preScanSkippedFileCount = new LongAdder();
+
+    private final LongAdder parsedFileCount = new LongAdder();
+
+    private final LongAdder fastPathFileCount = new LongAdder();
+
+    private final LongAdder writtenFileCount = new LongAdder();
+
+    private final LongAdder bytesRead = new LongAdder();
+
+    private final LongAdder bytesWritten = new LongAdder();
+
+    private final LongAdder warningCount = new LongAdder();
+
+    private final ConcurrentLinkedQueue<FileTiming> fileTimings = new ConcurrentLinkedQueue<>();
+
+    public void addPhaseNanos(
+            @NotNull TransformPhase transformPhase,
+            long nanos
+    ) {
+        phaseNanos[transformPhase.ordinal()].add(nanos);
+    }
+
+    /**
+     * @param transformPhase phase
+     * @return nanoseconds spent in transformPhase so far
+     */
+    public long getPhaseNanos(@NotNull TransformPhase transformPhase) {
+        return phaseNanos[transformPhase.ordinal()].sum();
+    }
+
+    public void addLiteralCounts(@NotNull Map<LiteralContextType, Integer> counts) {
+        for (Map.Entry<LiteralContextType, Integer> entry : counts.entrySet()) {
+            literalCounts[entry.getKey().ordinal()].add(entry.getValue());
+        }
+    }
+
+    public void countReusedFile() {
+        reusedFileCount.increment();
+    }
+
+    public void countPreScanSkippedFile() {
+        preScanSkippedFileCount.increment();
+    }
+
+    public void countParsedFile() {
+        parsedFileCount.increment();
+    }
+
+    public void countFastPathFile() {
+        fastPathFileCount.increment();
+    }
+
+    public void countWrittenFile(long bytes) {
+        writtenFileCount.increment();
+        bytesWritten.add(bytes);
+    }
+
+    public void countBytesRead(long bytes) {
+        bytesRead.add(bytes);
+    }
+
+    public void countWarning() {
+        warningCount.increment();
+    }
+
+    public void addFileTiming(@NotNull FileTiming fileTiming) {
+        fileTimings.add(fileTiming);
+    }
+
+    /**
+     * Forget every file counted so far, before the same files are transformed again.
+     * Phase timings are kept, as that time was spent anyway.
+     */
+    public void resetFileCounts() {
+        for (LongAdder literalCount : literalCounts) {
+            literalCount.reset();
+        }
+        reusedFileCount.reset();
+        preScanSkippedFileCount.reset();
+        parsedFileCount.reset();
+        fastPathFileCount.reset();
+        writtenFileCount.reset();
+        bytesRead.reset();
+        bytesWritten.reset();
+        warningCount.reset();
+        fileTimings.clear();
+    }
+
+    public long getPreScanSkippedFileCount() {
+        return preScanSkippedFileCount.sum();
+    }
+
+    public long getParsedFileCount() {
+        return parsedFileCount.sum();
+    }
+
+    public long getFastPathFileCount() {
+        return fastPathFileCount.sum();
+    }
+
+    /**
+     * @param count maximum number of files
+     * @return timings of the slowest parsed files, slowest first
+     */
+    @NotNull
+    public List<FileTiming> getSlowestFiles(int count) {
+        List<FileTiming> result = new ArrayList<>(fileTimings);
+        result.sort(Comparator.comparingLong(FileTiming::getNanos).reversed());
+        return result.size() > count ? new ArrayList<>(result.subList(0, count)) : result;
+    }
+
+    /**
+     * @param fileCount         number of java files of the run
+     * @param propertyCount     number of entries of the bundle
+     * @param slowestFileCount  maximum number of slowest files to list
+     * @return the metrics as a json report
+     */
+    @NotNull
+    public String toJson(
+            int fileCount,
+            int propertyCount,
+            int slowestFileCount
+    ) {
+        StringBuilder stringBuilder = new StringBuilder(2048);
+        stringBuilder.append("{\n  \"fileCount\": ").append(fileCount).append(",\n");
+        stringBuilder.append("  \"reusedFileCount\": ").append(reusedFileCount.sum()).append(",\n");
+        stringBuilder.append("  \"preScanSkippedFileCount\": ").append(preScanSkippedFileCount.sum()).append(",\n");
+        stringBuilder.append("  \"parsedFileCount\": ").append(parsedFileCount.sum()).append(",\n");
+        stringBuilder.append("  \"fastPathFileCount\": ").append(fastPathFileCount.sum()).append(",\n");
+        stringBuilder.append("  \"writtenFileCount\": ").append(writtenFileCount.sum()).append(",\n");
+        stringBuilder.append("  \"bytesRead\": ").append(bytesRead.sum()).append(",\n");
+        stringBuilder.append("  \"bytesWritten\": ").append(bytesWritten.sum()).append(",\n");
+        stringBuilder.append("  \"propertyCount\": ").append(propertyCount).append(",\n");
+        stringBuilder.append("  \"warningCount\": ").append(warningCount.sum()).append(",\n");
+        stringBuilder.append("  \"totalNanos\": ").append(System.nanoTime() - startNanos).append(",\n");
+        stringBuilder.append("  \"phaseNanos\": {");
+        for (TransformPhase transformPhase : TransformPhase.values()) {
+            stringBuilder.append(transformPhase.ordinal() == 0 ? "\n    " : ",\n    ");
+            JsonUtil.appendString(stringBuilder, transformPhase.name());
+            stringBuilder.append(": ").append(getPhaseNanos(transformPhase));
+        }
+        stringBuilder.append("\n  },\n");
+        stringBuilder.append("  \"literalCounts\": {");
+        for (LiteralContextType literalContextType : LiteralContextType.values()) {
+            stringBuilder.append(literalContextType.ordinal() == 0 ? "\n    " : ",\n    ");
+            JsonUtil.appendString(stringBuilder, literalContextType.name());
+            stringBuilder.append(": ").append(literalCounts[literalContextType.ordinal()].sum());
+        }
+        stringBuilder.append("\n  },\n");
+        stringBuilder.append("  \"slowestFiles\": [");
+        List<FileTiming> slowestFiles = getSlowestFiles(slowestFileCount);
+        for (int i = 0; i < slowestFiles.size(); i++) {
+            FileTiming fileTiming = slowestFiles.get(i);
+            stringBuilder.append(i == 0 ? "\n" : ",\n");
+            stringBuilder.append("    {\"file\": ");
+            JsonUtil.appendString(stringBuilder, fileTiming.getIdentifier());
+            stringBuilder.append(", \"nanos\": ").append(fileTiming.getNanos());
+            stringBuilder.append(", \"bytes\": ").append(fileTiming.getBytes());
+            stringBuilder.append(", \"literalCount\": ").append(fileTiming.getLiteralCount());
+            stringBuilder.append('}');
+        }
+        stringBuilder.append(slowestFiles.isEmpty() ? "]\n}\n" : "\n  ]\n}\n");
+        return stringBuilder.toString();
+    }
+
+    @NotNull
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] longAdders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            longAdders[i] = new LongAdder();
+        }
+        return longAdders;
+    }
+
+}
@@ -0,0 +1,245 @@
+package com.xenoamess.i18n.transformer.detectors;
+
+import com.xenoamess.i18n.transformer.enums.Script;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Finds out whether text contains code points of the configured scripts and ranges.
+ * <p/>
+ * The ranges are compiled once into a bitset over the basic multilingual plane, and a sorted range table above it,
+ * so checking a string is a single forward scan which stops at the first match.
+ * Instances are immutable and can be shared between threads.
+ */
+public class ScriptDetector {
+
+    /**
+     * Detects {@link Script#HAN_BASIC} only.
+     */
+    public static final ScriptDetector DEFAULT = new ScriptDetector(
+            Collections.singletonList(Script.HAN_BASIC),
+            Collections.emptyList()
+    );
+
+    private static final int BMP_SIZE = 0x10000;
+
+    private final long[] bmpBits = new long[BMP_SIZE >>> 6];
+
+    /**
+     * Sorted, merged begin and end pairs of supplementary code points.
+     */
+    private final int[] supplementaryRanges;
+
+    /**
+     * Smallest code point matched, anything below it is skipped without a table lookup.
+     */
+    private final int minCodePoint;
+
+    /**
+     * Smallest char {@link #containsMatch(CharSequence)} has to look at, a high surrogate at most if any supplementary
+     * code point is matched, as those are encoded with chars below their code point.
+     */
+    private final char minChar;
+
+    private final String signature;
+
+    /**
+     * @param scripts         scripts to detect
+     * @param codePointRanges extra begin and end pairs of code points to detect, both ends inclusive
+     */
+    public ScriptDetector(
+            @NotNull Collection<Script> scripts,
+            @NotNull List<int[]> codePointRanges
+    ) {
+        List<int[]> ranges = new ArrayList<>();
+        for (Script script : scripts) {
+            int[] scriptRanges = script.getCodePointRanges();
+            for (int i = 0; i < scriptRanges.length; i += 2) {
+                ranges.add(new int[]{scriptRanges[i], scriptRanges[i + 1]});
+            }
+        }
+        ranges.addAll(codePointRanges);
+        ranges.sort((a, b) -> Integer.compare(a[0], b[0]));
+
+        List<int[]> mergedSupplementaryRanges = new ArrayList<>();
+        int min = Integer.MAX_VALUE;
+        StringBuilder signatureBuilder = new StringBuilder();
+        for (int[] range : ranges) {
+            int begin = range[0];
+            int end = range[1];
+            if (begin < 0 || end > Character.MAX_CODE_POINT || begin > end) {
+                throw new IllegalArgumentException(
+                        "invalid code point range : " + Integer.toHexString(begin) + "-" + Integer.toHexString(end)
+                );
+            }
+            min = Math.min(min, begin);
+            for (int codePoint = begin; codePoint <= Math.min(end, BMP_SIZE - 1); codePoint++) {
+                bmpBits[codePoint >>> 6] |= 1L << codePoint;
+            }
+            if (end >= BMP_SIZE) {
+                int supplementaryBegin = Math.max(begin, BMP_SIZE);
+                int[] last = mergedSupplementaryRanges.isEmpty()
+                        ? null
+                        : mergedSupplementaryRanges.get(mergedSupplementaryRanges.size() - 1);
+                if (last != null && supplementaryBegin <= last[1] + 1) {
+                    last[1] = Math.max(last[1], end);
+                } else {
+                    mergedSupplementaryRanges.add(new int[]{supplementaryBegin, end});
+                }
+            }
+            signatureBuilder.append(Integer.toHexString(begin)).append('-').append(Integer.toHexString(end)).append(',');
+        }
+        this.supplementaryRanges = new int[mergedSupplementaryRanges.size() * 2];
+        for (int i = 0; i < mergedSupplementaryRanges.size(); i++) {
+            this.supplementaryRanges[2 * i] = mergedSupplementaryRanges.get(i)[0];
+            this.supplementaryRanges[2 * i + 1] = mergedSupplementaryRanges.get(i)[1];
+        }
+        this.minCodePoint = min;
+        this.minChar = (char) (this.supplementaryRanges.length > 0
+                ? Math.min(min, Character.MIN_HIGH_SURROGATE)
+                : Math.min(min, BMP_SIZE - 1));
+        this.signature = signatureBuilder.toString();
+    }
+
+    /**
+     * Build a detector from mojo parameters.
+     *
+     * @param scripts         comma separated {@link Script} names, can be blank
+     * @param codePointRanges comma separated hex code point ranges like <code>3040-309F</code> or single code points, can be blank
+     * @return detector
+     * @throws IllegalArgumentException if any name or range is invalid
+     */
+    @NotNull
+    public static ScriptDetector parse(
+            String scripts,
+            String codePointRanges
+    ) {
+        List<Script> scriptList = new ArrayList<>();
+        for (String script : splitComma(scripts)) {
+            scriptList.add(Script.valueOf(script.toUpperCase(Locale.ENGLISH)));
+        }
+        List<int[]> rangeList = new ArrayList<>();
+        for (String range : splitComma(codePointRanges)) {
+            int dash = range.indexOf('-');
+            String begin = dash < 0 ? range : range.substring(0, dash).trim();
+            String end = dash < 0 ? range : range.substring(dash + 1).trim();
+            rangeList.add(new int[]{parseCodePoint(begin), parseCodePoint(end)});
+        }
+        if (scriptList.isEmpty() && rangeList.isEmpty()) {
+            throw new IllegalArgumentException("no script or code point range to detect");
+        }
+        return new ScriptDetector(scriptList, rangeList);
+    }
+
+    private static List<String> splitComma(String string) {
+        if (string == null) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<>();
+        for (String part : string.split(",")) {
+            part = part.trim();
+            if (!part.isEmpty()) {
+                result.add(part);
+            }
+        }
+        return result;
+    }
+
+    private static int parseCodePoint(String string) {
+        if (string.startsWith("U+") || string.startsWith("u+") || string.startsWith("0x") || string.startsWith("0X")) {
+            string = string.substring(2);
+        }
+        return Integer.parseInt(string, 16);
+    }
+
+    /**
+     * @param codePoint code point
+     * @return whether the code point belongs to the configured scripts and ranges
+     */
+    public boolean matches(int codePoint) {
+        if (codePoint < minCodePoint) {
+            return false;
+        }
+        if (codePoint < BMP_SIZE) {
+            return (bmpBits[codePoint >>> 6] & (1L << codePoint)) != 0;
+        }
+        int[] ranges = this.supplementaryRanges;
+        // few ranges, a linear search beats a binary one
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (codePoint < ranges[i]) {
+                return false;
+            }
+            if (codePoint <= ranges[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return whether any supplementary code point is matched, i.e. whether surrogate pairs need decoding
+     */
+    public boolean hasSupplementaryRanges() {
+        return supplementaryRanges.length > 0;
+    }
+
+    /**
+     * @param text text
+     * @return whether the text contains any code point the detector matches
+     */
+    public boolean containsMatch(@NotNull CharSequence text) {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < minChar) {
+                continue;
+            }
+            if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                if (matches(Character.toCodePoint(c, text.charAt(i + 1)))) {
+                    return true;
+                }
+                i++;
+            } else if (matches(c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return stable description of the matched code points, for cache keys
+     */
+    @NotNull
+    public String getSignature() {
+        return signature;
+    }
+
+    @Override
+    public String toString() {
+        return "ScriptDetector{" + signature + "}";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ScriptDetector)) {
+            return false;
+        }
+        return Arrays.equals(bmpBits, ((ScriptDetector) o).bmpBits)
+                && Arrays.equals(supplementaryRanges, ((ScriptDetector) o).supplementaryRanges);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(bmpBits) + Arrays.hashCode(supplementaryRanges);
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.xenoamess.i18n.transformer.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class FileFingerprint {
+
+    private String path;
+
+    private long size;
+
+    private long lastModified;
+
+    private String contentHash;
+
+    private List<PropertiesEntity> propertiesEntities;
+
+    /**
+     * Package of the java file, or null if it was not parsed.
+     */
+    private String packageName;
+
+    public FileFingerprint(
+            String path,
+            long size,
+            long lastModified,
+            String contentHash,
+            List<PropertiesEntity> propertiesEntities
+    ) {
+        this(path, size, lastModified, contentHash, propertiesEntities, null);
+    }
+
+}
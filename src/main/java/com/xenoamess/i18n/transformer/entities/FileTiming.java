@@ -0,0 +1,27 @@
+package com.xenoamess.i18n.transformer.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Time spent on a single java file which got parsed.
+ */
+@Data
+@AllArgsConstructor
+public class FileTiming {
+
+    private String identifier;
+
+    /**
+     * Nanoseconds from reading the file to writing it back.
+     */
+    private long nanos;
+
+    private long bytes;
+
+    /**
+     * Number of string literals containing Chinese in the file.
+     */
+    private int literalCount;
+
+}
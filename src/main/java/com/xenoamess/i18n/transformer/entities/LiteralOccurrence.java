@@ -0,0 +1,29 @@
+package com.xenoamess.i18n.transformer.entities;
+
+import com.xenoamess.i18n.transformer.enums.LiteralContextType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * A string literal containing Chinese, found without transforming it.
+ * <p/>
+ * Lines and columns start from 1, the same as JavaParser ranges, and are 0 if the literal has no range.
+ */
+@Data
+@AllArgsConstructor
+public class LiteralOccurrence {
+
+    private String identifier;
+
+    private int line;
+
+    private int column;
+
+    private LiteralContextType contextType;
+
+    /**
+     * Literal content, as written in the source.
+     */
+    private String value;
+
+}
@@ -11,4 +11,16 @@ public class PropertiesEntity {
 
     private String chineseValue;
 
+    /**
+     * Shard bundle this entry goes into, or null for the main bundle.
+     */
+    private String bundleName;
+
+    public PropertiesEntity(
+            String propertyName,
+            String chineseValue
+    ) {
+        this(propertyName, chineseValue, null);
+    }
+
 }
@@ -0,0 +1,25 @@
+package com.xenoamess.i18n.transformer.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Replace the source text between begin and end, both inclusive, with replacement.
+ * <p/>
+ * Lines and columns start from 1, the same as JavaParser ranges.
+ */
+@Data
+@AllArgsConstructor
+public class TextReplacement {
+
+    private int beginLine;
+
+    private int beginColumn;
+
+    private int endLine;
+
+    private int endColumn;
+
+    private String replacement;
+
+}
@@ -0,0 +1,19 @@
+package com.xenoamess.i18n.transformer.enums;
+
+/**
+ * Format of the generated bundle files.
+ */
+public enum BundleFormat {
+
+    /**
+     * Plain <code>.properties</code> files.
+     */
+    PROPERTIES,
+
+    /**
+     * Binary <code>.xi18nb</code> files with a perfect hash index,
+     * read by {@link com.xenoamess.i18n.transformer.runtime.BinaryResourceBundle}.
+     */
+    BINARY
+
+}
@@ -0,0 +1,24 @@
+package com.xenoamess.i18n.transformer.enums;
+
+/**
+ * How the generated properties are split into bundles.
+ */
+public enum BundleSharding {
+
+    /**
+     * All properties go into one bundle.
+     */
+    NONE,
+
+    /**
+     * Properties of every package go into a bundle of their own,
+     * the default package keeps using the main bundle.
+     */
+    PACKAGE,
+
+    /**
+     * Properties of every top level class, nested classes included, go into a bundle of their own.
+     */
+    CLASS
+
+}
@@ -0,0 +1,19 @@
+package com.xenoamess.i18n.transformer.enums;
+
+/**
+ * How string concatenations containing Chinese string literals are transformed.
+ */
+public enum ConcatenationMode {
+
+    /**
+     * Replace every string literal of the concatenation by its own property, keeping the concatenation.
+     */
+    SPLIT,
+
+    /**
+     * Replace the whole concatenation by one property, whose value has a <code>{n}</code> placeholder
+     * for every operand which is not a string literal, formatted at runtime.
+     */
+    PLACEHOLDER
+
+}
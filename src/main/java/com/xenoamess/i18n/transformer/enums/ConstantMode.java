@@ -0,0 +1,26 @@
+package com.xenoamess.i18n.transformer.enums;
+
+/**
+ * How string literals whose value is fixed once per class are transformed,
+ * those initializing static or interface fields, and arguments of enum constants.
+ */
+public enum ConstantMode {
+
+    /**
+     * Turn static and interface fields into a <code>java.util.function.Supplier&lt;String&gt;</code> named <code>*_SUPPLIER</code>,
+     * which looks the message up on every call, and needs manual changes at the usages of the field.
+     * Enum constants and annotation values are only reported.
+     */
+    SUPPLIER,
+
+    /**
+     * Keep static and interface fields as they are, and initialize them by looking the message up.
+     * The message is looked up once, in the static initializer of the declaring class together with its other statics,
+     * and then stays the same for the life of the JVM, whatever locale or bundle changes come later.
+     * Usages of the field keep compiling. Enum constant arguments are replaced the same way.
+     * Annotation values must stay compile time constants, they are registered in the bundle but not replaced.
+     * So are fields used in a case label or an annotation of their own file, as the fields are no constants any more.
+     */
+    CACHED
+
+}
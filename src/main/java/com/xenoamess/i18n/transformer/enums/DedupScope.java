@@ -0,0 +1,28 @@
+package com.xenoamess.i18n.transformer.enums;
+
+/**
+ * Scope in which identical string literals share one property.
+ */
+public enum DedupScope {
+
+    /**
+     * Identical literals in the same java file share one property.
+     */
+    FILE,
+
+    /**
+     * Identical literals in the same class share one property.
+     */
+    CLASS,
+
+    /**
+     * Identical literals in the same package share one property.
+     */
+    PACKAGE,
+
+    /**
+     * Identical literals in the whole module share one property.
+     */
+    MODULE
+
+}
@@ -0,0 +1,22 @@
+package com.xenoamess.i18n.transformer.enums;
+
+/**
+ * How property names are generated for string literals.
+ */
+public enum KeyStrategy {
+
+    /**
+     * Class name and a counter of the literals in the class, i.e. <code>bundle.a.B.3</code>.
+     * Inserting a literal renumbers every literal after it in the class.
+     */
+    INDEX,
+
+    /**
+     * Scope name and a hash of the literal value, i.e. <code>bundle.a.B.5f2b8c1d9e0a7364</code>.
+     * Property names do not change when other literals are added or removed.
+     * The scope name is the class for {@link DedupScope#FILE} and {@link DedupScope#CLASS},
+     * the package for {@link DedupScope#PACKAGE}, and only the bundle name for {@link DedupScope#MODULE}.
+     */
+    HASH
+
+}
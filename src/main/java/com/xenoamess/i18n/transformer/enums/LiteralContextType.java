@@ -0,0 +1,67 @@
+package com.xenoamess.i18n.transformer.enums;
+
+/**
+ * Where a string literal sits in the source, which decides how the transform goal handles it.
+ */
+public enum LiteralContextType {
+
+    /**
+     * Initializer of an instance field.
+     */
+    FIELD(true),
+
+    /**
+     * Initializer of a static or interface field, the transform goal turns the field into a supplier,
+     * which still needs manual changes at its usages, unless {@link ConstantMode#CACHED} is used.
+     */
+    STATIC_FIELD(false),
+
+    /**
+     * Initializer of a local variable.
+     */
+    LOCAL_VARIABLE(true),
+
+    /**
+     * Argument of a method call, constructor call or explicit constructor invocation.
+     */
+    ARGUMENT(true),
+
+    /**
+     * Element of an array initializer.
+     */
+    ARRAY_INITIALIZER(true),
+
+    /**
+     * Operand of a binary expression, such as a string concatenation.
+     */
+    BINARY_EXPRESSION(true),
+
+    /**
+     * Argument of an enum constant, only replaced with {@link ConstantMode#CACHED}.
+     */
+    ENUM_CONSTANT(false),
+
+    /**
+     * Value of an annotation, which must stay a compile time constant.
+     */
+    ANNOTATION(false),
+
+    /**
+     * Anywhere else.
+     */
+    OTHER(false);
+
+    private final boolean transformable;
+
+    LiteralContextType(boolean transformable) {
+        this.transformable = transformable;
+    }
+
+    /**
+     * @return whether the transform goal replaces literals in this context without manual changes
+     */
+    public boolean isTransformable() {
+        return transformable;
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.xenoamess.i18n.transformer.enums;
+
+/**
+ * How transformed java files are written back.
+ */
+public enum RewriteMode {
+
+    /**
+     * Print the whole compilation unit again, which reformats the file.
+     */
+    PRETTY_PRINT,
+
+    /**
+     * Only replace the source text of the replaced string literals, and keep the rest of the file untouched.
+     * Files which need more than literal replacements fall back to {@link #PRETTY_PRINT}.
+     */
+    SPLICE
+
+}
@@ -0,0 +1,66 @@
+package com.xenoamess.i18n.transformer.enums;
+
+/**
+ * Writing systems string literals can be detected by, as code point ranges, both ends inclusive.
+ */
+public enum Script {
+
+    /**
+     * The common Chinese characters, <code>U+4E00</code> to <code>U+9FA5</code>, which is all this plugin detected before.
+     */
+    HAN_BASIC(
+            0x4E00, 0x9FA5
+    ),
+
+    /**
+     * All CJK unified ideographs, including extension A to H, and compatibility ideographs.
+     */
+    HAN(
+            0x3400, 0x4DBF,
+            0x4E00, 0x9FFF,
+            0xF900, 0xFAFF,
+            0x20000, 0x2EBEF,
+            0x2F800, 0x2FA1F,
+            0x30000, 0x323AF
+    ),
+
+    /**
+     * CJK symbols and punctuation, and full width and half width forms, such as <code>，</code> and <code>。</code>.
+     */
+    CJK_PUNCTUATION(
+            0x3000, 0x303F,
+            0xFF00, 0xFFEF
+    ),
+
+    HIRAGANA(
+            0x3040, 0x309F
+    ),
+
+    KATAKANA(
+            0x30A0, 0x30FF,
+            0x31F0, 0x31FF,
+            0xFF66, 0xFF9F
+    ),
+
+    HANGUL(
+            0x1100, 0x11FF,
+            0x3130, 0x318F,
+            0xA960, 0xA97F,
+            0xAC00, 0xD7AF,
+            0xD7B0, 0xD7FF
+    );
+
+    private final int[] codePointRanges;
+
+    Script(int... codePointRanges) {
+        this.codePointRanges = codePointRanges;
+    }
+
+    /**
+     * @return begin and end pairs of the code point ranges of this script
+     */
+    public int[] getCodePointRanges() {
+        return codePointRanges.clone();
+    }
+
+}
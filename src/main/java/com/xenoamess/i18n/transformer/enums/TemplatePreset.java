@@ -0,0 +1,60 @@
+package com.xenoamess.i18n.transformer.enums;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Ready made pairs of <code>i18nTemplate</code> and <code>i18nFormatTemplate</code>.
+ */
+public enum TemplatePreset {
+
+    /**
+     * Use <code>i18nTemplate</code> and <code>i18nFormatTemplate</code> as configured.
+     */
+    CUSTOM(
+            null,
+            null
+    ),
+
+    /**
+     * Look messages up by {@link com.xenoamess.i18n.transformer.runtime.ReloadableBundle},
+     * so bundle files changed while the application runs are picked up without a restart.
+     * Messages with placeholders are parsed again once they changed.
+     * The <code>runtime</code> package of this plugin has to be on the application class path,
+     * see the jar of this plugin with classifier <code>runtime</code>.
+     */
+    RELOADABLE(
+            "com.xenoamess.i18n.transformer.runtime.ReloadableBundle.getString(\"${propertyBundleName}\", java.util.Locale.CHINA, \"${value}\")",
+            "com.xenoamess.i18n.transformer.runtime.MessageTemplate.format(\"${propertyBundleName}\", java.util.Locale.CHINA, \"${value}\", com.xenoamess.i18n.transformer.runtime.ReloadableBundle.getString(\"${propertyBundleName}\", java.util.Locale.CHINA, \"${value}\"), ${arguments})"
+    );
+
+    @Nullable
+    private final String template;
+
+    @Nullable
+    private final String formatTemplate;
+
+    TemplatePreset(
+            @Nullable String template,
+            @Nullable String formatTemplate
+    ) {
+        this.template = template;
+        this.formatTemplate = formatTemplate;
+    }
+
+    /**
+     * @return template string literals get replaced with, or null to use <code>i18nTemplate</code>
+     */
+    @Nullable
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return template concatenations get replaced with, or null to use <code>i18nFormatTemplate</code>
+     */
+    @Nullable
+    public String getFormatTemplate() {
+        return formatTemplate;
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.xenoamess.i18n.transformer.enums;
+
+/**
+ * Phases of a transform run, which are timed separately.
+ */
+public enum TransformPhase {
+
+    /**
+     * Listing java files of the source roots.
+     */
+    DISCOVERY,
+
+    /**
+     * Reading java files, and checking them against the fingerprint cache.
+     */
+    READ,
+
+    /**
+     * Scanning file bytes for code points of the configured scripts.
+     */
+    PRE_SCAN,
+
+    /**
+     * Parsing java files, or lexing and transforming them on the fast path.
+     */
+    PARSE,
+
+    /**
+     * Walking syntax trees and replacing string literals.
+     */
+    TRAVERSE,
+
+    /**
+     * Printing or splicing transformed java files.
+     */
+    PRINT,
+
+    /**
+     * Writing transformed java files.
+     */
+    WRITE,
+
+    /**
+     * Merging, and writing bundles, the entries file and the accessor class.
+     */
+    BUNDLE
+
+}
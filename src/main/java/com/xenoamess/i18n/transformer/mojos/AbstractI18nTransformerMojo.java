@@ -0,0 +1,355 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.xenoamess.i18n.transformer.mojos;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.utils.StringEscapeUtils;
+import com.xenoamess.i18n.transformer.contexts.SharedBundle;
+import com.xenoamess.i18n.transformer.detectors.ScriptDetector;
+import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import com.xenoamess.i18n.transformer.enums.BundleFormat;
+import com.xenoamess.i18n.transformer.runtime.BinaryBundleControl;
+import com.xenoamess.i18n.transformer.runtime.BinaryResourceBundle;
+import com.xenoamess.i18n.transformer.utils.BinaryBundleWriterUtil;
+import com.xenoamess.i18n.transformer.utils.PropertiesReaderUtil;
+import com.xenoamess.i18n.transformer.utils.PropertiesWriterUtil;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.settings.Settings;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parameters and source discovery shared by the goals of this plugin.
+ */
+public abstract class AbstractI18nTransformerMojo extends AbstractMojo {
+
+    /**
+     * Resolved <code>encoding</code>, looked up once.
+     */
+    private volatile Charset charset;
+
+    // ----------------------------------------------------------------------
+    // Mojo parameters
+    // ----------------------------------------------------------------------
+
+    @Parameter(property = "javaVersion", defaultValue = "JAVA_11")
+    protected String javaVersion;
+
+    @Parameter(property = "encoding", defaultValue = "${project.build.sourceEncoding}")
+    protected String encoding;
+
+    /**
+     * Comma separated scripts to transform string literals for, from
+     * <code>HAN_BASIC</code>, <code>HAN</code>, <code>CJK_PUNCTUATION</code>, <code>HIRAGANA</code>,
+     * <code>KATAKANA</code> and <code>HANGUL</code>.
+     * <p/>
+     * A string literal is handled if it contains any code point of these scripts or of <code>codePointRanges</code>.
+     */
+    @Parameter(property = "scripts", defaultValue = "HAN_BASIC")
+    protected String scripts;
+
+    /**
+     * Comma separated extra code point ranges to transform string literals for, in hex,
+     * i.e. <code>3040-309F,U+FF01</code>.
+     */
+    @Parameter(property = "codePointRanges")
+    protected String codePointRanges;
+
+    /**
+     * Entries of a module's bundle, relative to its build directory, written by <code>transform</code> and read by <code>aggregate</code>.
+     */
+    public static final String ENTRIES_FILE = "i18n-transformer/entries.properties";
+
+    /**
+     * Java Files Pattern.
+     */
+    public static final String JAVA_FILES = "**\\/*.java";
+
+    /**
+     * Comma separated includes Java files, i.e. <code>&#42;&#42;/&#42;Test.java</code>.
+     * <p/>
+     * <strong>Note:</strong> default value is {@code **\/*.java}.
+     */
+    @Parameter(property = "includes", defaultValue = JAVA_FILES)
+    protected String includes;
+
+    /**
+     * Comma separated excludes Java files, i.e. <code>&#42;&#42;/&#42;Test.java</code>.
+     */
+    @Parameter(property = "excludes")
+    protected String excludes;
+
+    /**
+     * The Maven Project Object.
+     */
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    protected MavenProject project;
+
+    @Parameter(defaultValue = "${session}", readonly = true, required = true)
+    protected MavenSession session;
+
+    /**
+     * The current user system settings for use in Maven.
+     */
+    @Parameter(defaultValue = "${settings}", readonly = true, required = true)
+    protected Settings settings;
+
+    // ----------------------------------------------------------------------
+    // protected methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * @return java files of all compile source roots matching includes and excludes
+     * @throws IOException if any
+     */
+    protected List<File> collectJavaFiles() throws IOException {
+        List<File> javaFiles = new LinkedList<>();
+        for (String sourceRoot : getProjectSourceRoots(project)) {
+            File f = new File(sourceRoot);
+            if (f.isDirectory()) {
+                javaFiles.addAll(FileUtils.getFiles(f, includes, excludes, true));
+            } else {
+                if (getLog().isWarnEnabled()) {
+                    getLog().warn(f + " doesn't exist. Ignored it.");
+                }
+            }
+        }
+
+        List<File> result = new ArrayList<>(javaFiles.size());
+        for (File f : javaFiles) {
+            if (!f.getAbsolutePath().toLowerCase(Locale.ENGLISH).endsWith(".java") && getLog().isWarnEnabled()) {
+                continue;
+            }
+            result.add(f);
+        }
+        return result;
+    }
+
+    /**
+     * @return detector compiled from <code>scripts</code> and <code>codePointRanges</code>
+     * @throws MojoExecutionException if they are invalid
+     */
+    protected ScriptDetector createScriptDetector() throws MojoExecutionException {
+        try {
+            return ScriptDetector.parse(scripts, codePointRanges);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException("Invalid scripts or codePointRanges: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Build a parser for every thread asking for one, from the same configuration.
+     * <p/>
+     * A {@link JavaParser} can parse any number of files, but not from several threads at once,
+     * so every worker thread keeps its own instance instead of setting one up per file.
+     * Comments can only be attributed when tokens are stored, so <code>storeTokens</code> is forced on then.
+     *
+     * @param attributeComments whether to attach comments to nodes, needed to pretty print them again
+     * @param storeTokens       whether to keep tokens, needed for node ranges
+     * @return parser of the current thread
+     * @throws MojoExecutionException if <code>javaVersion</code> is invalid
+     */
+    protected ThreadLocal<JavaParser> createJavaParsers(
+            boolean attributeComments,
+            boolean storeTokens
+    ) throws MojoExecutionException {
+        ParserConfiguration parserConfiguration = new ParserConfiguration();
+        parserConfiguration.setCharacterEncoding(getCharset());
+        try {
+            parserConfiguration.setLanguageLevel(ParserConfiguration.LanguageLevel.valueOf(javaVersion));
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException("Invalid javaVersion: " + javaVersion, e);
+        }
+        parserConfiguration.setAttributeComments(attributeComments);
+        parserConfiguration.setStoreTokens(storeTokens || attributeComments);
+        return ThreadLocal.withInitial(() -> new JavaParser(parserConfiguration));
+    }
+
+    /**
+     * Read a bundle written by {@link #writeBundle} back, in file order.
+     *
+     * @param directory    directory the bundle is in
+     * @param bundleName   bundle base name
+     * @param bundleFormat bundle format
+     * @return properties entities of the bundle, empty if there is no such bundle
+     * @throws IOException if any
+     */
+    protected List<PropertiesEntity> readBundle(
+            File directory,
+            String bundleName,
+            BundleFormat bundleFormat
+    ) throws IOException {
+        if (bundleFormat == BundleFormat.BINARY) {
+            File file = new File(directory, bundleName + "." + BinaryBundleControl.FILE_EXTENSION);
+            if (!file.isFile()) {
+                return new ArrayList<>();
+            }
+            // read into the heap rather than mapping it, as the same file gets replaced by writeBundle later in the run
+            BinaryResourceBundle binaryResourceBundle = new BinaryResourceBundle(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+            List<PropertiesEntity> propertiesEntities = new ArrayList<>();
+            for (Enumeration<String> keys = binaryResourceBundle.getKeys(); keys.hasMoreElements(); ) {
+                String key = keys.nextElement();
+                propertiesEntities.add(
+                        new PropertiesEntity(
+                                key,
+                                StringEscapeUtils.escapeJava(binaryResourceBundle.getString(key))
+                        )
+                );
+            }
+            return propertiesEntities;
+        }
+        File file = new File(directory, bundleName + ".properties");
+        if (!file.isFile()) {
+            return new ArrayList<>();
+        }
+        return PropertiesReaderUtil.read(file.toPath());
+    }
+
+    /**
+     * Write the entries of this module to {@link #ENTRIES_FILE} for <code>aggregate</code>,
+     * together with the bundle its call sites look up, left untouched if its content did not change.
+     *
+     * @param propertiesEntities properties entities, each property name once
+     * @param propertyBundleName bundle the call sites look up
+     * @throws IOException if any
+     */
+    protected void writeEntriesFile(
+            List<PropertiesEntity> propertiesEntities,
+            String propertyBundleName
+    ) throws IOException {
+        PropertiesWriterUtil.writeIfChanged(
+                SharedBundle.toEntriesFile(propertyBundleName, propertiesEntities),
+                Collections.singletonList(new File(project.getBuild().getDirectory(), ENTRIES_FILE).toPath())
+        );
+    }
+
+    /**
+     * Write a bundle and its <code>zh_CN</code> variant, files whose content did not change are left untouched.
+     *
+     * @param propertiesEntities properties entities
+     * @param directory          directory to write into
+     * @param bundleName         bundle base name
+     * @param bundleFormat       bundle format
+     * @throws IOException if any
+     */
+    protected void writeBundle(
+            List<PropertiesEntity> propertiesEntities,
+            File directory,
+            String bundleName,
+            BundleFormat bundleFormat
+    ) throws IOException {
+        int writtenCount;
+        if (bundleFormat == BundleFormat.BINARY) {
+            writtenCount = BinaryBundleWriterUtil.writeIfChanged(
+                    propertiesEntities,
+                    Arrays.asList(
+                            new File(
+                                    directory,
+                                    bundleName + "." + BinaryBundleControl.FILE_EXTENSION
+                            ).toPath(),
+                            new File(
+                                    directory,
+                                    bundleName + "_zh_CN." + BinaryBundleControl.FILE_EXTENSION
+                            ).toPath()
+                    )
+            );
+        } else {
+            writtenCount = PropertiesWriterUtil.writeIfChanged(
+                    propertiesEntities,
+                    Arrays.asList(
+                            new File(
+                                    directory,
+                                    bundleName + ".properties"
+                            ).toPath(),
+                            new File(
+                                    directory,
+                                    bundleName + "_zh_CN.properties"
+                            ).toPath()
+                    )
+            );
+        }
+        if (writtenCount == 0 && getLog().isInfoEnabled()) {
+            getLog().info("Bundle " + bundleName + " unchanged, not written.");
+        }
+    }
+
+    /**
+     * @return charset of java source files
+     */
+    protected Charset getCharset() {
+        Charset result = charset;
+        if (result == null) {
+            result = Charset.forName(encoding);
+            charset = result;
+        }
+        return result;
+    }
+
+    protected final MavenProject getProject() {
+        return project;
+    }
+
+    /**
+     * @param p not null maven project.
+     * @return the artifact type.
+     */
+    protected String getArtifactType(MavenProject p) {
+        return p.getArtifact().getType();
+    }
+
+    /**
+     * @param p not null maven project.
+     * @return the list of source paths for the given project.
+     */
+    protected List<String> getProjectSourceRoots(MavenProject p) {
+        return (p.getCompileSourceRoots() == null
+                ? Collections.<String>emptyList()
+                : new LinkedList<>(p.getCompileSourceRoots()));
+    }
+
+    /**
+     * @param p not null
+     * @return the compile classpath elements
+     * @throws DependencyResolutionRequiredException if any
+     */
+    protected List<String> getCompileClasspathElements(MavenProject p) throws DependencyResolutionRequiredException {
+        return (p.getCompileClasspathElements() == null
+                ? Collections.<String>emptyList()
+                : new LinkedList<>(p.getCompileClasspathElements()));
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.xenoamess.i18n.transformer.mojos;
+
+import com.xenoamess.i18n.transformer.contexts.SharedBundle;
+import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import com.xenoamess.i18n.transformer.enums.BundleFormat;
+import com.xenoamess.i18n.transformer.utils.PropertiesReaderUtil;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Merge the entries every module of the reactor got from <code>transform</code> into one shared bundle.
+ * <p/>
+ * Modules are merged in reactor order. An entry whose key and value already are in the shared bundle is stored once.
+ * An entry whose key is already in the shared bundle with another value fails the build,
+ * as one of the modules would get the other's message at runtime.
+ * <p/>
+ * Entries are only merged by key, as the call sites are already compiled against their keys.
+ * Property names start with their class name by default, so identical messages of different modules
+ * still get an entry each. They share one key, and so one entry, with <code>keyStrategy</code> <code>HASH</code>
+ * and <code>dedupScope</code> <code>MODULE</code>. The <code>BINARY</code> format stores identical values once anyway.
+ * <p/>
+ * For the shared bundle to be found at runtime, all modules must use the <code>propertyBundleName</code> of this goal.
+ * Every module records the bundle its call sites look up in its entries file, and the build fails if one looks up another,
+ * as the default <code>${project.name}_xi18nt</code> differs from module to module.
+ * Modules can turn <code>writeModuleBundle</code> off then.
+ */
+@Mojo(name = "aggregate", aggregator = true, threadSafe = true)
+public class I18nAggregateMojo extends AbstractI18nTransformerMojo {
+
+    /**
+     * Classifier of the attached shared bundle jar.
+     */
+    public static final String CLASSIFIER = "i18n-bundle";
+
+    // ----------------------------------------------------------------------
+    // Mojo parameters
+    // ----------------------------------------------------------------------
+
+    /**
+     * Base name of the shared bundle, which every module has to use as its <code>propertyBundleName</code> too.
+     */
+    @Parameter(property = "propertyBundleName", defaultValue = "${project.name}_xi18nt")
+    private String propertyBundleName;
+
+    /**
+     * Format of the shared bundle, one of <code>PROPERTIES</code> or <code>BINARY</code>.
+     * <code>BINARY</code> also stores identical values of different keys only once.
+     */
+    @Parameter(property = "bundleFormat", defaultValue = "PROPERTIES")
+    private BundleFormat bundleFormat;
+
+    /**
+     * Directory to write the shared bundle into.
+     */
+    @Parameter(property = "aggregateOutputDirectory", defaultValue = "${project.build.directory}/i18n-aggregate")
+    private File aggregateOutputDirectory;
+
+    /**
+     * Whether to pack the shared bundle into a jar, and attach it to this project with classifier <code>i18n-bundle</code>.
+     */
+    @Parameter(property = "attachAggregateBundle", defaultValue = "false")
+    private boolean attachAggregateBundle;
+
+    @Parameter(defaultValue = "${reactorProjects}", readonly = true, required = true)
+    private List<MavenProject> reactorProjects;
+
+    @Component
+    private MavenProjectHelper projectHelper;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        SharedBundle sharedBundle = new SharedBundle(propertyBundleName);
+        try {
+            for (MavenProject reactorProject : reactorProjects) {
+                Path entriesFile = new File(reactorProject.getBuild().getDirectory(), ENTRIES_FILE).toPath();
+                if (!Files.isRegularFile(entriesFile)) {
+                    continue;
+                }
+                sharedBundle.add(reactorProject.getArtifactId(), PropertiesReaderUtil.read(entriesFile));
+            }
+            if (!sharedBundle.getBundleNameConflicts().isEmpty()) {
+                for (String conflict : sharedBundle.getBundleNameConflicts()) {
+                    getLog().error(conflict);
+                }
+                throw new MojoFailureException(
+                        sharedBundle.getBundleNameConflicts().size() + " modules look up another bundle than "
+                                + propertyBundleName + ", set the same propertyBundleName for transform and aggregate."
+                );
+            }
+            if (!sharedBundle.getConflicts().isEmpty()) {
+                for (String conflict : sharedBundle.getConflicts()) {
+                    getLog().error(conflict);
+                }
+                throw new MojoFailureException(
+                        sharedBundle.getConflicts().size() + " entries have different values in different modules, "
+                                + "use a distinct propertyBundleName or distinct class names in those modules."
+                );
+            }
+
+            List<PropertiesEntity> sharedPropertiesEntities = sharedBundle.getPropertiesEntities();
+            writeBundle(sharedPropertiesEntities, aggregateOutputDirectory, propertyBundleName, bundleFormat);
+            if (attachAggregateBundle) {
+                File jarFile = new File(
+                        project.getBuild().getDirectory(),
+                        project.getBuild().getFinalName() + "-" + CLASSIFIER + ".jar"
+                );
+                writeJar(jarFile);
+                projectHelper.attachArtifact(project, "jar", CLASSIFIER, jarFile);
+            }
+            if (getLog().isInfoEnabled()) {
+                getLog().info(
+                        "Aggregated " + sharedBundle.getEntryCount() + " entries of " + sharedBundle.getModuleCount() + " modules into "
+                                + sharedPropertiesEntities.size() + " shared entries, "
+                                + sharedBundle.getDuplicatedCount() + " duplicated entries dropped."
+                );
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("IOException: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Pack the shared bundle files.
+     */
+    private void writeJar(File jarFile) throws IOException {
+        Files.createDirectories(jarFile.getParentFile().toPath());
+        try (
+                OutputStream outputStream = Files.newOutputStream(jarFile.toPath());
+                ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+                Stream<Path> bundleFiles = Files.list(aggregateOutputDirectory.toPath())
+        ) {
+            for (Path bundleFile : (Iterable<Path>) bundleFiles.filter(Files::isRegularFile).sorted()::iterator) {
+                ZipEntry zipEntry = new ZipEntry(bundleFile.getFileName().toString());
+                // fixed time, so an unchanged bundle gives an identical jar
+                zipEntry.setTime(0L);
+                zipOutputStream.putNextEntry(zipEntry);
+                Files.copy(bundleFile, zipOutputStream);
+                zipOutputStream.closeEntry();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,370 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.xenoamess.i18n.transformer.mojos;
+
+import com.xenoamess.i18n.transformer.caches.FileFingerprintCache;
+import com.xenoamess.i18n.transformer.contexts.I18nTransformerContext;
+import com.xenoamess.i18n.transformer.detectors.ScriptDetector;
+import com.xenoamess.i18n.transformer.entities.FileFingerprint;
+import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import com.xenoamess.i18n.transformer.enums.BundleFormat;
+import com.xenoamess.i18n.transformer.runtime.MessageTemplate;
+import com.xenoamess.i18n.transformer.utils.AccessorGeneratorUtil;
+import com.xenoamess.i18n.transformer.utils.BytecodeTransformUtil;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.codehaus.plexus.util.FileUtils;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replace string constants containing Chinese in compiled classes, leaving java sources untouched.
+ * <p/>
+ * Runs after <code>compile</code> on the class files of <code>classesDirectory</code>.
+ * String constants are replaced with calls to a generated accessor class, the same the <code>transform</code> goal
+ * generates with <code>generateAccessor</code>, which is compiled into <code>classesDirectory</code> too,
+ * and the bundle is written there, next to the classes.
+ * Constants javac inlined from static final fields of other classes are replaced as well.
+ * <p/>
+ * Transformed class files are remembered in <code>bytecodeCacheFile</code>, so running again without recompiling
+ * keeps their properties. Changing the configuration needs the classes to be compiled again.
+ */
+@Mojo(name = "transform-bytecode", defaultPhase = LifecyclePhase.PROCESS_CLASSES, requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = true)
+public class I18nBytecodeTransformMojo extends AbstractI18nTransformerMojo {
+
+    // ----------------------------------------------------------------------
+    // Mojo parameters
+    // ----------------------------------------------------------------------
+
+    @Parameter(property = "propertyBundleName", defaultValue = "${project.name}_xi18nt")
+    private String propertyBundleName;
+
+    /**
+     * Directory of the class files to transform, the accessor class and the bundle are written into it too.
+     */
+    @Parameter(property = "classesDirectory", defaultValue = "${project.build.outputDirectory}")
+    private File classesDirectory;
+
+    /**
+     * Format of the generated bundle files, one of <code>PROPERTIES</code> or <code>BINARY</code>.
+     */
+    @Parameter(property = "bundleFormat", defaultValue = "PROPERTIES")
+    private BundleFormat bundleFormat;
+
+    /**
+     * Fully qualified name of the generated accessor class.
+     */
+    @Parameter(property = "accessorClassName", defaultValue = "xi18nt.Messages")
+    private String accessorClassName;
+
+    /**
+     * Java expression giving the locale the accessor resolves messages for, evaluated on every call.
+     */
+    @Parameter(property = "accessorLocale", defaultValue = "java.util.Locale.CHINA")
+    private String accessorLocale;
+
+    /**
+     * Directory to write the source of the accessor class into before compiling it, it is not a compile source root.
+     */
+    @Parameter(property = "bytecodeAccessorSourceDirectory", defaultValue = "${project.build.directory}/i18n-transformer/bytecode-accessor")
+    private File bytecodeAccessorSourceDirectory;
+
+    /**
+     * Java release to compile the accessor class for.
+     * If empty, the release of the newest transformed class file, so the accessor runs wherever the classes run,
+     * or <code>maven.compiler.target</code> if there is none. Never below 8, which the accessor needs.
+     */
+    @Parameter(property = "maven.compiler.release")
+    private String release;
+
+    /**
+     * Java version the classes are compiled for, used for the accessor if <code>release</code> is empty
+     * and no class file tells it.
+     */
+    @Parameter(property = "maven.compiler.target")
+    private String target;
+
+    /**
+     * File to keep fingerprints of transformed class files in, between runs.
+     */
+    @Parameter(property = "bytecodeCacheFile", defaultValue = "${project.build.directory}/i18n-transformer/bytecode-cache.bin")
+    private File bytecodeCacheFile;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if ("pom".equalsIgnoreCase(project.getPackaging())) {
+            getLog().info("This project has 'pom' packaging, no classes are available.");
+            return;
+        }
+        if (!classesDirectory.isDirectory()) {
+            getLog().warn(classesDirectory + " doesn't exist. Ignored it.");
+            return;
+        }
+        try {
+            ScriptDetector scriptDetector = createScriptDetector();
+            FileFingerprintCache fileFingerprintCache = FileFingerprintCache.load(
+                    bytecodeCacheFile,
+                    String.join("\n", propertyBundleName, accessorClassName, scriptDetector.getSignature())
+            );
+            List<File> classFiles = collectClassFiles();
+            Map<String, PropertiesEntity> propertiesEntities = new LinkedHashMap<>();
+            int transformedCount = 0;
+            int majorVersion = 0;
+            for (File classFile : classFiles) {
+                List<PropertiesEntity> classPropertiesEntities = transformClassFile(classFile, scriptDetector, fileFingerprintCache);
+                if (classPropertiesEntities == null) {
+                    continue;
+                }
+                transformedCount++;
+                majorVersion = Math.max(majorVersion, readMajorVersion(classFile));
+                for (PropertiesEntity propertiesEntity : classPropertiesEntities) {
+                    propertiesEntities.putIfAbsent(propertiesEntity.getPropertyName(), propertiesEntity);
+                }
+            }
+            fileFingerprintCache.save();
+            List<PropertiesEntity> propertiesEntityList = new ArrayList<>(propertiesEntities.values());
+            if (!propertiesEntityList.isEmpty()) {
+                compileAccessor(propertiesEntityList, getAccessorRelease(majorVersion));
+                writeEntriesFile(propertiesEntityList, propertyBundleName);
+                writeBundle(propertiesEntityList, classesDirectory, propertyBundleName, bundleFormat);
+            }
+            if (getLog().isInfoEnabled()) {
+                getLog().info(
+                        "Replaced string constants in " + transformedCount + " of " + classFiles.size() + " class files, "
+                                + fileFingerprintCache.getReusedCount() + " class files unchanged since last run, "
+                                + propertiesEntityList.size() + " properties."
+                );
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("IOException: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return class files of <code>classesDirectory</code> in path order, except those of the accessor class
+     * @throws IOException if any
+     */
+    private List<File> collectClassFiles() throws IOException {
+        String accessorPath = accessorClassName.replace('.', '/');
+        List<File> result = new ArrayList<>();
+        for (File classFile : FileUtils.getFiles(classesDirectory, "**/*.class", "**/module-info.class", true)) {
+            String relativePath = classesDirectory.toPath().relativize(classFile.toPath()).toString().replace(File.separatorChar, '/');
+            if (relativePath.equals(accessorPath + ".class") || relativePath.startsWith(accessorPath + "$")) {
+                continue;
+            }
+            result.add(classFile);
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Transform a class file in place, unless it is the same as after the last run.
+     *
+     * @param classFile            class file
+     * @param scriptDetector       scripts to transform string constants for
+     * @param fileFingerprintCache fingerprint cache
+     * @return properties entities of this class file, or null if it has none
+     * @throws IOException if any
+     */
+    private List<PropertiesEntity> transformClassFile(
+            File classFile,
+            ScriptDetector scriptDetector,
+            FileFingerprintCache fileFingerprintCache
+    ) throws IOException {
+        String path = classFile.getAbsolutePath();
+        FileFingerprint previousFingerprint = fileFingerprintCache.getPrevious(path);
+        if (previousFingerprint != null
+                && previousFingerprint.getSize() == classFile.length()
+                && previousFingerprint.getLastModified() == classFile.lastModified()) {
+            fileFingerprintCache.reuse(previousFingerprint);
+            return previousFingerprint.getPropertiesEntities().isEmpty() ? null : previousFingerprint.getPropertiesEntities();
+        }
+        byte[] content = Files.readAllBytes(classFile.toPath());
+        String contentHash = FileFingerprintCache.hash(content);
+        if (previousFingerprint != null && previousFingerprint.getContentHash().equals(contentHash)) {
+            fileFingerprintCache.reuse(
+                    new FileFingerprint(
+                            path,
+                            content.length,
+                            classFile.lastModified(),
+                            contentHash,
+                            previousFingerprint.getPropertiesEntities()
+                    )
+            );
+            return previousFingerprint.getPropertiesEntities().isEmpty() ? null : previousFingerprint.getPropertiesEntities();
+        }
+
+        I18nTransformerContext i18nTransformerContext = new I18nTransformerContext(
+                "",
+                propertyBundleName,
+                classesDirectory.toPath().relativize(classFile.toPath()).toString(),
+                null,
+                0,
+                new ArrayList<>()
+        );
+        i18nTransformerContext.setScriptDetector(scriptDetector);
+        i18nTransformerContext.setWarningConsumer(message -> getLog().warn(message));
+        byte[] transformed = BytecodeTransformUtil.transform(content, accessorClassName, i18nTransformerContext);
+        if (transformed != null) {
+            Files.write(classFile.toPath(), transformed);
+            content = transformed;
+            contentHash = FileFingerprintCache.hash(content);
+        }
+        // the fingerprint is the one of the transformed class, so it is recognized when not compiled again
+        fileFingerprintCache.put(
+                new FileFingerprint(
+                        path,
+                        content.length,
+                        classFile.lastModified(),
+                        contentHash,
+                        i18nTransformerContext.getChinesePropertiesEntities()
+                )
+        );
+        return transformed == null ? null : i18nTransformerContext.getChinesePropertiesEntities();
+    }
+
+    /**
+     * @param classFile class file
+     * @return major version of the class file, 0 if it is no class file
+     * @throws IOException if any
+     */
+    private static int readMajorVersion(File classFile) throws IOException {
+        try (DataInputStream dataInputStream = new DataInputStream(Files.newInputStream(classFile.toPath()))) {
+            if (dataInputStream.readInt() != 0xCAFEBABE) {
+                return 0;
+            }
+            dataInputStream.readUnsignedShort();
+            return dataInputStream.readUnsignedShort();
+        } catch (EOFException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * @param majorVersion newest major version of the transformed class files, 0 if unknown
+     * @return release to compile the accessor for, or null for the release of the JDK running Maven
+     */
+    private String getAccessorRelease(int majorVersion) {
+        if (release != null && !release.isEmpty()) {
+            return release;
+        }
+        int accessorRelease;
+        if (majorVersion > 0) {
+            // major version 52 is java 8, every release adds one
+            accessorRelease = majorVersion - 44;
+        } else if (target != null && !target.isEmpty()) {
+            try {
+                accessorRelease = Integer.parseInt(target.startsWith("1.") ? target.substring(2) : target);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+        return String.valueOf(Math.max(8, accessorRelease));
+    }
+
+    /**
+     * Generate the accessor class and compile it into <code>classesDirectory</code>.
+     *
+     * @param propertiesEntityList properties entities, in table order
+     * @param accessorRelease      release to compile the accessor for, or null for the release of the JDK running Maven
+     * @throws IOException            if any
+     * @throws MojoExecutionException if the accessor does not compile, or there is no java compiler
+     */
+    private void compileAccessor(
+            List<PropertiesEntity> propertiesEntityList,
+            String accessorRelease
+    ) throws IOException, MojoExecutionException {
+        File accessorFile = new File(
+                bytecodeAccessorSourceDirectory,
+                accessorClassName.replace('.', File.separatorChar) + ".java"
+        );
+        org.apache.commons.io.FileUtils.write(
+                accessorFile,
+                AccessorGeneratorUtil.generate(
+                        accessorClassName,
+                        propertyBundleName,
+                        accessorLocale,
+                        propertiesEntityList
+                ),
+                StandardCharsets.UTF_8
+        );
+        JavaCompiler javaCompiler = ToolProvider.getSystemJavaCompiler();
+        if (javaCompiler == null) {
+            throw new MojoExecutionException("No java compiler found, transform-bytecode needs Maven to run on a JDK");
+        }
+        List<String> arguments = new ArrayList<>(Arrays.asList(
+                "-encoding", "UTF-8",
+                "-proc:none",
+                "-nowarn",
+                "-d", classesDirectory.getPath(),
+                // accessors of messages with placeholders format them by the runtime package
+                "-classpath", classesDirectory.getPath() + File.pathSeparator + getRuntimeClassPath()
+        ));
+        if (accessorRelease != null) {
+            arguments.add("--release");
+            arguments.add(accessorRelease);
+        }
+        arguments.add(accessorFile.getPath());
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        if (javaCompiler.run(null, null, errors, arguments.toArray(new String[0])) != 0) {
+            throw new MojoExecutionException(
+                    "Failed to compile accessor " + accessorFile + " : " + new String(errors.toByteArray(), StandardCharsets.UTF_8)
+            );
+        }
+    }
+
+    /**
+     * @return class path entry of the runtime package of this plugin
+     * @throws MojoExecutionException if it can not be located
+     */
+    private static String getRuntimeClassPath() throws MojoExecutionException {
+        try {
+            return Paths.get(MessageTemplate.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        } catch (URISyntaxException | RuntimeException e) {
+            throw new MojoExecutionException("Can not locate the runtime package of this plugin", e);
+        }
+    }
+
+}
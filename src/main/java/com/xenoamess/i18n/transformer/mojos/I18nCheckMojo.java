@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.xenoamess.i18n.transformer.mojos;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ast.CompilationUnit;
+import com.xenoamess.i18n.transformer.contexts.I18nTransformerContext;
+import com.xenoamess.i18n.transformer.detectors.ScriptDetector;
+import com.xenoamess.i18n.transformer.entities.LiteralOccurrence;
+import com.xenoamess.i18n.transformer.utils.JsonUtil;
+import com.xenoamess.i18n.transformer.utils.PreScanUtil;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import static com.xenoamess.i18n.transformer.utils.I18nTransformerUtil.dfs;
+
+/**
+ * Report hard-coded Chinese string literals without transforming anything.
+ * <p/>
+ * Finds the same literals the <code>transform</code> goal would replace, but does not compile the project first,
+ * never prints or writes java files, and generates no properties. Only the report file is written.
+ */
+@Mojo(name = "check", defaultPhase = LifecyclePhase.VERIFY, threadSafe = true)
+public class I18nCheckMojo extends AbstractI18nTransformerMojo {
+
+    // ----------------------------------------------------------------------
+    // Mojo parameters
+    // ----------------------------------------------------------------------
+
+    /**
+     * Whether to fail the build if any string literal containing Chinese is found.
+     */
+    @Parameter(property = "failOnChinese", defaultValue = "true")
+    private boolean failOnChinese;
+
+    /**
+     * Json file to write the found string literals to, with their file, line, column and context type.
+     */
+    @Parameter(property = "checkReportFile", defaultValue = "${project.build.directory}/i18n-transformer/check-report.json")
+    private File checkReportFile;
+
+    /**
+     * Number of worker threads used to check java files, values lower than <code>1</code> mean use all available processors.
+     * The report is always in source file order.
+     */
+    @Parameter(property = "threads", defaultValue = "0")
+    private int threads;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if ("pom".equalsIgnoreCase(project.getPackaging())) {
+            getLog().info("This project has 'pom' packaging, no Java sources is available.");
+            return;
+        }
+        List<LiteralOccurrence> literalOccurrences = new ArrayList<>();
+        List<File> javaFiles;
+        try {
+            javaFiles = collectJavaFiles();
+        } catch (IOException e) {
+            throw new MojoExecutionException("IOException: " + e.getMessage(), e);
+        }
+        ScriptDetector scriptDetector = createScriptDetector();
+        // tokens are kept for the line and column of every literal
+        ThreadLocal<JavaParser> javaParsers = createJavaParsers(false, true);
+
+        int threadCount = threads < 1 ? Runtime.getRuntime().availableProcessors() : threads;
+        ExecutorService executorService = new ForkJoinPool(threadCount);
+        try {
+            List<Future<List<LiteralOccurrence>>> futures = new ArrayList<>(javaFiles.size());
+            for (File f : javaFiles) {
+                futures.add(executorService.submit(() -> checkFile(f, javaParsers, scriptDetector)));
+            }
+            for (Future<List<LiteralOccurrence>> future : futures) {
+                literalOccurrences.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while checking java files", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw new MojoExecutionException("Failed to check java files: " + cause.getMessage(), cause);
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        try {
+            org.apache.commons.io.FileUtils.write(
+                    checkReportFile,
+                    toReportJson(javaFiles.size(), literalOccurrences),
+                    StandardCharsets.UTF_8
+            );
+        } catch (IOException e) {
+            throw new MojoExecutionException("IOException: " + e.getMessage(), e);
+        }
+
+        for (LiteralOccurrence literalOccurrence : literalOccurrences) {
+            getLog().warn(
+                    literalOccurrence.getIdentifier() + ":[" + literalOccurrence.getLine() + "," + literalOccurrence.getColumn() + "] "
+                            + literalOccurrence.getContextType() + " \"" + literalOccurrence.getValue() + "\""
+            );
+        }
+        String summary = "Found " + literalOccurrences.size() + " string literals containing Chinese in "
+                + javaFiles.size() + " java files, report written to " + checkReportFile;
+        if (!literalOccurrences.isEmpty() && failOnChinese) {
+            throw new MojoFailureException(summary);
+        }
+        getLog().info(summary);
+    }
+
+    /**
+     * Find string literals containing Chinese in a single java file.
+     * <p/>
+     * Every call uses the parser of its thread and its own {@link I18nTransformerContext}, so it is safe to call it from several threads.
+     *
+     * @param f              java file
+     * @param javaParsers    parser of every thread
+     * @param scriptDetector scripts to report string literals for
+     * @return string literals containing Chinese, in source order
+     * @throws IOException if any
+     */
+    private List<LiteralOccurrence> checkFile(
+            File f,
+            ThreadLocal<JavaParser> javaParsers,
+            ScriptDetector scriptDetector
+    ) throws IOException, MojoExecutionException {
+        byte[] fileContent = Files.readAllBytes(f.toPath());
+        if (!PreScanUtil.mayContainMatch(fileContent, getCharset(), scriptDetector)) {
+            return Collections.emptyList();
+        }
+        String identifier = project.getBasedir() == null
+                ? f.getPath()
+                : project.getBasedir().toPath().relativize(f.toPath()).toString();
+        ParseResult<CompilationUnit> parseResult = javaParsers.get().parse(
+                new ByteArrayInputStream(fileContent),
+                getCharset()
+        );
+        if (!parseResult.isSuccessful() || parseResult.getResult().isEmpty()) {
+            throw new MojoExecutionException("Failed to parse " + identifier + " : " + parseResult.getProblems());
+        }
+        I18nTransformerContext i18nTransformerContext = new I18nTransformerContext(
+                "",
+                "",
+                identifier,
+                null,
+                0,
+                new ArrayList<>()
+        );
+        i18nTransformerContext.setReportOnly(true);
+        i18nTransformerContext.setScriptDetector(scriptDetector);
+        dfs(
+                parseResult.getResult().get(),
+                i18nTransformerContext
+        );
+        return i18nTransformerContext.getLiteralOccurrences();
+    }
+
+    private static String toReportJson(
+            int fileCount,
+            List<LiteralOccurrence> literalOccurrences
+    ) {
+        StringBuilder stringBuilder = new StringBuilder(128 + literalOccurrences.size() * 128);
+        stringBuilder.append("{\n  \"fileCount\": ").append(fileCount).append(",\n");
+        stringBuilder.append("  \"literalCount\": ").append(literalOccurrences.size()).append(",\n");
+        stringBuilder.append("  \"literals\": [");
+        for (int i = 0; i < literalOccurrences.size(); i++) {
+            LiteralOccurrence literalOccurrence = literalOccurrences.get(i);
+            stringBuilder.append(i == 0 ? "\n" : ",\n");
+            stringBuilder.append("    {\"file\": ");
+            JsonUtil.appendString(stringBuilder, literalOccurrence.getIdentifier());
+            stringBuilder.append(", \"line\": ").append(literalOccurrence.getLine());
+            stringBuilder.append(", \"column\": ").append(literalOccurrence.getColumn());
+            stringBuilder.append(", \"contextType\": ");
+            JsonUtil.appendString(stringBuilder, literalOccurrence.getContextType().name());
+            stringBuilder.append(", \"transformable\": ").append(literalOccurrence.getContextType().isTransformable());
+            stringBuilder.append(", \"value\": ");
+            JsonUtil.appendString(stringBuilder, literalOccurrence.getValue());
+            stringBuilder.append('}');
+        }
+        stringBuilder.append(literalOccurrences.isEmpty() ? "]\n}\n" : "\n  ]\n}\n");
+        return stringBuilder.toString();
+    }
+
+}
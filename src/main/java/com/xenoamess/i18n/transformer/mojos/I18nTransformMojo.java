@@ -18,92 +18,336 @@
  */
 package com.xenoamess.i18n.transformer.mojos;
 
-import com.github.javaparser.ParserConfiguration;
-import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
 import com.github.javaparser.ast.CompilationUnit;
+import com.xenoamess.i18n.transformer.caches.FileFingerprintCache;
 import com.xenoamess.i18n.transformer.contexts.I18nTransformerContext;
+import com.xenoamess.i18n.transformer.detectors.ScriptDetector;
+import com.xenoamess.i18n.transformer.contexts.MergedBundle;
+import com.xenoamess.i18n.transformer.contexts.PropertyNameIndex;
+import com.xenoamess.i18n.transformer.contexts.TransformMetrics;
+import com.xenoamess.i18n.transformer.entities.FileFingerprint;
+import com.xenoamess.i18n.transformer.entities.FileTiming;
 import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import com.xenoamess.i18n.transformer.enums.BundleFormat;
+import com.xenoamess.i18n.transformer.enums.BundleSharding;
+import com.xenoamess.i18n.transformer.enums.ConcatenationMode;
+import com.xenoamess.i18n.transformer.enums.ConstantMode;
+import com.xenoamess.i18n.transformer.enums.DedupScope;
+import com.xenoamess.i18n.transformer.enums.KeyStrategy;
+import com.xenoamess.i18n.transformer.enums.RewriteMode;
+import com.xenoamess.i18n.transformer.enums.TemplatePreset;
+import com.xenoamess.i18n.transformer.enums.TransformPhase;
+import com.xenoamess.i18n.transformer.runtime.BinaryBundleControl;
+import com.xenoamess.i18n.transformer.utils.AccessorGeneratorUtil;
+import com.xenoamess.i18n.transformer.utils.FastPathUtil;
+import com.xenoamess.i18n.transformer.utils.GeneratedSourcesUtil;
+import com.xenoamess.i18n.transformer.utils.PreScanUtil;
+import com.xenoamess.i18n.transformer.utils.PropertiesReaderUtil;
+import com.xenoamess.i18n.transformer.utils.SpliceUtil;
 import org.apache.commons.io.IOUtils;
-import org.apache.maven.artifact.DependencyResolutionRequiredException;
-import org.apache.maven.execution.MavenSession;
-import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.*;
 import org.apache.maven.project.MavenProject;
-import org.apache.maven.settings.Settings;
 import org.codehaus.plexus.util.FileUtils;
 import org.codehaus.plexus.util.StringUtils;
 
-import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.StringReader;
-import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import static com.xenoamess.i18n.transformer.utils.I18nTransformerUtil.dfs;
 
-@Mojo(name = "transform", requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = false)
+@Mojo(name = "transform", requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = true)
 @Execute(phase = LifecyclePhase.COMPILE)
-public class I18nTransformMojo extends AbstractMojo {
+public class I18nTransformMojo extends AbstractI18nTransformerMojo {
 
     // ----------------------------------------------------------------------
     // Mojo parameters
     // ----------------------------------------------------------------------
 
-    @Parameter(property = "javaVersion", defaultValue = "JAVA_11")
-    private String javaVersion;
-
     @Parameter(property = "propertyBundleName", defaultValue = "${project.name}_xi18nt")
     private String propertyBundleName;
 
     @Parameter(property = "i18nTemplate", defaultValue = "java.util.ResourceBundle.getBundle(\"$${propertyBundleName}\", java.util.Locale.CHINA).getString(\"$${value}\")")
     private String i18nTemplate;
 
-    @Parameter(property = "encoding", defaultValue = "${project.build.sourceEncoding}")
-    private String encoding;
+    /**
+     * Ready made templates used instead of <code>i18nTemplate</code> and <code>i18nFormatTemplate</code>,
+     * one of <code>CUSTOM</code> or <code>RELOADABLE</code>.
+     * <p/>
+     * <code>RELOADABLE</code> looks messages up by the <code>ReloadableBundle</code> of this plugin's <code>runtime</code> package,
+     * which swaps in changed bundle files without a restart, on demand or when the system property
+     * <code>xi18nt.reload.watch</code> is <code>true</code>.
+     * <code>CUSTOM</code> uses the configured templates.
+     */
+    @Parameter(property = "i18nTemplatePreset", defaultValue = "CUSTOM")
+    private TemplatePreset i18nTemplatePreset;
+
+    /**
+     * Whether to write this module's bundle into <code>src/main/resources</code>.
+     * <p/>
+     * The entries are always written to <code>target/i18n-transformer/entries.properties</code> too, with the
+     * <code>propertyBundleName</code> call sites look up, where the <code>aggregate</code> goal collects them from. Turn this off when only the aggregated bundle is used.
+     */
+    @Parameter(property = "writeModuleBundle", defaultValue = "true")
+    private boolean writeModuleBundle;
+
+    /**
+     * Format of the generated bundle files, one of <code>PROPERTIES</code> or <code>BINARY</code>.
+     * <p/>
+     * <code>BINARY</code> writes <code>.xi18nb</code> files with a perfect hash index, which need no parsing at load time.
+     * They are found by plain <code>ResourceBundle.getBundle</code> calls
+     * once this plugin's <code>runtime</code> package is on the application class path,
+     * i.e. by depending on the jar of this plugin with classifier <code>runtime</code>, which only needs the JDK.
+     */
+    @Parameter(property = "bundleFormat", defaultValue = "PROPERTIES")
+    private BundleFormat bundleFormat;
+
+    /**
+     * How to split the generated properties into bundles, one of <code>NONE</code>, <code>PACKAGE</code> or <code>CLASS</code>.
+     * <p/>
+     * With <code>PACKAGE</code> or <code>CLASS</code>, the properties of every package, or of every top level class,
+     * go into a bundle named <code>propertyBundleName.package</code> or <code>propertyBundleName.package.Class</code>,
+     * under a directory named after <code>propertyBundleName</code>.
+     * String literals are replaced with lookups into their own bundle, so a bundle is only loaded once code using it runs.
+     * A value used in several bundles is stored in each of them.
+     * Not supported together with <code>generateAccessor</code>, which resolves all messages at once anyway,
+     * and needs <code>writeModuleBundle</code>, as the <code>aggregate</code> goal does not shard.
+     */
+    @Parameter(property = "bundleSharding", defaultValue = "NONE")
+    private BundleSharding bundleSharding;
+
+    /**
+     * Whether to generate a message accessor class, with one static method per property,
+     * and replace string literals with calls to it instead of <code>i18nTemplate</code>.
+     * <p/>
+     * The accessor resolves all messages of a locale into an array once,
+     * so every call is a single array load.
+     */
+    @Parameter(property = "generateAccessor", defaultValue = "false")
+    private boolean generateAccessor;
+
+    /**
+     * Fully qualified name of the generated accessor class.
+     */
+    @Parameter(property = "accessorClassName", defaultValue = "xi18nt.Messages")
+    private String accessorClassName;
+
+    /**
+     * Java expression giving the locale the accessor resolves messages for, evaluated on every call.
+     */
+    @Parameter(property = "accessorLocale", defaultValue = "java.util.Locale.CHINA")
+    private String accessorLocale;
+
+    /**
+     * Template used instead of <code>i18nTemplate</code> when <code>generateAccessor</code> is on.
+     */
+    @Parameter(property = "accessorTemplate", defaultValue = "$${accessorClassName}.$${accessorMethodName}()")
+    private String accessorTemplate;
+
+    /**
+     * How string concatenations containing Chinese are transformed, one of <code>SPLIT</code> or <code>PLACEHOLDER</code>.
+     * <p/>
+     * <code>SPLIT</code> replaces every string literal of a concatenation by its own property.
+     * <code>PLACEHOLDER</code> replaces the whole <code>+</code> chain by one property with <code>{0}</code> style placeholders
+     * for the other operands, using <code>i18nFormatTemplate</code>, or <code>accessorFormatTemplate</code> with
+     * <code>generateAccessor</code>.
+     * Placeholders are formatted by the <code>runtime</code> package of this plugin, which has to be on the application class path then,
+     * see the jar of this plugin with classifier <code>runtime</code>.
+     */
+    @Parameter(property = "concatenationMode", defaultValue = "SPLIT")
+    private ConcatenationMode concatenationMode;
+
+    /**
+     * How string literals of static and interface fields, enum constants and annotations are transformed,
+     * one of <code>SUPPLIER</code> or <code>CACHED</code>.
+     * <p/>
+     * <code>SUPPLIER</code> renames static and interface fields to <code>*_SUPPLIER</code>, holding a
+     * <code>Supplier&lt;String&gt;</code> which looks the message up on every call, so their usages need manual changes.
+     * <code>CACHED</code> keeps the fields and initializes them by looking the message up,
+     * once when the class initializes, so their usages keep compiling.
+     * Enum constant arguments are replaced the same way, and annotation values are added to the bundle but kept,
+     * as they must be constants. The message is resolved for the locale of the class initialization then,
+     * and kept for the life of the JVM.
+     * <p/>
+     * A field initialized this way is no compile time constant any more. Fields used in a case label or an annotation
+     * of their own file are added to the bundle but kept, with a warning. Such usages in other files fail to compile,
+     * and classes compiled against the old field, like other modules, keep the inlined Chinese value until recompiled.
+     */
+    @Parameter(property = "constantMode", defaultValue = "SUPPLIER")
+    private ConstantMode constantMode;
+
+    /**
+     * Template replacing a concatenation in <code>PLACEHOLDER</code> mode,
+     * <code>$${arguments}</code> being its operands which are not string literals, comma separated.
+     * The default caches the parsed message per bundle, locale and key.
+     */
+    @Parameter(property = "i18nFormatTemplate", defaultValue = "com.xenoamess.i18n.transformer.runtime.MessageTemplate.format(java.util.ResourceBundle.getBundle(\"$${propertyBundleName}\", java.util.Locale.CHINA), \"$${value}\", $${arguments})")
+    private String i18nFormatTemplate;
+
+    /**
+     * Template used instead of <code>i18nFormatTemplate</code> when <code>generateAccessor</code> is on.
+     */
+    @Parameter(property = "accessorFormatTemplate", defaultValue = "$${accessorClassName}.$${accessorMethodName}($${arguments})")
+    private String accessorFormatTemplate;
+
+    /**
+     * Directory to generate the accessor class into, it is added as a compile source root.
+     */
+    @Parameter(property = "accessorOutputDirectory", defaultValue = "${project.build.directory}/generated-sources/i18n-accessor")
+    private File accessorOutputDirectory;
+
+    /**
+     * Number of worker threads used to transform java files.
+     * <p/>
+     * <code>1</code> means transform files one by one in the current thread,
+     * values lower than <code>1</code> mean use all available processors.
+     * The generated properties are always merged in source file order, so the output is the same as a sequential run.
+     */
+    @Parameter(property = "threads", defaultValue = "1")
+    private int threads;
 
     /**
-     * Java Files Pattern.
+     * Scope in which identical string literals share one property,
+     * one of <code>FILE</code>, <code>CLASS</code>, <code>PACKAGE</code> or <code>MODULE</code>.
+     * <p/>
+     * With <code>keyStrategy</code> <code>INDEX</code>, scopes wider than <code>FILE</code> make the chosen property
+     * depend on the order files are transformed in, so files are transformed sequentially then, whatever <code>threads</code> is.
      */
-    public static final String JAVA_FILES = "**\\/*.java";
+    @Parameter(property = "dedupScope", defaultValue = "FILE")
+    private DedupScope dedupScope;
 
     /**
-     * Comma separated includes Java files, i.e. <code>&#42;&#42;/&#42;Test.java</code>.
+     * How property names are generated, one of <code>INDEX</code> or <code>HASH</code>.
      * <p/>
-     * <strong>Note:</strong> default value is {@code **\/*.java}.
+     * <code>INDEX</code> numbers the literals of every class, so inserting a literal renames the properties after it.
+     * <code>HASH</code> names properties by a hash of their value, which stays the same across edits,
+     * and lets wider <code>dedupScope</code>s run on several <code>threads</code> too.
      */
-    @Parameter(property = "includes", defaultValue = JAVA_FILES)
-    private String includes;
+    @Parameter(property = "keyStrategy", defaultValue = "INDEX")
+    private KeyStrategy keyStrategy;
 
     /**
-     * Comma separated excludes Java files, i.e. <code>&#42;&#42;/&#42;Test.java</code>.
+     * How to write transformed java files back, one of <code>PRETTY_PRINT</code> or <code>SPLICE</code>.
+     * <p/>
+     * <code>PRETTY_PRINT</code> prints the whole file again, which reformats it.
+     * <code>SPLICE</code> only replaces the source text of replaced string literals and keeps formatting and comments,
+     * files with changes other than literal replacements still get pretty printed.
      */
-    @Parameter(property = "excludes")
-    private String excludes;
+    @Parameter(property = "rewriteMode", defaultValue = "PRETTY_PRINT")
+    private RewriteMode rewriteMode;
 
     /**
-     * The Maven Project Object.
+     * Whether to transform files from their tokens only, without parsing them, when <code>rewriteMode</code> is <code>SPLICE</code>.
+     * <p/>
+     * Only files with a single class, whose string literals containing Chinese are all method arguments, array values,
+     * <code>+</code> operands, or initializers of local variables and fields, take this way, the others are still parsed.
+     * The result is the same, but files are not checked for syntax errors on this way.
      */
-    @Parameter(defaultValue = "${project}", readonly = true, required = true)
-    private MavenProject project;
+    @Parameter(property = "lexerFastPath", defaultValue = "true")
+    private boolean lexerFastPath;
 
-    @Parameter(defaultValue = "${session}", readonly = true, required = true)
-    private MavenSession session;
+    /**
+     * Whether to attach comments to the parsed nodes.
+     * <p/>
+     * Pretty printed files lose their comments when this is off.
+     * With <code>rewriteMode</code> <code>SPLICE</code> comments are kept in the source text anyway,
+     * so turning it off makes parsing cheaper, only files falling back to pretty printing lose their comments then.
+     * Without comments and without <code>SPLICE</code>, token ranges are not kept either.
+     */
+    @Parameter(property = "attributeComments", defaultValue = "true")
+    private boolean attributeComments;
 
     /**
-     * The current user system settings for use in Maven.
+     * Whether to skip parsing java files which did not change since the last run,
+     * and reuse the properties they produced back then.
      */
-    @Parameter(defaultValue = "${settings}", readonly = true, required = true)
-    private Settings settings;
+    @Parameter(property = "useCache", defaultValue = "true")
+    private boolean useCache;
+
+    /**
+     * File to keep fingerprints of transformed java files in, between runs.
+     */
+    @Parameter(property = "cacheFile", defaultValue = "${project.build.directory}/i18n-transformer/transform-cache.bin")
+    private File cacheFile;
+
+    /**
+     * Whether to keep the entries already in the module bundle, instead of overwriting it.
+     * <p/>
+     * Values already in the bundle keep their property names, new values get names not used by the bundle yet,
+     * and their entries are appended after the existing ones. Only used together with <code>writeModuleBundle</code>.
+     */
+    @Parameter(property = "mergeExistingBundle", defaultValue = "true")
+    private boolean mergeExistingBundle;
+
+    /**
+     * Whether to drop existing bundle entries no java source uses any more, when merging.
+     * <p/>
+     * An entry counts as used when its property name, or its accessor method name, appears anywhere in a java source.
+     */
+    @Parameter(property = "removeOrphans", defaultValue = "false")
+    private boolean removeOrphans;
+
+    /**
+     * File to write the json report of the run to, with phase timings, counters and the slowest files.
+     * No report is written if it is empty.
+     */
+    @Parameter(property = "transformReportFile", defaultValue = "${project.build.directory}/i18n-transformer/transform-report.json")
+    private File transformReportFile;
+
+    /**
+     * Number of slowest java files listed in the report.
+     */
+    @Parameter(property = "reportSlowestFiles", defaultValue = "10")
+    private int reportSlowestFiles;
+
+    /**
+     * Whether to write transformed java files into <code>generatedSourcesDirectory</code>, instead of over the sources.
+     * <p/>
+     * The compile source roots are then replaced by <code>generatedSourcesDirectory</code>,
+     * so the compiler only sees the transformed copies and the working tree stays untouched.
+     * Every java file of those source roots is mirrored there, excluded ones too, but only included ones are transformed.
+     * Java files needing no change are hard linked there, or copied where links are not supported,
+     * transformed copies are only written when their content changed, and copies of removed java files are deleted.
+     * <p/>
+     * To compile the transformed copies in the same build, bind the <code>transform-sources</code> goal to
+     * <code>generate-sources</code>, as this goal forks a build up to <code>compile</code> first.
+     */
+    @Parameter(property = "writeGeneratedSources", defaultValue = "false")
+    private boolean writeGeneratedSources;
+
+    /**
+     * Directory transformed java files are written into with <code>writeGeneratedSources</code>.
+     */
+    @Parameter(property = "generatedSourcesDirectory", defaultValue = "${project.build.directory}/generated-sources/i18n")
+    private File generatedSourcesDirectory;
+
+    /**
+     * Compile source roots mirrored into <code>generatedSourcesDirectory</code>, absolute and normalized,
+     * to the way the project names them.
+     */
+    private final Map<Path, String> mirroredSourceRoots = new LinkedHashMap<>();
+
+    protected final TransformMetrics transformMetrics = new TransformMetrics();
 
     /**
      * {@inheritDoc}
@@ -117,132 +361,829 @@ public class I18nTransformMojo extends AbstractMojo {
                 return;
             }
 
-            List<File> javaFiles = new LinkedList<>();
-            for (String sourceRoot : getProjectSourceRoots(project)) {
-                File f = new File(sourceRoot);
-                if (f.isDirectory()) {
-                    javaFiles.addAll(FileUtils.getFiles(f, includes, excludes, true));
-                } else {
-                    if (getLog().isWarnEnabled()) {
-                        getLog().warn(f + " doesn't exist. Ignored it.");
-                    }
+            long discoveryStart = System.nanoTime();
+            validateParameters();
+            prepareGeneratedSources();
+            List<File> javaFilesToTransform = collectJavaFiles();
+            transformMetrics.addPhaseNanos(TransformPhase.DISCOVERY, System.nanoTime() - discoveryStart);
+
+            ScriptDetector scriptDetector = createScriptDetector();
+            ThreadLocal<JavaParser> javaParsers = createTransformParsers();
+            FileFingerprintCache fileFingerprintCache = useCache
+                    ? loadFileFingerprintCache(scriptDetector)
+                    : null;
+
+            List<PropertiesEntity> existingPropertiesEntityList = readExistingBundle();
+            PropertyNameIndex propertyNameIndex = createPropertyNameIndex();
+            propertyNameIndex.registerExisting(existingPropertiesEntityList);
+
+            List<PropertiesEntity> propertiesEntityList = transformFiles(
+                    javaFilesToTransform,
+                    javaParsers,
+                    propertyNameIndex,
+                    scriptDetector,
+                    fileFingerprintCache
+            );
+            long bundleStart = System.nanoTime();
+            propertiesEntityList = mergeWithExisting(existingPropertiesEntityList, propertiesEntityList, javaFilesToTransform);
+            transformMetrics.addPhaseNanos(TransformPhase.BUNDLE, System.nanoTime() - bundleStart);
+            if (getLog().isInfoEnabled()) {
+                getLog().info(
+                        "Pre-scan skipped " + transformMetrics.getPreScanSkippedFileCount()
+                                + " java files without Chinese, parsed " + transformMetrics.getParsedFileCount() + " java files, "
+                                + "transformed " + transformMetrics.getFastPathFileCount() + " java files from their tokens only."
+                );
+            }
+            if (fileFingerprintCache != null) {
+                fileFingerprintCache.save();
+                if (getLog().isInfoEnabled()) {
+                    getLog().info(
+                            fileFingerprintCache.getReusedCount() + " of " + javaFilesToTransform.size()
+                                    + " java files unchanged since last run, reused cached properties."
+                    );
                 }
             }
+            writeOutputs(propertiesEntityList);
+            swapSourceRoots(javaFilesToTransform);
+            writeTransformReport(javaFilesToTransform.size(), propertiesEntityList.size());
+        } catch (IOException e) {
+            throw new MojoExecutionException("IOException: " + e.getMessage(), e);
+        }
+    }
 
-            ParserConfiguration parserConfiguration = new ParserConfiguration();
-            parserConfiguration.setCharacterEncoding(Charset.forName(encoding));
-            parserConfiguration.setLanguageLevel(ParserConfiguration.LanguageLevel.valueOf(javaVersion));
+    /**
+     * Write the json report of the metrics so far to <code>transformReportFile</code>, and log the slowest files at debug level.
+     *
+     * @param fileCount     number of java files of the run
+     * @param propertyCount number of entries of the bundle
+     * @throws IOException if any
+     */
+    protected void writeTransformReport(int fileCount, int propertyCount) throws IOException {
+        if (getLog().isDebugEnabled()) {
+            for (FileTiming fileTiming : transformMetrics.getSlowestFiles(reportSlowestFiles)) {
+                getLog().debug(
+                        "Transformed " + fileTiming.getIdentifier() + " in " + fileTiming.getNanos() / 1000000 + " ms, "
+                                + fileTiming.getLiteralCount() + " literals."
+                );
+            }
+        }
+        if (transformReportFile == null || transformReportFile.getPath().isEmpty()) {
+            return;
+        }
+        org.apache.commons.io.FileUtils.write(
+                transformReportFile,
+                transformMetrics.toJson(fileCount, propertyCount, reportSlowestFiles),
+                StandardCharsets.UTF_8
+        );
+    }
 
+    /**
+     * @throws MojoExecutionException if parameters do not work together
+     */
+    protected void validateParameters() throws MojoExecutionException {
+        if (generateAccessor && bundleSharding != BundleSharding.NONE) {
+            throw new MojoExecutionException("bundleSharding " + bundleSharding + " is not supported together with generateAccessor");
+        }
+        if (!writeModuleBundle && bundleSharding != BundleSharding.NONE) {
+            // shards are only written into the module, the aggregate goal merges modules into one unsharded bundle
+            throw new MojoExecutionException("bundleSharding " + bundleSharding + " needs writeModuleBundle");
+        }
+    }
 
-            List<PropertiesEntity> propertiesEntityList = new ArrayList<>();
-            for (File f : javaFiles) {
-                if (!f.getAbsolutePath().toLowerCase(Locale.ENGLISH).endsWith(".java") && getLog().isWarnEnabled()) {
-                    continue;
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * With <code>writeGeneratedSources</code>, <code>generatedSourcesDirectory</code> and the accessor directory are left out,
+     * so running again in the same build does not take generated files as sources.
+     */
+    @Override
+    protected List<String> getProjectSourceRoots(MavenProject p) {
+        List<String> sourceRoots = super.getProjectSourceRoots(p);
+        if (writeGeneratedSources) {
+            sourceRoots.removeIf(
+                    sourceRoot -> new File(sourceRoot).getAbsoluteFile().equals(generatedSourcesDirectory.getAbsoluteFile())
+                            || new File(sourceRoot).getAbsoluteFile().equals(accessorOutputDirectory.getAbsoluteFile())
+            );
+        }
+        return sourceRoots;
+    }
+
+    /**
+     * Remember the compile source roots to mirror into <code>generatedSourcesDirectory</code>,
+     * before any java file is transformed.
+     */
+    protected void prepareGeneratedSources() {
+        mirroredSourceRoots.clear();
+        if (!writeGeneratedSources) {
+            return;
+        }
+        for (String sourceRoot : getProjectSourceRoots(project)) {
+            mirroredSourceRoots.put(new File(sourceRoot).toPath().toAbsolutePath().normalize(), sourceRoot);
+        }
+    }
+
+    /**
+     * Link every java file of the mirrored source roots left out by includes and excludes into
+     * <code>generatedSourcesDirectory</code>, delete files there whose java file is gone,
+     * and compile <code>generatedSourcesDirectory</code> instead of the mirrored source roots.
+     *
+     * @param javaFiles java files of the run
+     * @throws IOException if any
+     */
+    private void swapSourceRoots(List<File> javaFiles) throws IOException {
+        if (!writeGeneratedSources) {
+            return;
+        }
+        Set<Path> transformedFiles = new HashSet<>();
+        for (File javaFile : javaFiles) {
+            transformedFiles.add(javaFile.toPath().toAbsolutePath().normalize());
+        }
+        Set<Path> generatedSourceFiles = new HashSet<>();
+        for (Path sourceRoot : mirroredSourceRoots.keySet()) {
+            if (!Files.isDirectory(sourceRoot)) {
+                continue;
+            }
+            // the mirrored roots are no longer compiled, so excluded files have to be in the mirror too
+            for (File javaFile : FileUtils.getFiles(sourceRoot.toFile(), JAVA_FILES, null, true)) {
+                if (!transformedFiles.contains(javaFile.toPath().toAbsolutePath().normalize())) {
+                    linkJavaFile(javaFile);
                 }
-                String handledFileContent = null;
-                I18nTransformerContext i18nTransformerContext = new I18nTransformerContext(
-                        i18nTemplate,
-                        propertyBundleName,
-                        f.getPath(),
-                        f.getAbsolutePath(),
-                        0,
-                        new ArrayList<>()
+                generatedSourceFiles.add(getGeneratedSourceFile(javaFile).toPath());
+            }
+        }
+        int staleFileCount = GeneratedSourcesUtil.deleteStale(
+                generatedSourcesDirectory.toPath().toAbsolutePath().normalize(),
+                generatedSourceFiles
+        );
+        GeneratedSourcesUtil.swapSourceRoots(project, mirroredSourceRoots.values(), generatedSourcesDirectory);
+        if (getLog().isInfoEnabled()) {
+            getLog().info(
+                    "Compiling " + generatedSourcesDirectory + " instead of " + mirroredSourceRoots.size()
+                            + " source roots, removed " + staleFileCount + " stale files."
+            );
+        }
+    }
+
+    /**
+     * @param javaFile java file of a mirrored source root
+     * @return its copy in <code>generatedSourcesDirectory</code>, absolute and normalized
+     * @throws IOException if the java file is not in any mirrored source root
+     */
+    private File getGeneratedSourceFile(File javaFile) throws IOException {
+        Path path = javaFile.toPath().toAbsolutePath().normalize();
+        for (Path sourceRoot : mirroredSourceRoots.keySet()) {
+            if (path.startsWith(sourceRoot)) {
+                return generatedSourcesDirectory.toPath().toAbsolutePath().normalize().resolve(sourceRoot.relativize(path)).toFile();
+            }
+        }
+        throw new IOException(javaFile + " is not in a compile source root");
+    }
+
+    /**
+     * Write a transformed java file, over itself or into <code>generatedSourcesDirectory</code>.
+     *
+     * @param f           java file
+     * @param fileContent transformed content
+     * @throws IOException if any
+     */
+    private void writeJavaFile(File f, byte[] fileContent) throws IOException {
+        if (!writeGeneratedSources) {
+            try (
+                    OutputStream outputStream = new FileOutputStream(f);
+                    BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(outputStream)
+            ) {
+                bufferedOutputStream.write(
+                        fileContent
                 );
-                try (
-                        InputStream inputStream = new FileInputStream(f);
-                        BufferedInputStream bufferedInputStream = new BufferedInputStream(inputStream)
-                ) {
-                    CompilationUnit compilationUnit = StaticJavaParser.parse(bufferedInputStream, Charset.forName(encoding));
-                    dfs(
-                            compilationUnit,
-                            i18nTransformerContext
+            }
+            return;
+        }
+        GeneratedSourcesUtil.write(getGeneratedSourceFile(f).toPath(), f.toPath(), fileContent);
+    }
+
+    /**
+     * Make the copy of a java file needing no change in <code>generatedSourcesDirectory</code> a link to it,
+     * or a plain copy where links are not supported. Does nothing without <code>writeGeneratedSources</code>.
+     *
+     * @param f java file
+     * @throws IOException if any
+     */
+    private void linkJavaFile(File f) throws IOException {
+        if (!writeGeneratedSources) {
+            return;
+        }
+        GeneratedSourcesUtil.link(getGeneratedSourceFile(f).toPath(), f.toPath());
+    }
+
+    /**
+     * @return parser of the current thread, configured for <code>rewriteMode</code> and <code>attributeComments</code>
+     * @throws MojoExecutionException if <code>javaVersion</code> is invalid
+     */
+    protected ThreadLocal<JavaParser> createTransformParsers() throws MojoExecutionException {
+        return createJavaParsers(attributeComments, rewriteMode == RewriteMode.SPLICE);
+    }
+
+    /**
+     * @param scriptDetector scripts to transform string literals for
+     * @return fingerprint cache of the last run, from <code>cacheFile</code>
+     */
+    protected FileFingerprintCache loadFileFingerprintCache(ScriptDetector scriptDetector) {
+        return FileFingerprintCache.load(cacheFile, getCacheConfigurationSignature(scriptDetector));
+    }
+
+    /**
+     * @return entries of the module bundle to merge with, empty if merging is off
+     * @throws IOException if any
+     */
+    protected List<PropertiesEntity> readExistingBundle() throws IOException {
+        if (!mergeExistingBundle || !writeModuleBundle) {
+            return Collections.emptyList();
+        }
+        File resourcesDirectory = new File(project.getBasedir(), "src/main/resources");
+        List<PropertiesEntity> propertiesEntityList = new ArrayList<>(
+                readBundle(resourcesDirectory, propertyBundleName, bundleFormat)
+        );
+        if (bundleSharding != BundleSharding.NONE) {
+            propertiesEntityList.addAll(readShards(resourcesDirectory));
+        }
+        return propertiesEntityList;
+    }
+
+    /**
+     * Read every shard bundle under the directory named after <code>propertyBundleName</code>, in path order,
+     * whichever sharding they were written with.
+     *
+     * @param resourcesDirectory directory the main bundle is in
+     * @return properties entities of the shards, with their bundle names set
+     * @throws IOException if any
+     */
+    private List<PropertiesEntity> readShards(File resourcesDirectory) throws IOException {
+        String extension = bundleFormat == BundleFormat.BINARY
+                ? "." + BinaryBundleControl.FILE_EXTENSION
+                : ".properties";
+        List<PropertiesEntity> propertiesEntityList = new ArrayList<>();
+        for (String shardBundleName : PropertiesReaderUtil.findShardBundleNames(resourcesDirectory.toPath(), propertyBundleName, extension)) {
+            for (PropertiesEntity propertiesEntity : readBundle(resourcesDirectory, getResourcePath(shardBundleName), bundleFormat)) {
+                propertiesEntity.setBundleName(shardBundleName);
+                propertiesEntityList.add(propertiesEntity);
+            }
+        }
+        return propertiesEntityList;
+    }
+
+    /**
+     * Shards are looked up like classes, so the dots of their names are directories.
+     *
+     * @param shardBundleName shard bundle name
+     * @return path of the shard bundle files relative to the resources directory, without locale and extension
+     */
+    private static String getResourcePath(String shardBundleName) {
+        return shardBundleName.replace('.', '/');
+    }
+
+    /**
+     * @param propertiesEntity entry
+     * @return key of the entry among the entries of all bundles, as shards may have the same property name
+     */
+    protected static String getBundleEntryKey(PropertiesEntity propertiesEntity) {
+        return MergedBundle.getEntryKey(propertiesEntity);
+    }
+
+    /**
+     * @return a new property name index for <code>dedupScope</code> and <code>keyStrategy</code>
+     */
+    protected PropertyNameIndex createPropertyNameIndex() {
+        return new PropertyNameIndex(dedupScope, keyStrategy);
+    }
+
+    /**
+     * Writing a transformed java file, held back until every file is transformed.
+     */
+    private interface PendingWrite {
+
+        void write() throws IOException;
+
+    }
+
+    /**
+     * Transform java files, on <code>threads</code> threads if their order does not matter.
+     * <p/>
+     * With <code>HASH</code> keys files are written once all of them are transformed. If two values got the same hash
+     * on different threads, the names depend on which came first, so the files are transformed again sequentially
+     * and collisions are resolved in file order.
+     *
+     * @param javaFiles            java files
+     * @param javaParsers          parser of every thread
+     * @param propertyNameIndex    property name index shared by all files
+     * @param scriptDetector       scripts to transform string literals for
+     * @param fileFingerprintCache fingerprint cache, or null if cache is disabled
+     * @return properties entities generated from the files, in file order
+     * @throws IOException            if any
+     * @throws MojoExecutionException if a file failed to transform
+     */
+    protected List<PropertiesEntity> transformFiles(
+            List<File> javaFiles,
+            ThreadLocal<JavaParser> javaParsers,
+            PropertyNameIndex propertyNameIndex,
+            ScriptDetector scriptDetector,
+            FileFingerprintCache fileFingerprintCache
+    ) throws IOException, MojoExecutionException {
+        List<PropertiesEntity> propertiesEntityList = new ArrayList<>();
+        registerCachedFiles(javaFiles, propertyNameIndex, fileFingerprintCache);
+        int threadCount = threads < 1 ? Runtime.getRuntime().availableProcessors() : threads;
+        if (threadCount > 1 && dedupScope != DedupScope.FILE && keyStrategy == KeyStrategy.INDEX) {
+            if (getLog().isWarnEnabled()) {
+                getLog().warn("dedupScope " + dedupScope + " needs a stable file order, transform java files sequentially.");
+            }
+            threadCount = 1;
+        }
+        if (threadCount == 1 || javaFiles.size() <= 1) {
+            for (File f : javaFiles) {
+                propertiesEntityList.addAll(transformFile(f, javaParsers, propertyNameIndex, scriptDetector, fileFingerprintCache, null));
+            }
+            return propertiesEntityList;
+        }
+        Map<File, PendingWrite> pendingWrites = keyStrategy == KeyStrategy.HASH ? new ConcurrentHashMap<>() : null;
+        ExecutorService executorService = new ForkJoinPool(threadCount);
+        try {
+            List<Future<List<PropertiesEntity>>> futures = new ArrayList<>(javaFiles.size());
+            for (File f : javaFiles) {
+                futures.add(executorService.submit(() -> transformFile(f, javaParsers, propertyNameIndex, scriptDetector, fileFingerprintCache, pendingWrites)));
+            }
+            // merge in source file order, so the bundle is the same as a sequential run.
+            for (Future<List<PropertiesEntity>> future : futures) {
+                propertiesEntityList.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while transforming java files", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new MojoExecutionException("Failed to transform java files: " + cause.getMessage(), cause);
+        } finally {
+            executorService.shutdownNow();
+        }
+        if (pendingWrites == null) {
+            return propertiesEntityList;
+        }
+        if (propertyNameIndex.isHashCollided()) {
+            if (getLog().isInfoEnabled()) {
+                getLog().info("Property names collided on different threads, transform java files again sequentially.");
+            }
+            // nothing is written yet, so every file is still as it was, and only this pass is counted
+            propertyNameIndex.reset();
+            transformMetrics.resetFileCounts();
+            if (fileFingerprintCache != null) {
+                fileFingerprintCache.reset();
+            }
+            propertiesEntityList.clear();
+            for (File f : javaFiles) {
+                propertiesEntityList.addAll(transformFile(f, javaParsers, propertyNameIndex, scriptDetector, fileFingerprintCache, null));
+            }
+            return propertiesEntityList;
+        }
+        for (File f : javaFiles) {
+            PendingWrite pendingWrite = pendingWrites.get(f);
+            if (pendingWrite != null) {
+                pendingWrite.write();
+            }
+        }
+        return propertiesEntityList;
+    }
+
+    /**
+     * Register the entries of the java files which will be reused from the cache, when other files may share them.
+     *
+     * @param javaFiles            java files
+     * @param propertyNameIndex    property name index shared by all files
+     * @param fileFingerprintCache fingerprint cache, or null if cache is disabled
+     */
+    private void registerCachedFiles(
+            List<File> javaFiles,
+            PropertyNameIndex propertyNameIndex,
+            FileFingerprintCache fileFingerprintCache
+    ) {
+        if (fileFingerprintCache == null || dedupScope == DedupScope.FILE) {
+            return;
+        }
+        for (File f : javaFiles) {
+            FileFingerprint previousFingerprint = fileFingerprintCache.getPrevious(f.getAbsolutePath());
+            if (previousFingerprint != null
+                    && previousFingerprint.getSize() == f.length()
+                    && previousFingerprint.getLastModified() == f.lastModified()) {
+                propertyNameIndex.registerCached(previousFingerprint.getPackageName(), previousFingerprint.getPropertiesEntities());
+            }
+        }
+    }
+
+    /**
+     * Write the entries file, the module bundle and the accessor class, files whose content did not change are left untouched.
+     *
+     * @param propertiesEntityList entries of the bundle
+     * @throws IOException if any
+     */
+    protected void writeOutputs(List<PropertiesEntity> propertiesEntityList) throws IOException {
+        long start = System.nanoTime();
+        try {
+            writeOutputFiles(propertiesEntityList);
+        } finally {
+            transformMetrics.addPhaseNanos(TransformPhase.BUNDLE, System.nanoTime() - start);
+        }
+    }
+
+    private void writeOutputFiles(List<PropertiesEntity> propertiesEntityList) throws IOException {
+        if (!propertiesEntityList.isEmpty()) {
+            // the aggregate goal merges modules into one unsharded bundle, so every property name goes in once
+            Map<String, PropertiesEntity> entries = new LinkedHashMap<>();
+            Map<String, List<PropertiesEntity>> bundles = new LinkedHashMap<>();
+            for (PropertiesEntity propertiesEntity : propertiesEntityList) {
+                entries.putIfAbsent(propertiesEntity.getPropertyName(), propertiesEntity);
+                bundles.computeIfAbsent(
+                        propertiesEntity.getBundleName() == null ? "" : propertiesEntity.getBundleName(),
+                        k -> new ArrayList<>()
+                ).add(propertiesEntity);
+            }
+            writeEntriesFile(new ArrayList<>(entries.values()), propertyBundleName);
+            if (writeModuleBundle) {
+                for (Map.Entry<String, List<PropertiesEntity>> bundle : bundles.entrySet()) {
+                    writeBundle(
+                            bundle.getValue(),
+                            new File(project.getBasedir(), "src/main/resources"),
+                            bundle.getKey().isEmpty() ? propertyBundleName : getResourcePath(bundle.getKey()),
+                            bundleFormat
                     );
-                    propertiesEntityList.addAll(i18nTransformerContext.getChinesePropertiesEntities());
-                    handledFileContent = compilationUnit.toString();
                 }
-                if (handledFileContent != null && !i18nTransformerContext.getChinesePropertiesEntities().isEmpty()) {
-                    try (
-                            OutputStream outputStream = new FileOutputStream(f);
-                            BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(outputStream)
-                    ) {
-                        bufferedOutputStream.write(
-                                handledFileContent.getBytes(Charset.forName(encoding))
-                        );
+            }
+        }
+        if (generateAccessor) {
+            writeAccessor(propertiesEntityList);
+        }
+    }
+
+    /**
+     * Put the entries of this run after the existing entries of the bundle, see {@link MergedBundle}.
+     *
+     * @param existingPropertiesEntityList entries already in the bundle
+     * @param propertiesEntityList         entries generated by this run, in source file order
+     * @param javaFiles                    java files, searched for property names if <code>removeOrphans</code> is on
+     * @return entries of the bundle to write
+     * @throws IOException if any
+     */
+    protected List<PropertiesEntity> mergeWithExisting(
+            List<PropertiesEntity> existingPropertiesEntityList,
+            List<PropertiesEntity> propertiesEntityList,
+            List<File> javaFiles
+    ) throws IOException {
+        MergedBundle mergedBundle = new MergedBundle(
+                existingPropertiesEntityList,
+                propertiesEntityList,
+                removeOrphans && !existingPropertiesEntityList.isEmpty() ? collectReferencedNames(javaFiles) : null
+        );
+        if (!existingPropertiesEntityList.isEmpty() && getLog().isInfoEnabled()) {
+            getLog().info(
+                    "Merged into existing bundle " + propertyBundleName + ": kept " + mergedBundle.getKeptCount()
+                            + " entries, appended " + mergedBundle.getAppendedCount()
+                            + " entries, removed " + mergedBundle.getOrphanCount() + " orphan entries."
+            );
+        }
+        return mergedBundle.getPropertiesEntities();
+    }
+
+    /**
+     * Collect every run of java identifier characters and dots in the java files, and every dot separated part of them.
+     *
+     * @param javaFiles java files
+     * @return names appearing in the java files
+     * @throws IOException if any
+     */
+    private Set<String> collectReferencedNames(List<File> javaFiles) throws IOException {
+        Set<String> referencedNames = new HashSet<>();
+        for (File javaFile : javaFiles) {
+            // property names are only in the transformed copies then
+            File transformedFile = writeGeneratedSources ? getGeneratedSourceFile(javaFile) : javaFile;
+            if (!transformedFile.isFile()) {
+                continue;
+            }
+            String content = new String(Files.readAllBytes(transformedFile.toPath()), getCharset());
+            int start = -1;
+            for (int i = 0; i <= content.length(); i++) {
+                char c = i < content.length() ? content.charAt(i) : ' ';
+                if (c == '.' || Character.isJavaIdentifierPart(c)) {
+                    if (start < 0) {
+                        start = i;
                     }
+                    continue;
+                }
+                if (start >= 0) {
+                    String name = content.substring(start, i);
+                    referencedNames.add(name);
+                    for (String part : StringUtils.split(name, ".")) {
+                        referencedNames.add(part);
+                    }
+                    start = -1;
                 }
             }
-            if (!propertiesEntityList.isEmpty()) {
-                StringBuilder stringBuilder = new StringBuilder();
-                for (PropertiesEntity propertiesEntity : propertiesEntityList) {
-                    stringBuilder.append(propertiesEntity.getPropertyName());
-                    stringBuilder.append("=");
-                    stringBuilder.append(propertiesEntity.getChineseValue());
-                    stringBuilder.append('\n');
+        }
+        return referencedNames;
+    }
+
+    /**
+     * Transform a single java file, and write it back if any literal got replaced.
+     * <p/>
+     * Every call uses the parser of its thread and its own {@link I18nTransformerContext}, so it is safe to call it from several threads.
+     * If the file did not change since the last run, it is not parsed, and the cached properties entities are returned.
+     *
+     * @param f                    java file
+     * @param javaParsers          parser of every thread
+     * @param propertyNameIndex    property name index shared by all files
+     * @param scriptDetector       scripts to transform string literals for
+     * @param fileFingerprintCache fingerprint cache, or null if cache is disabled
+     * @param pendingWrites        where to put the writing of this file instead of writing it, or null to write it at once
+     * @return properties entities generated from this file
+     * @throws IOException if any
+     */
+    private List<PropertiesEntity> transformFile(
+            File f,
+            ThreadLocal<JavaParser> javaParsers,
+            PropertyNameIndex propertyNameIndex,
+            ScriptDetector scriptDetector,
+            FileFingerprintCache fileFingerprintCache,
+            Map<File, PendingWrite> pendingWrites
+    ) throws IOException {
+        long start = System.nanoTime();
+        String path = f.getAbsolutePath();
+        FileFingerprint previousFingerprint = fileFingerprintCache == null
+                ? null
+                : fileFingerprintCache.getPrevious(path);
+        if (previousFingerprint != null && writeGeneratedSources && !getGeneratedSourceFile(f).isFile()) {
+            // the output is gone, so the file has to be transformed again
+            previousFingerprint = null;
+        }
+        if (previousFingerprint != null
+                && previousFingerprint.getSize() == f.length()
+                && previousFingerprint.getLastModified() == f.lastModified()) {
+            fileFingerprintCache.reuse(previousFingerprint);
+            transformMetrics.countReusedFile();
+            transformMetrics.addPhaseNanos(TransformPhase.READ, System.nanoTime() - start);
+            return previousFingerprint.getPropertiesEntities();
+        }
+
+        byte[] fileContent = Files.readAllBytes(f.toPath());
+        long bytesRead = fileContent.length;
+        transformMetrics.countBytesRead(bytesRead);
+        String contentHash = fileFingerprintCache == null ? null : FileFingerprintCache.hash(fileContent);
+        long readEnd = System.nanoTime();
+        transformMetrics.addPhaseNanos(TransformPhase.READ, readEnd - start);
+        if (previousFingerprint != null && previousFingerprint.getContentHash().equals(contentHash)) {
+            transformMetrics.countReusedFile();
+            fileFingerprintCache.reuse(
+                    new FileFingerprint(
+                            path,
+                            fileContent.length,
+                            f.lastModified(),
+                            contentHash,
+                            previousFingerprint.getPropertiesEntities(),
+                            previousFingerprint.getPackageName()
+                    )
+            );
+            return previousFingerprint.getPropertiesEntities();
+        }
+
+        boolean mayContainMatch = PreScanUtil.mayContainMatch(fileContent, getCharset(), scriptDetector);
+        long preScanEnd = System.nanoTime();
+        transformMetrics.addPhaseNanos(TransformPhase.PRE_SCAN, preScanEnd - readEnd);
+        if (!mayContainMatch) {
+            transformMetrics.countPreScanSkippedFile();
+            linkJavaFile(f);
+            if (fileFingerprintCache != null) {
+                fileFingerprintCache.put(
+                        new FileFingerprint(
+                                path,
+                                fileContent.length,
+                                f.lastModified(),
+                                contentHash,
+                                Collections.emptyList()
+                        )
+                );
+            }
+            return Collections.emptyList();
+        }
+
+        I18nTransformerContext i18nTransformerContext = new I18nTransformerContext(
+                getEffectiveTemplate(),
+                propertyBundleName,
+                f.getPath(),
+                path,
+                0,
+                new ArrayList<>()
+        );
+        i18nTransformerContext.setPropertyNameIndex(propertyNameIndex);
+        i18nTransformerContext.setConcatenationMode(concatenationMode);
+        i18nTransformerContext.setConstantMode(constantMode);
+        i18nTransformerContext.setBundleSharding(bundleSharding);
+        i18nTransformerContext.setFormatTemplate(getEffectiveFormatTemplate());
+        i18nTransformerContext.setScriptDetector(scriptDetector);
+        i18nTransformerContext.setWarningConsumer(
+                message -> {
+                    transformMetrics.countWarning();
+                    getLog().warn(message);
+                }
+        );
+        String source = rewriteMode == RewriteMode.SPLICE ? new String(fileContent, getCharset()) : null;
+        CompilationUnit compilationUnit = null;
+        long parseEnd;
+        if (source != null && lexerFastPath && FastPathUtil.transform(source, i18nTransformerContext)) {
+            // lexing and replacing happen in one go, it all counts as parsing
+            transformMetrics.countFastPathFile();
+            parseEnd = System.nanoTime();
+            transformMetrics.addPhaseNanos(TransformPhase.PARSE, parseEnd - preScanEnd);
+        } else {
+            transformMetrics.countParsedFile();
+            try (InputStream inputStream = new ByteArrayInputStream(fileContent)) {
+                ParseResult<CompilationUnit> parseResult = javaParsers.get().parse(inputStream, getCharset());
+                if (!parseResult.isSuccessful() || parseResult.getResult().isEmpty()) {
+                    throw new ParseProblemException(parseResult.getProblems());
                 }
-                org.apache.commons.io.FileUtils.write(
-                        new File(
-                                project.getBasedir(),
-                                "src/main/resources/" + propertyBundleName + ".properties"
-                        ),
-                        stringBuilder.toString(),
-                        StandardCharsets.UTF_8
+                compilationUnit = parseResult.getResult().get();
+                parseEnd = System.nanoTime();
+                transformMetrics.addPhaseNanos(TransformPhase.PARSE, parseEnd - preScanEnd);
+                dfs(
+                        compilationUnit,
+                        i18nTransformerContext
                 );
-                org.apache.commons.io.FileUtils.write(
-                        new File(
-                                project.getBasedir(),
-                                "src/main/resources/" + propertyBundleName + "_zh_CN.properties"
-                        ),
-                        stringBuilder.toString(),
-                        StandardCharsets.UTF_8
+            }
+        }
+        long traverseEnd = System.nanoTime();
+        transformMetrics.addPhaseNanos(TransformPhase.TRAVERSE, traverseEnd - parseEnd);
+        transformMetrics.addLiteralCounts(i18nTransformerContext.getLiteralCounts());
+        byte[] handledFileBytes = null;
+        if (!i18nTransformerContext.getTextReplacements().isEmpty() || i18nTransformerContext.isStructurallyModified()) {
+            String handledFileContent;
+            if (rewriteMode == RewriteMode.SPLICE && !i18nTransformerContext.isStructurallyModified()) {
+                handledFileContent = SpliceUtil.apply(
+                        source,
+                        i18nTransformerContext.getTextReplacements()
                 );
+            } else {
+                handledFileContent = compilationUnit.toString();
             }
-        } catch (IOException e) {
-            throw new MojoExecutionException("IOException: " + e.getMessage(), e);
+            handledFileBytes = handledFileContent.getBytes(getCharset());
+            transformMetrics.addPhaseNanos(TransformPhase.PRINT, System.nanoTime() - traverseEnd);
+        }
+        int literalCount = 0;
+        for (int count : i18nTransformerContext.getLiteralCounts().values()) {
+            literalCount += count;
         }
+        PendingWrite pendingWrite = writeTransformedFile(
+                f,
+                fileContent,
+                contentHash,
+                handledFileBytes,
+                i18nTransformerContext,
+                fileFingerprintCache
+        );
+        if (pendingWrites != null) {
+            pendingWrites.put(f, pendingWrite);
+        } else {
+            pendingWrite.write();
+        }
+        transformMetrics.addFileTiming(new FileTiming(f.getPath(), System.nanoTime() - start, bytesRead, literalCount));
+        return i18nTransformerContext.getChinesePropertiesEntities();
     }
 
-    // ----------------------------------------------------------------------
-    // protected methods
-    // ----------------------------------------------------------------------
+    /**
+     * @param f                      java file
+     * @param fileContent            content of the java file
+     * @param contentHash            hash of the content, or null if cache is disabled
+     * @param handledFileBytes       transformed content, or null if nothing got replaced
+     * @param i18nTransformerContext context the java file was transformed with
+     * @param fileFingerprintCache   fingerprint cache, or null if cache is disabled
+     * @return writing the transformed java file, or linking it if nothing got replaced, and recording its fingerprint
+     */
+    private PendingWrite writeTransformedFile(
+            File f,
+            byte[] fileContent,
+            String contentHash,
+            byte[] handledFileBytes,
+            I18nTransformerContext i18nTransformerContext,
+            FileFingerprintCache fileFingerprintCache
+    ) {
+        return () -> {
+            byte[] fingerprintContent = fileContent;
+            String fingerprintHash = contentHash;
+            if (handledFileBytes != null) {
+                long writeStart = System.nanoTime();
+                writeJavaFile(f, handledFileBytes);
+                transformMetrics.countWrittenFile(handledFileBytes.length);
+                transformMetrics.addPhaseNanos(TransformPhase.WRITE, System.nanoTime() - writeStart);
+                // a java file written over gets the fingerprint of what was written, so it is not transformed again
+                if (!writeGeneratedSources) {
+                    fingerprintContent = handledFileBytes;
+                    if (fileFingerprintCache != null) {
+                        fingerprintHash = FileFingerprintCache.hash(fingerprintContent);
+                    }
+                }
+            } else {
+                linkJavaFile(f);
+            }
+            if (fileFingerprintCache != null) {
+                fileFingerprintCache.put(
+                        new FileFingerprint(
+                                f.getAbsolutePath(),
+                                fingerprintContent.length,
+                                f.lastModified(),
+                                fingerprintHash,
+                                i18nTransformerContext.getChinesePropertiesEntities(),
+                                i18nTransformerContext.getPackageName()
+                        )
+                );
+            }
+        };
+    }
 
-    protected final MavenProject getProject() {
-        return project;
+    /**
+     * @return the template string literals get replaced with
+     */
+    private String getEffectiveTemplate() {
+        if (!generateAccessor) {
+            return i18nTemplatePreset.getTemplate() != null ? i18nTemplatePreset.getTemplate() : i18nTemplate;
+        }
+        return accessorTemplate.replace("${accessorClassName}", accessorClassName);
     }
 
     /**
-     * @param p not null maven project.
-     * @return the artifact type.
+     * @return the template concatenations get replaced with in <code>PLACEHOLDER</code> mode
      */
-    protected String getArtifactType(MavenProject p) {
-        return p.getArtifact().getType();
+    private String getEffectiveFormatTemplate() {
+        if (!generateAccessor) {
+            return i18nTemplatePreset.getFormatTemplate() != null ? i18nTemplatePreset.getFormatTemplate() : i18nFormatTemplate;
+        }
+        return accessorFormatTemplate.replace("${accessorClassName}", accessorClassName);
     }
 
     /**
-     * @param p not null maven project.
-     * @return the list of source paths for the given project.
+     * Generate the accessor class, and add its directory as a compile source root.
+     * The file is left untouched if its content did not change.
+     *
+     * @param propertiesEntityList properties entities, in table order
+     * @throws IOException if any
      */
-    protected List<String> getProjectSourceRoots(MavenProject p) {
-        return (p.getCompileSourceRoots() == null
-                ? Collections.<String>emptyList()
-                : new LinkedList<>(p.getCompileSourceRoots()));
+    private void writeAccessor(List<PropertiesEntity> propertiesEntityList) throws IOException {
+        String accessorSource = AccessorGeneratorUtil.generate(
+                accessorClassName,
+                propertyBundleName,
+                accessorLocale,
+                propertiesEntityList
+        );
+        File accessorFile = new File(
+                accessorOutputDirectory,
+                accessorClassName.replace('.', File.separatorChar) + ".java"
+        );
+        if (!accessorFile.isFile()
+                || !accessorSource.equals(org.apache.commons.io.FileUtils.readFileToString(accessorFile, StandardCharsets.UTF_8))) {
+            org.apache.commons.io.FileUtils.write(
+                    accessorFile,
+                    accessorSource,
+                    StandardCharsets.UTF_8
+            );
+        }
+        project.addCompileSourceRoot(accessorOutputDirectory.getPath());
     }
 
     /**
-     * @param p not null
-     * @return the compile classpath elements
-     * @throws DependencyResolutionRequiredException if any
+     * Cached properties entities are only valid for the configuration they were produced with.
+     *
+     * @param scriptDetector scripts to transform string literals for
+     * @return signature of every parameter which affects the properties entities produced from a java file
      */
-    protected List<String> getCompileClasspathElements(MavenProject p) throws DependencyResolutionRequiredException {
-        return (p.getCompileClasspathElements() == null
-                ? Collections.<String>emptyList()
-                : new LinkedList<>(p.getCompileClasspathElements()));
+    protected String getCacheConfigurationSignature(ScriptDetector scriptDetector) {
+        return String.join(
+                "\n",
+                javaVersion,
+                propertyBundleName,
+                getEffectiveTemplate(),
+                concatenationMode.name(),
+                constantMode.name(),
+                bundleSharding.name(),
+                getEffectiveFormatTemplate(),
+                encoding,
+                dedupScope.name(),
+                keyStrategy.name(),
+                rewriteMode.name(),
+                String.valueOf(attributeComments),
+                String.valueOf(mergeExistingBundle && writeModuleBundle),
+                String.valueOf(writeGeneratedSources),
+                scriptDetector.getSignature()
+        );
     }
 
     // ----------------------------------------------------------------------
     // private methods
     // ----------------------------------------------------------------------
 
-
     /**
      * @return the source dir as File for the given project
      */
@@ -0,0 +1,268 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.xenoamess.i18n.transformer.mojos;
+
+import com.github.javaparser.JavaParser;
+import com.xenoamess.i18n.transformer.caches.FileFingerprintCache;
+import com.xenoamess.i18n.transformer.contexts.PropertyNameIndex;
+import com.xenoamess.i18n.transformer.detectors.ScriptDetector;
+import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.codehaus.plexus.util.SelectorUtils;
+import org.codehaus.plexus.util.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Transform all java files once, then keep watching the source roots,
+ * and transform java files again as soon as they change, until the build is stopped.
+ * <p/>
+ * The parsers, the property name index and the properties entities of every file are kept in memory between changes,
+ * so an edit only costs parsing the touched files, and the bundle is only appended to.
+ * It takes the same parameters as the <code>transform</code> goal, the fingerprint cache is always used.
+ */
+@Mojo(name = "watch", requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = true)
+public class I18nWatchMojo extends I18nTransformMojo {
+
+    /**
+     * Milliseconds to wait for further changes after a change, before transforming the changed java files together.
+     */
+    @Parameter(property = "watchDebounceMillis", defaultValue = "200")
+    private long watchDebounceMillis;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if ("pom".equalsIgnoreCase(project.getPackaging())) {
+            getLog().warn("This project has 'pom' packaging, no Java sources is available.");
+            return;
+        }
+        validateParameters();
+        prepareGeneratedSources();
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            List<Path> sourceRoots = new ArrayList<>();
+            for (String sourceRoot : getProjectSourceRoots(project)) {
+                Path path = new File(sourceRoot).toPath().toAbsolutePath().normalize();
+                if (Files.isDirectory(path)) {
+                    sourceRoots.add(path);
+                    // registered before the first run, so changes made during it are not missed
+                    registerAll(watchService, path);
+                }
+            }
+
+            ScriptDetector scriptDetector = createScriptDetector();
+            ThreadLocal<JavaParser> javaParsers = createTransformParsers();
+            FileFingerprintCache fileFingerprintCache = loadFileFingerprintCache(scriptDetector);
+            List<PropertiesEntity> existingPropertiesEntityList = readExistingBundle();
+            PropertyNameIndex propertyNameIndex = createPropertyNameIndex();
+            propertyNameIndex.registerExisting(existingPropertiesEntityList);
+
+            List<File> javaFiles = collectJavaFiles();
+            Map<String, PropertiesEntity> bundle = new LinkedHashMap<>();
+            for (PropertiesEntity propertiesEntity : mergeWithExisting(
+                    existingPropertiesEntityList,
+                    transformFiles(javaFiles, javaParsers, propertyNameIndex, scriptDetector, fileFingerprintCache),
+                    javaFiles
+            )) {
+                bundle.put(getBundleEntryKey(propertiesEntity), propertiesEntity);
+            }
+            // later runs must not give these property names to other values
+            propertyNameIndex.registerExisting(new ArrayList<>(bundle.values()));
+            fileFingerprintCache.save();
+            writeOutputs(new ArrayList<>(bundle.values()));
+            writeTransformReport(javaFiles.size(), bundle.size());
+            if (getLog().isInfoEnabled()) {
+                getLog().info("Transformed " + javaFiles.size() + " java files, watching " + sourceRoots.size() + " source roots for changes.");
+            }
+
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Path> changedPaths = takeChanges(watchService, sourceRoots);
+                long startTime = System.nanoTime();
+                List<File> changedJavaFiles = new ArrayList<>();
+                for (Path changedPath : changedPaths) {
+                    if (Files.isRegularFile(changedPath) && isIncluded(sourceRoots, changedPath)) {
+                        changedJavaFiles.add(changedPath.toFile());
+                    }
+                }
+                if (changedJavaFiles.isEmpty()) {
+                    continue;
+                }
+                // our own writes come back as changes too, their fingerprints match and they are not parsed again
+                fileFingerprintCache = fileFingerprintCache.next();
+                List<PropertiesEntity> addedPropertiesEntities = new ArrayList<>();
+                for (PropertiesEntity propertiesEntity : transformFiles(
+                        changedJavaFiles,
+                        javaParsers,
+                        propertyNameIndex,
+                        scriptDetector,
+                        fileFingerprintCache
+                )) {
+                    if (bundle.putIfAbsent(getBundleEntryKey(propertiesEntity), propertiesEntity) == null) {
+                        addedPropertiesEntities.add(propertiesEntity);
+                    }
+                }
+                if (!addedPropertiesEntities.isEmpty()) {
+                    propertyNameIndex.registerExisting(addedPropertiesEntities);
+                    writeOutputs(new ArrayList<>(bundle.values()));
+                }
+                if (getLog().isInfoEnabled() && fileFingerprintCache.getReusedCount() < changedJavaFiles.size()) {
+                    getLog().info(
+                            "Transformed " + changedJavaFiles.size() + " changed java files in "
+                                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms, added "
+                                    + addedPropertiesEntities.size() + " properties."
+                    );
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new MojoExecutionException("IOException: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Wait for a change, then collect changes until none came for <code>watchDebounceMillis</code>.
+     *
+     * @return changed paths, in the order they changed
+     */
+    private Set<Path> takeChanges(
+            WatchService watchService,
+            List<Path> sourceRoots
+    ) throws InterruptedException, IOException {
+        Set<Path> changedPaths = new LinkedHashSet<>();
+        WatchKey watchKey = watchService.take();
+        while (watchKey != null) {
+            Path directory = (Path) watchKey.watchable();
+            for (WatchEvent<?> watchEvent : watchKey.pollEvents()) {
+                if (watchEvent.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // events got lost, every file may have changed
+                    for (Path sourceRoot : sourceRoots) {
+                        addFiles(changedPaths, sourceRoot);
+                    }
+                    continue;
+                }
+                Path path = directory.resolve((Path) watchEvent.context());
+                if (watchEvent.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                    registerAll(watchService, path);
+                    // files created before the directory got registered
+                    addFiles(changedPaths, path);
+                } else {
+                    changedPaths.add(path);
+                }
+            }
+            watchKey.reset();
+            watchKey = watchService.poll(watchDebounceMillis, TimeUnit.MILLISECONDS);
+        }
+        return changedPaths;
+    }
+
+    private static void registerAll(
+            WatchService watchService,
+            Path root
+    ) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                dir.register(
+                        watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE
+                );
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void addFiles(
+            Set<Path> paths,
+            Path root
+    ) throws IOException {
+        try (Stream<Path> stream = Files.walk(root)) {
+            stream.filter(Files::isRegularFile).forEach(paths::add);
+        }
+    }
+
+    /**
+     * Whether path is a java file under a source root, matching <code>includes</code> and not <code>excludes</code>.
+     */
+    private boolean isIncluded(
+            List<Path> sourceRoots,
+            Path path
+    ) {
+        if (!path.getFileName().toString().toLowerCase(Locale.ENGLISH).endsWith(".java")) {
+            return false;
+        }
+        for (Path sourceRoot : sourceRoots) {
+            if (!path.startsWith(sourceRoot)) {
+                continue;
+            }
+            String relativePath = sourceRoot.relativize(path).toString();
+            return (StringUtils.isEmpty(includes) || matchesAny(includes, relativePath))
+                    && !matchesAny(excludes, relativePath);
+        }
+        return false;
+    }
+
+    private static boolean matchesAny(
+            String patterns,
+            String relativePath
+    ) {
+        if (StringUtils.isEmpty(patterns)) {
+            return false;
+        }
+        for (String pattern : StringUtils.split(patterns, ",")) {
+            pattern = pattern.trim().replace('/', File.separatorChar).replace('\\', File.separatorChar);
+            if (pattern.endsWith(File.separator)) {
+                pattern += "**";
+            }
+            if (SelectorUtils.matchPath(pattern, relativePath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.xenoamess.i18n.transformer.runtime;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+/**
+ * {@link ResourceBundle.Control} which loads binary bundles before falling back to the default formats.
+ */
+public class BinaryBundleControl extends ResourceBundle.Control {
+
+    public static final String FORMAT_BINARY = "xi18nt.binary";
+
+    public static final String FILE_EXTENSION = "xi18nb";
+
+    public static final BinaryBundleControl INSTANCE = new BinaryBundleControl();
+
+    private static final List<String> FORMATS;
+
+    static {
+        List<String> formats = new ArrayList<>();
+        formats.add(FORMAT_BINARY);
+        formats.addAll(ResourceBundle.Control.FORMAT_DEFAULT);
+        FORMATS = Collections.unmodifiableList(formats);
+    }
+
+    protected BinaryBundleControl() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getFormats(String baseName) {
+        if (baseName == null) {
+            throw new NullPointerException();
+        }
+        return FORMATS;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResourceBundle newBundle(
+            String baseName,
+            Locale locale,
+            String format,
+            ClassLoader loader,
+            boolean reload
+    ) throws IllegalAccessException, InstantiationException, IOException {
+        if (!FORMAT_BINARY.equals(format)) {
+            return super.newBundle(baseName, locale, format, loader, reload);
+        }
+        String resourceName = toResourceName(toBundleName(baseName, locale), FILE_EXTENSION);
+        URL url = loader.getResource(resourceName);
+        if (url == null) {
+            return null;
+        }
+        return BinaryResourceBundle.load(url);
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.xenoamess.i18n.transformer.runtime;
+
+import java.util.ResourceBundle;
+import java.util.spi.ResourceBundleControlProvider;
+
+/**
+ * Lets plain <code>ResourceBundle.getBundle(baseName, locale)</code> calls load binary bundles.
+ * <p/>
+ * The control is returned for every base name, as whether a binary bundle exists depends on the class loader
+ * <code>getBundle</code> is called with, which is not known here. {@link BinaryBundleControl} looks for a binary bundle
+ * through that class loader first and falls back to the default formats, so bundles without a binary file
+ * load the same as without this provider.
+ * <p/>
+ * Registered in <code>META-INF/services</code>, the JDK only uses it for code in unnamed modules.
+ */
+public class BinaryBundleControlProvider implements ResourceBundleControlProvider {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResourceBundle.Control getControl(String baseName) {
+        return BinaryBundleControl.INSTANCE;
+    }
+
+}
@@ -0,0 +1,223 @@
+package com.xenoamess.i18n.transformer.runtime;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+import java.util.ResourceBundle;
+
+/**
+ * {@link ResourceBundle} backed by a binary bundle written by the transform goal.
+ * <p/>
+ * The binary bundle holds a minimal perfect hash over its keys and all keys and values in one UTF-8 blob,
+ * so looking up a key costs two hash computations and one key comparison, with no parsing at load time.
+ * Keys and values are decoded on first use only.
+ * <p/>
+ * Layout, all ints big endian:
+ * <pre>
+ * int magic, int version, int entryCount, int bucketCount,
+ * int[bucketCount] seeds, negative seeds being -(slot + 1) of a single key bucket,
+ * entryCount * (int keyOffset, int keyLength, int valueOffset, int valueLength),
+ * int blobLength, byte[blobLength] blob
+ * </pre>
+ * This class only depends on the JDK, so it can be used at runtime without the plugin's dependencies.
+ */
+public class BinaryResourceBundle extends ResourceBundle {
+
+    public static final int MAGIC = 0x58493138;
+
+    public static final int VERSION = 1;
+
+    private final ByteBuffer byteBuffer;
+
+    private final int entryCount;
+
+    private final int bucketCount;
+
+    private final int seedsOffset;
+
+    private final int entriesOffset;
+
+    private final int blobOffset;
+
+    private final String[] keys;
+
+    private final String[] values;
+
+    public BinaryResourceBundle(ByteBuffer byteBuffer) throws IOException {
+        this.byteBuffer = byteBuffer;
+        if (byteBuffer.getInt(0) != MAGIC || byteBuffer.getInt(4) != VERSION) {
+            throw new IOException("Not a binary bundle of version " + VERSION);
+        }
+        this.entryCount = byteBuffer.getInt(8);
+        this.bucketCount = byteBuffer.getInt(12);
+        this.seedsOffset = 16;
+        this.entriesOffset = seedsOffset + bucketCount * 4;
+        this.blobOffset = entriesOffset + entryCount * 16 + 4;
+        this.keys = new String[entryCount];
+        this.values = new String[entryCount];
+    }
+
+    /**
+     * Load a binary bundle, memory mapping it if it is a plain file.
+     *
+     * @param url url of the binary bundle
+     * @return the bundle
+     * @throws IOException if any
+     */
+    public static BinaryResourceBundle load(URL url) throws IOException {
+        if ("file".equals(url.getProtocol())) {
+            Path path;
+            try {
+                path = Paths.get(url.toURI());
+            } catch (URISyntaxException e) {
+                throw new IOException("Invalid url : " + url, e);
+            }
+            try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                return new BinaryResourceBundle(fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size()));
+            }
+        }
+        try (InputStream inputStream = url.openStream()) {
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                byteArrayOutputStream.write(buffer, 0, read);
+            }
+            return new BinaryResourceBundle(ByteBuffer.wrap(byteArrayOutputStream.toByteArray()));
+        }
+    }
+
+    /**
+     * Seeded hash over the chars of a string, shared by the bundle writer and reader.
+     *
+     * @param string string
+     * @param seed   seed
+     * @return hash, never negative
+     */
+    public static int hash(String string, int seed) {
+        int h = seed ^ 0x9747b28c;
+        int length = string.length();
+        int i = 0;
+        for (; i + 1 < length; i += 2) {
+            h = mixH(h, mixK(string.charAt(i) | (string.charAt(i + 1) << 16)));
+        }
+        if (i < length) {
+            h ^= mixK(string.charAt(i));
+        }
+        h ^= length;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h & 0x7FFFFFFF;
+    }
+
+    private static int mixK(int k) {
+        k *= 0xcc9e2d51;
+        k = Integer.rotateLeft(k, 15);
+        k *= 0x1b873593;
+        return k;
+    }
+
+    private static int mixH(int h, int k) {
+        h ^= k;
+        h = Integer.rotateLeft(h, 13);
+        return h * 5 + 0xe6546b64;
+    }
+
+    /**
+     * @param key key
+     * @return slot of key, or -1 if key is not in this bundle
+     */
+    private int slotOf(String key) {
+        if (entryCount == 0) {
+            return -1;
+        }
+        int seed = byteBuffer.getInt(seedsOffset + (hash(key, 0) % bucketCount) * 4);
+        // buckets with a single key store their slot directly, as a negative seed
+        int slot = seed < 0 ? -seed - 1 : hash(key, seed) % entryCount;
+        return key.equals(keyAt(slot)) ? slot : -1;
+    }
+
+    private String keyAt(int slot) {
+        String key = keys[slot];
+        if (key == null) {
+            int entryOffset = entriesOffset + slot * 16;
+            key = decode(byteBuffer.getInt(entryOffset), byteBuffer.getInt(entryOffset + 4));
+            keys[slot] = key;
+        }
+        return key;
+    }
+
+    private String valueAt(int slot) {
+        String value = values[slot];
+        if (value == null) {
+            int entryOffset = entriesOffset + slot * 16;
+            value = decode(byteBuffer.getInt(entryOffset + 8), byteBuffer.getInt(entryOffset + 12));
+            values[slot] = value;
+        }
+        return value;
+    }
+
+    private String decode(int offset, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer duplicate = byteBuffer.duplicate();
+        duplicate.position(blobOffset + offset);
+        duplicate.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object handleGetObject(String key) {
+        if (key == null) {
+            throw new NullPointerException();
+        }
+        int slot = slotOf(key);
+        return slot < 0 ? null : valueAt(slot);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Enumeration<String> getKeys() {
+        Enumeration<String> parentKeys = parent == null ? Collections.emptyEnumeration() : parent.getKeys();
+        return new Enumeration<String>() {
+
+            private int slot = 0;
+
+            @Override
+            public boolean hasMoreElements() {
+                return slot < entryCount || parentKeys.hasMoreElements();
+            }
+
+            @Override
+            public String nextElement() {
+                if (slot < entryCount) {
+                    return keyAt(slot++);
+                }
+                if (parentKeys.hasMoreElements()) {
+                    return parentKeys.nextElement();
+                }
+                throw new NoSuchElementException();
+            }
+
+        };
+    }
+
+}
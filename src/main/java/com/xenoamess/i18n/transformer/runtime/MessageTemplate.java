@@ -0,0 +1,270 @@
+package com.xenoamess.i18n.transformer.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Pre-parsed message pattern with <code>{n}</code> placeholders, using the quoting rules of {@link java.text.MessageFormat}.
+ * <p/>
+ * Only plain argument indexes are supported, no format types or styles.
+ * Arguments are formatted by {@link String#valueOf(Object)}, the same as the string concatenation the pattern replaces,
+ * so numbers are not grouped or localized.
+ * Instances are immutable and safe to share between threads.
+ */
+public final class MessageTemplate {
+
+    /**
+     * Parsed templates by bundle, locale and key, so there is one per message however often its pattern changes.
+     */
+    private static final ConcurrentMap<CacheKey, MessageTemplate> CACHE = new ConcurrentHashMap<>();
+
+    private final String pattern;
+
+    /**
+     * Literal text before every argument, and after the last one.
+     */
+    private final String[] texts;
+
+    private final int[] argumentIndexes;
+
+    private final int textLength;
+
+    private MessageTemplate(
+            String pattern,
+            String[] texts,
+            int[] argumentIndexes
+    ) {
+        this.pattern = pattern;
+        this.texts = texts;
+        this.argumentIndexes = argumentIndexes;
+        int length = 0;
+        for (String text : texts) {
+            length += text.length();
+        }
+        this.textLength = length;
+    }
+
+    /**
+     * Format the message of key in resourceBundle, parsing it only the first time it is seen.
+     *
+     * @param resourceBundle bundle
+     * @param key            key of the message pattern
+     * @param arguments      arguments of the placeholders
+     * @return formatted message
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public static String format(
+            ResourceBundle resourceBundle,
+            String key,
+            Object... arguments
+    ) {
+        return format(resourceBundle.getBaseBundleName(), resourceBundle.getLocale(), key, resourceBundle.getString(key), arguments);
+    }
+
+    /**
+     * Format the message of key in a bundle, parsing it only the first time it is seen.
+     * <p/>
+     * One template is cached per bundle, locale and key. It is parsed again and replaced
+     * when the message changed since, i.e. after a {@link ReloadableBundle} reloaded it.
+     *
+     * @param bundleName bundle base name
+     * @param locale     locale of the message
+     * @param key        key of the message
+     * @param pattern    message pattern of key
+     * @param arguments  arguments of the placeholders
+     * @return formatted message
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public static String format(
+            String bundleName,
+            Locale locale,
+            String key,
+            String pattern,
+            Object... arguments
+    ) {
+        CacheKey cacheKey = new CacheKey(bundleName, locale, key);
+        MessageTemplate messageTemplate = CACHE.get(cacheKey);
+        if (messageTemplate == null || !messageTemplate.pattern.equals(pattern)) {
+            messageTemplate = compile(pattern);
+            CACHE.put(cacheKey, messageTemplate);
+        }
+        return messageTemplate.format(arguments);
+    }
+
+    /**
+     * Format a pattern without caching it, prefer {@link #format(ResourceBundle, String, Object...)}.
+     *
+     * @param pattern   message pattern
+     * @param arguments arguments of the placeholders
+     * @return formatted message
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public static String format(
+            String pattern,
+            Object... arguments
+    ) {
+        return compile(pattern).format(arguments);
+    }
+
+    /**
+     * @param pattern message pattern
+     * @return parsed template
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public static MessageTemplate compile(String pattern) {
+        List<String> texts = new ArrayList<>();
+        List<Integer> argumentIndexes = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+                    text.append('\'');
+                    i += 2;
+                } else {
+                    quoted = !quoted;
+                    i++;
+                }
+            } else if (c == '{' && !quoted) {
+                int end = pattern.indexOf('}', i + 1);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unmatched braces in pattern: " + pattern);
+                }
+                texts.add(text.toString());
+                text.setLength(0);
+                argumentIndexes.add(parseArgumentIndex(pattern, i + 1, end));
+                i = end + 1;
+            } else {
+                text.append(c);
+                i++;
+            }
+        }
+        texts.add(text.toString());
+        int[] indexes = new int[argumentIndexes.size()];
+        for (int j = 0; j < indexes.length; j++) {
+            indexes[j] = argumentIndexes.get(j);
+        }
+        return new MessageTemplate(pattern, texts.toArray(new String[0]), indexes);
+    }
+
+    /**
+     * Quote text so that a pattern shows it as it is.
+     *
+     * @param text literal text
+     * @return text with quotes doubled, and braces quoted
+     */
+    public static String quote(String text) {
+        StringBuilder stringBuilder = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\'') {
+                stringBuilder.append("''");
+            } else if (c == '{' || c == '}') {
+                stringBuilder.append('\'').append(c).append('\'');
+            } else {
+                stringBuilder.append(c);
+            }
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * @return number of placeholders
+     */
+    public int getArgumentCount() {
+        return argumentIndexes.length;
+    }
+
+    /**
+     * Arguments missing from <code>arguments</code> are written as their placeholder, like {@link java.text.MessageFormat} does.
+     *
+     * @param arguments arguments of the placeholders
+     * @return formatted message
+     */
+    public String format(Object... arguments) {
+        if (argumentIndexes.length == 0) {
+            return texts[0];
+        }
+        StringBuilder stringBuilder = new StringBuilder(textLength + argumentIndexes.length * 16);
+        for (int i = 0; i < argumentIndexes.length; i++) {
+            stringBuilder.append(texts[i]);
+            int argumentIndex = argumentIndexes[i];
+            if (arguments != null && argumentIndex < arguments.length) {
+                stringBuilder.append(arguments[argumentIndex]);
+            } else {
+                stringBuilder.append('{').append(argumentIndex).append('}');
+            }
+        }
+        stringBuilder.append(texts[argumentIndexes.length]);
+        return stringBuilder.toString();
+    }
+
+    private static final class CacheKey {
+
+        private final String bundleName;
+
+        private final Locale locale;
+
+        private final String key;
+
+        private final int hashCode;
+
+        private CacheKey(
+                String bundleName,
+                Locale locale,
+                String key
+        ) {
+            this.bundleName = bundleName;
+            this.locale = locale;
+            this.key = key;
+            this.hashCode = Objects.hash(bundleName, locale, key);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey cacheKey = (CacheKey) o;
+            return key.equals(cacheKey.key)
+                    && Objects.equals(locale, cacheKey.locale)
+                    && Objects.equals(bundleName, cacheKey.bundleName);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+    }
+
+    private static int parseArgumentIndex(
+            String pattern,
+            int start,
+            int end
+    ) {
+        if (start == end || end - start > 9) {
+            throw new IllegalArgumentException("Invalid argument index in pattern: " + pattern);
+        }
+        int index = 0;
+        for (int i = start; i < end; i++) {
+            char c = pattern.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("Only plain argument indexes are supported in pattern: " + pattern);
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+
+}
@@ -0,0 +1,441 @@
+package com.xenoamess.i18n.transformer.runtime;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Messages of one bundle in one locale, which can be reloaded while the application runs.
+ * <p/>
+ * The messages are held in an immutable map behind a volatile reference.
+ * {@link #reload()} builds a new map, bypassing the cache of {@link ResourceBundle#getBundle},
+ * and swaps it in at once, so lookups never block and always see either the old or the new messages.
+ * A failed reload keeps the old messages.
+ * <p/>
+ * Bundle files are found the same way as by {@link BinaryBundleControl}, binary bundles first,
+ * and parent locales are merged in, but there is no fallback to the default locale.
+ * {@link #watch()} reloads the bundle whenever a file in a class path directory holding its files changes,
+ * once no file changed for {@link #QUIET_MILLIS} milliseconds, so a file is not read while it is being written,
+ * or after {@link #MAX_WAIT_MILLIS} milliseconds if files keep changing, i.e. logs written next to the bundle.
+ * A watched reload which fails, or loses keys of the current messages, is taken as a file caught in the middle of
+ * being written. The old messages are kept and the reload is tried again, up to {@link #MAX_RETRIES} times,
+ * after which keys are taken as removed on purpose. Writing bundle files by an atomic rename avoids the wait.
+ * Failures are logged to the {@link System.Logger} named after this class.
+ * Bundles got by {@link #get(String, Locale)} are watched from the start
+ * if the system property <code>xi18nt.reload.watch</code> is <code>true</code>.
+ * This class only depends on the JDK, so it can be used at runtime without the plugin's dependencies.
+ */
+public final class ReloadableBundle {
+
+    public static final String WATCH_PROPERTY = "xi18nt.reload.watch";
+
+    /**
+     * How long no file may change before watched bundles are reloaded.
+     */
+    public static final long QUIET_MILLIS = 200;
+
+    /**
+     * How long watched bundles wait to be reloaded at most, while files in their directories keep changing.
+     */
+    public static final long MAX_WAIT_MILLIS = 2000;
+
+    /**
+     * How many times a watched reload is tried again when it fails or loses keys, {@link #QUIET_MILLIS} apart.
+     */
+    public static final int MAX_RETRIES = 5;
+
+    private static final System.Logger LOGGER = System.getLogger(ReloadableBundle.class.getName());
+
+    private static final String[] FILE_EXTENSIONS = {BinaryBundleControl.FILE_EXTENSION, "properties"};
+
+    /**
+     * Shared bundles by base name, then by locale.
+     */
+    private static final ConcurrentMap<String, ConcurrentMap<Locale, ReloadableBundle>> BUNDLES = new ConcurrentHashMap<>();
+
+    private static final Object WATCHER_LOCK = new Object();
+
+    /**
+     * Watching bundles by watched directory, guarded by {@link #WATCHER_LOCK}.
+     */
+    private static final Map<Path, List<ReloadableBundle>> WATCHED_DIRECTORIES = new HashMap<>();
+
+    /**
+     * Guarded by {@link #WATCHER_LOCK}.
+     */
+    private static WatchService watchService;
+
+    private final String baseName;
+
+    private final Locale locale;
+
+    private final ClassLoader classLoader;
+
+    private volatile Map<String, String> messages;
+
+    private volatile boolean watched = false;
+
+    /**
+     * Load a bundle, not shared with {@link #get(String, Locale)}.
+     *
+     * @param baseName    base name of the bundle
+     * @param locale      locale
+     * @param classLoader class loader to find bundle files with
+     * @throws MissingResourceException if no bundle file is found
+     */
+    public ReloadableBundle(
+            String baseName,
+            Locale locale,
+            ClassLoader classLoader
+    ) {
+        this.baseName = baseName;
+        this.locale = locale;
+        this.classLoader = classLoader;
+        this.messages = load();
+    }
+
+    /**
+     * Get the shared bundle of a base name and locale, loading it by the class loader of this class the first time.
+     *
+     * @param baseName base name of the bundle
+     * @param locale   locale
+     * @return the bundle
+     * @throws MissingResourceException if no bundle file is found
+     */
+    public static ReloadableBundle get(
+            String baseName,
+            Locale locale
+    ) {
+        ConcurrentMap<Locale, ReloadableBundle> bundles = BUNDLES.get(baseName);
+        if (bundles == null) {
+            bundles = BUNDLES.computeIfAbsent(baseName, k -> new ConcurrentHashMap<>());
+        }
+        ReloadableBundle reloadableBundle = bundles.get(locale);
+        if (reloadableBundle == null) {
+            reloadableBundle = bundles.computeIfAbsent(locale, k -> {
+                ReloadableBundle result = new ReloadableBundle(baseName, k, ReloadableBundle.class.getClassLoader());
+                if (Boolean.getBoolean(WATCH_PROPERTY)) {
+                    result.watch();
+                }
+                return result;
+            });
+        }
+        return reloadableBundle;
+    }
+
+    /**
+     * Look a message up in the shared bundle of a base name and locale.
+     *
+     * @param baseName base name of the bundle
+     * @param locale   locale
+     * @param key      key
+     * @return message
+     * @throws MissingResourceException if no bundle file is found, or the key is not in it
+     */
+    public static String getString(
+            String baseName,
+            Locale locale,
+            String key
+    ) {
+        return get(baseName, locale).getString(key);
+    }
+
+    /**
+     * Reload all shared bundles.
+     *
+     * @throws MissingResourceException if the files of any bundle are gone, the other bundles are reloaded still
+     */
+    public static void reloadAll() {
+        MissingResourceException missingResourceException = null;
+        for (ConcurrentMap<Locale, ReloadableBundle> bundles : BUNDLES.values()) {
+            for (ReloadableBundle reloadableBundle : bundles.values()) {
+                try {
+                    reloadableBundle.reload();
+                } catch (MissingResourceException e) {
+                    missingResourceException = e;
+                }
+            }
+        }
+        if (missingResourceException != null) {
+            throw missingResourceException;
+        }
+    }
+
+    /**
+     * @param key key
+     * @return message
+     * @throws MissingResourceException if the key is not in this bundle
+     */
+    public String getString(String key) {
+        String message = messages.get(key);
+        if (message == null) {
+            if (key == null) {
+                throw new NullPointerException();
+            }
+            throw new MissingResourceException(
+                    "Can't find resource for bundle " + baseName + "_" + locale + ", key " + key,
+                    baseName,
+                    key
+            );
+        }
+        return message;
+    }
+
+    /**
+     * @return the keys of the messages of the current snapshot
+     */
+    public Set<String> keySet() {
+        return messages.keySet();
+    }
+
+    /**
+     * Read the bundle files again and swap the new messages in.
+     *
+     * @throws MissingResourceException if no bundle file is found, the old messages are kept then
+     */
+    public void reload() {
+        this.messages = load();
+    }
+
+    /**
+     * Reload this bundle whenever a file changes in a class path directory holding its files,
+     * on a shared daemon thread.
+     * Files in jars are not watched. Calling this more than once has no further effect.
+     *
+     * @throws IllegalStateException if the directories can not be watched
+     */
+    public void watch() {
+        synchronized (WATCHER_LOCK) {
+            if (watched) {
+                return;
+            }
+            try {
+                if (watchService == null) {
+                    watchService = FileSystems.getDefault().newWatchService();
+                    Thread thread = new Thread(ReloadableBundle::runWatcher, "xi18nt-bundle-watcher");
+                    thread.setDaemon(true);
+                    thread.start();
+                }
+                for (Path directory : getDirectories()) {
+                    List<ReloadableBundle> reloadableBundles = WATCHED_DIRECTORIES.get(directory);
+                    if (reloadableBundles == null) {
+                        directory.register(
+                                watchService,
+                                StandardWatchEventKinds.ENTRY_CREATE,
+                                StandardWatchEventKinds.ENTRY_MODIFY,
+                                StandardWatchEventKinds.ENTRY_DELETE
+                        );
+                        reloadableBundles = new CopyOnWriteArrayList<>();
+                        WATCHED_DIRECTORIES.put(directory, reloadableBundles);
+                    }
+                    reloadableBundles.add(this);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Can not watch bundle " + baseName + "_" + locale, e);
+            }
+            watched = true;
+        }
+    }
+
+    private static void runWatcher() {
+        WatchService service;
+        synchronized (WATCHER_LOCK) {
+            service = watchService;
+        }
+        // bundles to reload once no file changes any more, with the number of attempts which failed or lost keys
+        Map<ReloadableBundle, Integer> pendingBundles = new LinkedHashMap<>();
+        // time after which pending bundles are reloaded even if files keep changing
+        long reloadDeadline = 0;
+        while (true) {
+            WatchKey watchKey;
+            try {
+                if (pendingBundles.isEmpty()) {
+                    watchKey = service.take();
+                } else {
+                    long remainingNanos = reloadDeadline - System.nanoTime();
+                    watchKey = remainingNanos <= 0
+                            ? service.poll()
+                            : service.poll(Math.min(TimeUnit.MILLISECONDS.toNanos(QUIET_MILLIS), remainingNanos), TimeUnit.NANOSECONDS);
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            if (watchKey != null) {
+                // an editor saving a file may fire several events, one reload covers them all
+                watchKey.pollEvents();
+                List<ReloadableBundle> reloadableBundles;
+                synchronized (WATCHER_LOCK) {
+                    reloadableBundles = WATCHED_DIRECTORIES.get((Path) watchKey.watchable());
+                }
+                watchKey.reset();
+                if (reloadableBundles != null && !reloadableBundles.isEmpty()) {
+                    if (pendingBundles.isEmpty()) {
+                        reloadDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_WAIT_MILLIS);
+                    }
+                    for (ReloadableBundle reloadableBundle : reloadableBundles) {
+                        pendingBundles.putIfAbsent(reloadableBundle, 0);
+                    }
+                }
+                if (pendingBundles.isEmpty() || reloadDeadline - System.nanoTime() > 0) {
+                    continue;
+                }
+            }
+            for (Iterator<Map.Entry<ReloadableBundle, Integer>> iterator = pendingBundles.entrySet().iterator(); iterator.hasNext(); ) {
+                Map.Entry<ReloadableBundle, Integer> entry = iterator.next();
+                ReloadableBundle reloadableBundle = entry.getKey();
+                boolean lastAttempt = entry.getValue() >= MAX_RETRIES;
+                try {
+                    if (reloadableBundle.reloadWatched(lastAttempt)) {
+                        iterator.remove();
+                        continue;
+                    }
+                    LOGGER.log(
+                            System.Logger.Level.DEBUG,
+                            "Reloading bundle {0}_{1} lost keys, keeping the old messages and trying again",
+                            reloadableBundle.baseName,
+                            reloadableBundle.locale
+                    );
+                } catch (Throwable e) {
+                    if (lastAttempt) {
+                        LOGGER.log(
+                                System.Logger.Level.WARNING,
+                                "Can not reload bundle " + reloadableBundle.baseName + "_" + reloadableBundle.locale
+                                        + ", keeping the old messages",
+                                e
+                        );
+                        iterator.remove();
+                        continue;
+                    }
+                    LOGGER.log(
+                            System.Logger.Level.DEBUG,
+                            "Can not reload bundle " + reloadableBundle.baseName + "_" + reloadableBundle.locale + " yet, trying again",
+                            e
+                    );
+                }
+                entry.setValue(entry.getValue() + 1);
+            }
+            reloadDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_WAIT_MILLIS);
+        }
+    }
+
+    /**
+     * Reload on behalf of the watcher, unless the new messages lose keys of the current ones.
+     *
+     * @param acceptLostKeys whether to swap the new messages in even if they lose keys
+     * @return whether the new messages got swapped in
+     * @throws MissingResourceException if no bundle file is found, the old messages are kept then
+     */
+    private boolean reloadWatched(boolean acceptLostKeys) {
+        Map<String, String> newMessages = load();
+        if (!acceptLostKeys && !newMessages.keySet().containsAll(messages.keySet())) {
+            return false;
+        }
+        this.messages = newMessages;
+        return true;
+    }
+
+    /**
+     * Build a snapshot of the messages, parent locales first so more specific locales override them.
+     *
+     * @return immutable messages
+     * @throws MissingResourceException if no bundle file is found
+     */
+    private Map<String, String> load() {
+        List<Locale> candidateLocales = new ArrayList<>(
+                BinaryBundleControl.INSTANCE.getCandidateLocales(baseName, locale)
+        );
+        Collections.reverse(candidateLocales);
+        Map<String, String> result = new HashMap<>();
+        boolean found = false;
+        for (Locale candidateLocale : candidateLocales) {
+            ResourceBundle resourceBundle = loadBundle(candidateLocale);
+            if (resourceBundle == null) {
+                continue;
+            }
+            found = true;
+            for (String key : resourceBundle.keySet()) {
+                result.put(key, resourceBundle.getString(key));
+            }
+        }
+        if (!found) {
+            throw new MissingResourceException(
+                    "Can't find bundle for base name " + baseName + ", locale " + locale,
+                    baseName + "_" + locale,
+                    ""
+            );
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private ResourceBundle loadBundle(Locale candidateLocale) {
+        for (String format : BinaryBundleControl.INSTANCE.getFormats(baseName)) {
+            try {
+                ResourceBundle resourceBundle = BinaryBundleControl.INSTANCE.newBundle(
+                        baseName,
+                        candidateLocale,
+                        format,
+                        classLoader,
+                        true
+                );
+                if (resourceBundle != null) {
+                    return resourceBundle;
+                }
+            } catch (IllegalAccessException | InstantiationException | IOException e) {
+                MissingResourceException missingResourceException = new MissingResourceException(
+                        "Can't load bundle for base name " + baseName + ", locale " + candidateLocale,
+                        baseName + "_" + candidateLocale,
+                        ""
+                );
+                missingResourceException.initCause(e);
+                throw missingResourceException;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return directories holding existing files of this bundle, for any candidate locale and format
+     */
+    private Set<Path> getDirectories() {
+        Set<Path> directories = new LinkedHashSet<>();
+        for (Locale candidateLocale : BinaryBundleControl.INSTANCE.getCandidateLocales(baseName, locale)) {
+            String bundleName = BinaryBundleControl.INSTANCE.toBundleName(baseName, candidateLocale);
+            for (String fileExtension : FILE_EXTENSIONS) {
+                URL url = classLoader.getResource(BinaryBundleControl.INSTANCE.toResourceName(bundleName, fileExtension));
+                if (url == null || !"file".equals(url.getProtocol())) {
+                    continue;
+                }
+                try {
+                    directories.add(Paths.get(url.toURI()).getParent());
+                } catch (URISyntaxException e) {
+                    // not a path on the default file system, so it can not be watched
+                }
+            }
+        }
+        return directories;
+    }
+
+}
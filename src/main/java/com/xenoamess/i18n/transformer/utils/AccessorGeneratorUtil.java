@@ -0,0 +1,269 @@
+package com.xenoamess.i18n.transformer.utils;
+
+import com.github.javaparser.utils.StringEscapeUtils;
+import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import com.xenoamess.i18n.transformer.runtime.MessageTemplate;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generate the source of a message accessor class, with one static method per property.
+ * <p/>
+ * Every accessor method is a single array load from a table of pre-resolved messages,
+ * tables are resolved once per locale and cached.
+ * Messages with placeholders get an accessor taking their arguments too.
+ */
+public class AccessorGeneratorUtil {
+
+    /**
+     * Keep string constants well below the 65535 bytes class file limit.
+     */
+    private static final int MAX_CHUNK_BYTES = 32768;
+
+    private static final Set<String> JAVA_KEYWORDS = new HashSet<>(Arrays.asList(
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+            "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+            "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+            "new", "package", "private", "protected", "public", "return", "short", "static", "strictfp", "super",
+            "switch", "synchronized", "this", "throw", "throws", "transient", "try", "void", "volatile", "while",
+            "true", "false", "null", "var", "yield", "record"
+    ));
+
+    /**
+     * Convert a property name to the name of its accessor method.
+     * <p/>
+     * <code>.</code> becomes <code>_</code>, letters and digits are kept,
+     * <code>_</code> becomes <code>$_</code>, <code>$</code> becomes <code>$$</code>,
+     * and any other char becomes <code>$</code> followed by 4 lowercase hex digits.
+     * Names which are empty or Java keywords get <code>$k</code> appended,
+     * which no encoded char ends with, as <code>k</code> never follows a <code>$</code> otherwise.
+     * So different property names always get different method names.
+     *
+     * @param propertyName property name
+     * @return accessor method name
+     */
+    @NotNull
+    public static String toMethodName(@NotNull String propertyName) {
+        StringBuilder stringBuilder = new StringBuilder(propertyName.length() + 8);
+        for (int i = 0; i < propertyName.length(); i++) {
+            char c = propertyName.charAt(i);
+            if (c == '.') {
+                stringBuilder.append('_');
+            } else if (c == '_') {
+                stringBuilder.append("$_");
+            } else if (c == '$') {
+                stringBuilder.append("$$");
+            } else if (c < 128 && (Character.isLetter(c) || (Character.isDigit(c) && i > 0))) {
+                stringBuilder.append(c);
+            } else {
+                stringBuilder.append('$');
+                String hex = Integer.toHexString(c);
+                for (int j = hex.length(); j < 4; j++) {
+                    stringBuilder.append('0');
+                }
+                stringBuilder.append(hex);
+            }
+        }
+        if (stringBuilder.length() == 0 || JAVA_KEYWORDS.contains(stringBuilder.toString())) {
+            stringBuilder.append("$k");
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * @param accessorClassName  fully qualified name of the accessor class
+     * @param propertyBundleName bundle to resolve messages from
+     * @param localeExpression   java expression giving the locale to use, evaluated on every call
+     * @param propertiesEntities properties entities, in table order
+     * @return java source of the accessor class
+     */
+    @NotNull
+    public static String generate(
+            @NotNull String accessorClassName,
+            @NotNull String propertyBundleName,
+            @NotNull String localeExpression,
+            @NotNull List<PropertiesEntity> propertiesEntities
+    ) {
+        int lastDot = accessorClassName.lastIndexOf('.');
+        String packageName = lastDot < 0 ? "" : accessorClassName.substring(0, lastDot);
+        String simpleName = accessorClassName.substring(lastDot + 1);
+
+        StringBuilder stringBuilder = new StringBuilder(4096 + propertiesEntities.size() * 96);
+        if (!packageName.isEmpty()) {
+            stringBuilder.append("package ").append(packageName).append(";\n\n");
+        }
+        stringBuilder.append("/**\n");
+        stringBuilder.append(" * Generated by i18n-transformer-maven-plugin, do not edit.\n");
+        stringBuilder.append(" */\n");
+        stringBuilder.append("public final class ").append(simpleName).append(" {\n\n");
+        stringBuilder.append("    private static final String BUNDLE_NAME = ").append(quote(propertyBundleName)).append(";\n\n");
+        stringBuilder.append("    private static final String[] KEYS = keys(\n");
+        appendKeyChunks(stringBuilder, propertiesEntities);
+        stringBuilder.append("    );\n\n");
+        stringBuilder.append("    private static final java.util.concurrent.ConcurrentMap<java.util.Locale, String[]> TABLES =\n");
+        stringBuilder.append("            new java.util.concurrent.ConcurrentHashMap<>();\n\n");
+        stringBuilder.append("    private static volatile Table lastTable;\n\n");
+        stringBuilder.append("    private ").append(simpleName).append("() {\n");
+        stringBuilder.append("    }\n\n");
+        stringBuilder.append("    private static final class Table {\n\n");
+        stringBuilder.append("        private final java.util.Locale locale;\n\n");
+        stringBuilder.append("        private final String[] values;\n\n");
+        stringBuilder.append("        private Table(java.util.Locale locale, String[] values) {\n");
+        stringBuilder.append("            this.locale = locale;\n");
+        stringBuilder.append("            this.values = values;\n");
+        stringBuilder.append("        }\n\n");
+        stringBuilder.append("    }\n\n");
+        stringBuilder.append("    private static String[] keys(String... chunks) {\n");
+        stringBuilder.append("        if (chunks.length == 0) {\n");
+        stringBuilder.append("            return new String[0];\n");
+        stringBuilder.append("        }\n");
+        stringBuilder.append("        return String.join(\"\\n\", chunks).split(\"\\n\", -1);\n");
+        stringBuilder.append("    }\n\n");
+        stringBuilder.append("    private static String[] load(java.util.Locale locale) {\n");
+        stringBuilder.append("        java.util.ResourceBundle resourceBundle = java.util.ResourceBundle.getBundle(BUNDLE_NAME, locale);\n");
+        stringBuilder.append("        String[] values = new String[KEYS.length];\n");
+        stringBuilder.append("        for (int i = 0; i < KEYS.length; i++) {\n");
+        stringBuilder.append("            values[i] = resourceBundle.getString(KEYS[i]);\n");
+        stringBuilder.append("        }\n");
+        stringBuilder.append("        return values;\n");
+        stringBuilder.append("    }\n\n");
+        stringBuilder.append("    private static Table currentTable() {\n");
+        stringBuilder.append("        java.util.Locale locale = ").append(localeExpression).append(";\n");
+        stringBuilder.append("        Table table = lastTable;\n");
+        stringBuilder.append("        if (table != null && table.locale.equals(locale)) {\n");
+        stringBuilder.append("            return table;\n");
+        stringBuilder.append("        }\n");
+        stringBuilder.append("        table = new Table(locale, TABLES.computeIfAbsent(locale, ").append(simpleName).append("::load));\n");
+        stringBuilder.append("        lastTable = table;\n");
+        stringBuilder.append("        return table;\n");
+        stringBuilder.append("    }\n\n");
+        stringBuilder.append("    /**\n");
+        stringBuilder.append("     * @return messages of the current locale, in key order\n");
+        stringBuilder.append("     */\n");
+        stringBuilder.append("    public static String[] table() {\n");
+        stringBuilder.append("        return currentTable().values;\n");
+        stringBuilder.append("    }\n");
+        int index = 0;
+        for (PropertiesEntity propertiesEntity : propertiesEntities) {
+            stringBuilder.append("\n");
+            stringBuilder.append("    /**\n");
+            stringBuilder.append("     * @return message of <code>").append(escapeJavadoc(propertiesEntity.getPropertyName())).append("</code>\n");
+            stringBuilder.append("     */\n");
+            stringBuilder.append("    public static String ").append(toMethodName(propertiesEntity.getPropertyName())).append("() {\n");
+            stringBuilder.append("        return table()[").append(index).append("];\n");
+            stringBuilder.append("    }\n");
+            if (isPattern(propertiesEntity.getChineseValue())) {
+                stringBuilder.append("\n");
+                stringBuilder.append("    /**\n");
+                stringBuilder.append("     * @param arguments arguments of the placeholders\n");
+                stringBuilder.append("     * @return formatted message of <code>").append(escapeJavadoc(propertiesEntity.getPropertyName())).append("</code>\n");
+                stringBuilder.append("     */\n");
+                stringBuilder.append("    public static String ").append(toMethodName(propertiesEntity.getPropertyName())).append("(Object... arguments) {\n");
+                stringBuilder.append("        Table table = currentTable();\n");
+                stringBuilder.append("        return ").append(MessageTemplate.class.getName())
+                        .append(".format(BUNDLE_NAME, table.locale, KEYS[").append(index).append("], table.values[").append(index).append("], arguments);\n");
+                stringBuilder.append("    }\n");
+            }
+            index++;
+        }
+        stringBuilder.append("\n}\n");
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Whether a value has placeholders, so that its accessor takes arguments too.
+     * Methods formatting messages use {@link MessageTemplate}, which caches the parsed message of every key and locale.
+     */
+    private static boolean isPattern(@NotNull String value) {
+        try {
+            return MessageTemplate.compile(StringEscapeUtils.unescapeJava(value)).getArgumentCount() > 0;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static void appendKeyChunks(
+            @NotNull StringBuilder stringBuilder,
+            @NotNull List<PropertiesEntity> propertiesEntities
+    ) {
+        StringBuilder chunk = new StringBuilder();
+        int chunkBytes = 0;
+        boolean firstChunk = true;
+        for (int i = 0; i < propertiesEntities.size(); i++) {
+            String key = propertiesEntities.get(i).getPropertyName();
+            int keyBytes = key.getBytes(StandardCharsets.UTF_8).length + 1;
+            if (chunkBytes > 0 && chunkBytes + keyBytes > MAX_CHUNK_BYTES) {
+                firstChunk = appendChunk(stringBuilder, chunk.toString(), firstChunk);
+                chunk.setLength(0);
+                chunkBytes = 0;
+            }
+            if (chunkBytes > 0) {
+                chunk.append('\n');
+            }
+            chunk.append(key);
+            chunkBytes += keyBytes;
+        }
+        if (chunkBytes > 0) {
+            appendChunk(stringBuilder, chunk.toString(), firstChunk);
+            stringBuilder.append('\n');
+        }
+    }
+
+    private static boolean appendChunk(
+            @NotNull StringBuilder stringBuilder,
+            @NotNull String chunk,
+            boolean firstChunk
+    ) {
+        if (!firstChunk) {
+            stringBuilder.append(",\n");
+        }
+        stringBuilder.append("            ").append(quote(chunk));
+        return false;
+    }
+
+    @NotNull
+    private static String quote(@NotNull String string) {
+        StringBuilder stringBuilder = new StringBuilder(string.length() + 2);
+        stringBuilder.append('"');
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case '"':
+                    stringBuilder.append("\\\"");
+                    break;
+                case '\\':
+                    stringBuilder.append("\\\\");
+                    break;
+                case '\n':
+                    stringBuilder.append("\\n");
+                    break;
+                case '\r':
+                    stringBuilder.append("\\r");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7E) {
+                        stringBuilder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        stringBuilder.append(c);
+                    }
+            }
+        }
+        stringBuilder.append('"');
+        return stringBuilder.toString();
+    }
+
+    @NotNull
+    private static String escapeJavadoc(@NotNull String string) {
+        return string.replace("&", "&amp;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;")
+                .replace("*/", "*&#47;")
+                .replace("\\", "&#92;");
+    }
+
+}
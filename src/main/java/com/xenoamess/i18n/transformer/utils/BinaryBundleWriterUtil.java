@@ -0,0 +1,231 @@
+package com.xenoamess.i18n.transformer.utils;
+
+import com.github.javaparser.utils.StringEscapeUtils;
+import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import com.xenoamess.i18n.transformer.runtime.BinaryResourceBundle;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write properties entities as a binary bundle, see {@link BinaryResourceBundle} for the layout.
+ * <p/>
+ * The index is a minimal perfect hash built with the hash and displace method:
+ * keys are split into buckets by a first hash, and every bucket gets a seed
+ * such that a second, seeded hash puts all its keys into distinct free slots.
+ * Buckets with a single key skip the search and take a free slot directly, stored as a negative seed.
+ */
+public class BinaryBundleWriterUtil {
+
+    /**
+     * Average number of keys per bucket.
+     */
+    private static final int KEYS_PER_BUCKET = 4;
+
+    private static final int MAX_SEED = 1 << 20;
+
+    /**
+     * Write the same binary bundle to every target, each replaced by an atomic rename.
+     * Targets whose content is already the same are not touched at all, keeping their modification time.
+     *
+     * @param propertiesEntities properties entities, values are java string literal content and get unescaped
+     * @param targets            binary bundle files to write
+     * @return number of targets actually written
+     * @throws IOException if any
+     */
+    public static int writeIfChanged(
+            @NotNull List<PropertiesEntity> propertiesEntities,
+            @NotNull List<Path> targets
+    ) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        write(propertiesEntities, byteArrayOutputStream);
+        byte[] content = byteArrayOutputStream.toByteArray();
+        byte[] contentHash = PropertiesWriterUtil.newMessageDigest().digest(content);
+        int writtenCount = 0;
+        for (Path target : targets) {
+            Path absoluteTarget = target.toAbsolutePath();
+            if (PropertiesWriterUtil.hasContent(absoluteTarget, content.length, contentHash)) {
+                continue;
+            }
+            Files.createDirectories(absoluteTarget.getParent());
+            Path tempFile = PropertiesWriterUtil.getTempFile(absoluteTarget);
+            try {
+                Files.write(tempFile, content);
+                PropertiesWriterUtil.moveAtomically(tempFile, absoluteTarget);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+            writtenCount++;
+        }
+        return writtenCount;
+    }
+
+    /**
+     * @param propertiesEntities properties entities, values are java string literal content and get unescaped.
+     *                           For duplicated keys the last one wins, the same as in properties files.
+     * @param outputStream       output stream
+     * @throws IOException if any
+     */
+    public static void write(
+            @NotNull List<PropertiesEntity> propertiesEntities,
+            @NotNull OutputStream outputStream
+    ) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (PropertiesEntity propertiesEntity : propertiesEntities) {
+            entries.put(
+                    propertiesEntity.getPropertyName(),
+                    StringEscapeUtils.unescapeJava(propertiesEntity.getChineseValue())
+            );
+        }
+        String[] keys = entries.keySet().toArray(new String[0]);
+        int entryCount = keys.length;
+
+        int bucketCount = Math.max(1, entryCount / KEYS_PER_BUCKET);
+        int[] seeds = null;
+        int[] slotToKey = null;
+        while (seeds == null) {
+            seeds = new int[bucketCount];
+            slotToKey = new int[entryCount];
+            if (!buildIndex(keys, bucketCount, seeds, slotToKey)) {
+                seeds = null;
+                bucketCount *= 2;
+            }
+        }
+
+        ByteArrayOutputStream blob = new ByteArrayOutputStream();
+        int[][] entryOffsets = new int[entryCount][];
+        Map<String, int[]> writtenValues = new HashMap<>();
+        for (int slot = 0; slot < entryCount; slot++) {
+            String key = keys[slotToKey[slot]];
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            int keyOffset = blob.size();
+            blob.write(keyBytes);
+            // identical values are stored once
+            int[] valuePosition = writtenValues.get(entries.get(key));
+            if (valuePosition == null) {
+                byte[] valueBytes = entries.get(key).getBytes(StandardCharsets.UTF_8);
+                valuePosition = new int[]{blob.size(), valueBytes.length};
+                blob.write(valueBytes);
+                writtenValues.put(entries.get(key), valuePosition);
+            }
+            entryOffsets[slot] = new int[]{keyOffset, keyBytes.length, valuePosition[0], valuePosition[1]};
+        }
+
+        DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        dataOutputStream.writeInt(BinaryResourceBundle.MAGIC);
+        dataOutputStream.writeInt(BinaryResourceBundle.VERSION);
+        dataOutputStream.writeInt(entryCount);
+        dataOutputStream.writeInt(bucketCount);
+        for (int seed : seeds) {
+            dataOutputStream.writeInt(seed);
+        }
+        for (int[] entryOffset : entryOffsets) {
+            for (int value : entryOffset) {
+                dataOutputStream.writeInt(value);
+            }
+        }
+        dataOutputStream.writeInt(blob.size());
+        blob.writeTo(dataOutputStream);
+        dataOutputStream.flush();
+    }
+
+    /**
+     * @return false if some bucket found no seed, try again with more buckets then
+     */
+    private static boolean buildIndex(
+            @NotNull String[] keys,
+            int bucketCount,
+            @NotNull int[] seeds,
+            @NotNull int[] slotToKey
+    ) {
+        int entryCount = keys.length;
+        List<List<Integer>> buckets = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        for (int i = 0; i < entryCount; i++) {
+            buckets.get(BinaryResourceBundle.hash(keys[i], 0) % bucketCount).add(i);
+        }
+        Integer[] bucketOrder = new Integer[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            bucketOrder[i] = i;
+        }
+        // place big buckets first, while most slots are free
+        Arrays.sort(bucketOrder, (a, b) -> {
+            int compare = Integer.compare(buckets.get(b).size(), buckets.get(a).size());
+            return compare != 0 ? compare : Integer.compare(a, b);
+        });
+
+        boolean[] occupied = new boolean[entryCount];
+        int[] slots = new int[KEYS_PER_BUCKET * 8];
+        int nextFreeSlot = 0;
+        for (Integer bucketIndex : bucketOrder) {
+            List<Integer> bucket = buckets.get(bucketIndex);
+            if (bucket.isEmpty()) {
+                break;
+            }
+            if (bucket.size() == 1) {
+                while (occupied[nextFreeSlot]) {
+                    nextFreeSlot++;
+                }
+                seeds[bucketIndex] = -nextFreeSlot - 1;
+                occupied[nextFreeSlot] = true;
+                slotToKey[nextFreeSlot] = bucket.get(0);
+                continue;
+            }
+            if (slots.length < bucket.size()) {
+                slots = new int[bucket.size()];
+            }
+            int seed = 1;
+            for (; seed < MAX_SEED; seed++) {
+                if (tryPlace(keys, bucket, seed, occupied, slots)) {
+                    break;
+                }
+            }
+            if (seed >= MAX_SEED) {
+                return false;
+            }
+            seeds[bucketIndex] = seed;
+            for (int i = 0; i < bucket.size(); i++) {
+                occupied[slots[i]] = true;
+                slotToKey[slots[i]] = bucket.get(i);
+            }
+        }
+        return true;
+    }
+
+    private static boolean tryPlace(
+            @NotNull String[] keys,
+            @NotNull List<Integer> bucket,
+            int seed,
+            @NotNull boolean[] occupied,
+            @NotNull int[] slots
+    ) {
+        for (int i = 0; i < bucket.size(); i++) {
+            int slot = BinaryResourceBundle.hash(keys[bucket.get(i)], seed) % occupied.length;
+            if (occupied[slot]) {
+                return false;
+            }
+            for (int j = 0; j < i; j++) {
+                if (slots[j] == slot) {
+                    return false;
+                }
+            }
+            slots[i] = slot;
+        }
+        return true;
+    }
+
+}
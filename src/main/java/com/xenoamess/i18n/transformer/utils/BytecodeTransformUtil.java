@@ -0,0 +1,358 @@
+package com.xenoamess.i18n.transformer.utils;
+
+import com.github.javaparser.utils.StringEscapeUtils;
+import com.xenoamess.i18n.transformer.contexts.I18nTransformerContext;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.VarInsnNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replace string constants of a compiled class with calls to the accessor class generated for them.
+ * <p/>
+ * Handles <code>ldc</code> of strings, text of the string concatenation recipes javac 9+ compiles <code>+</code> chains to,
+ * and the constant value of static fields, which are initialized at the start of the static initializer instead.
+ * String constants inlined by javac from static final fields of other classes are plain <code>ldc</code>,
+ * so they are replaced too.
+ * Annotation values are left alone, as they must be constants,
+ * and so are the string comparisons of <code>switch</code> statements on strings, as their hash codes are fixed.
+ */
+public class BytecodeTransformUtil {
+
+    private static final String STRING_CONCAT_FACTORY = "java/lang/invoke/StringConcatFactory";
+
+    private static final String MAKE_CONCAT_WITH_CONSTANTS = "makeConcatWithConstants";
+
+    private static final char TAG_ARGUMENT = '\u0001';
+
+    private static final char TAG_CONSTANT = '\u0002';
+
+    /**
+     * Limit of argument slots of a method descriptor.
+     */
+    private static final int MAX_ARGUMENT_SLOTS = 200;
+
+    private static final String ACCESSOR_DESCRIPTOR = "()Ljava/lang/String;";
+
+    /**
+     * Transform a class file.
+     * <p/>
+     * Sets packageName and prefixKey of i18nTransformerContext from the class name,
+     * nested classes getting the prefix key of their outer class plus their own name,
+     * and adds a properties entity for every replaced string.
+     *
+     * @param classFile              class file content
+     * @param accessorClassName      fully qualified name of the accessor class
+     * @param i18nTransformerContext context of this class file
+     * @return transformed class file content, or null if nothing got replaced
+     */
+    @Nullable
+    public static byte[] transform(
+            @NotNull byte[] classFile,
+            @NotNull String accessorClassName,
+            @NotNull I18nTransformerContext i18nTransformerContext
+    ) {
+        ClassNode classNode = new ClassNode();
+        new ClassReader(classFile).accept(classNode, 0);
+        String className = classNode.name.replace('/', '.');
+        int lastDot = className.lastIndexOf('.');
+        i18nTransformerContext.setPackageName(lastDot < 0 ? "" : className.substring(0, lastDot));
+        i18nTransformerContext.setPrefixKey(i18nTransformerContext.getPropertyBundleName() + "." + className.replace('$', '.'));
+        i18nTransformerContext.setCurrentIndex(0);
+
+        String accessorInternalName = accessorClassName.replace('.', '/');
+        boolean changed = transformConstantFields(classNode, accessorInternalName, i18nTransformerContext);
+        for (MethodNode methodNode : classNode.methods) {
+            changed |= transformMethod(methodNode, accessorInternalName, i18nTransformerContext);
+        }
+        if (!changed) {
+            return null;
+        }
+        // every replacement keeps the stack map frames valid, and max stack and max locals are adjusted on the way
+        ClassWriter classWriter = new ClassWriter(0);
+        classNode.accept(classWriter);
+        return classWriter.toByteArray();
+    }
+
+    /**
+     * Drop the constant value of static string fields containing Chinese,
+     * and assign them from the accessor at the start of the static initializer instead.
+     */
+    private static boolean transformConstantFields(
+            @NotNull ClassNode classNode,
+            @NotNull String accessorInternalName,
+            @NotNull I18nTransformerContext i18nTransformerContext
+    ) {
+        InsnList initializers = new InsnList();
+        for (FieldNode fieldNode : classNode.fields) {
+            if ((fieldNode.access & Opcodes.ACC_STATIC) == 0
+                    || !(fieldNode.value instanceof String)
+                    || !i18nTransformerContext.getScriptDetector().containsMatch((String) fieldNode.value)) {
+                continue;
+            }
+            initializers.add(createAccessorCall((String) fieldNode.value, accessorInternalName, i18nTransformerContext));
+            initializers.add(new FieldInsnNode(Opcodes.PUTSTATIC, classNode.name, fieldNode.name, fieldNode.desc));
+            fieldNode.value = null;
+        }
+        if (initializers.size() == 0) {
+            return false;
+        }
+        MethodNode staticInitializer = null;
+        for (MethodNode methodNode : classNode.methods) {
+            if ("<clinit>".equals(methodNode.name)) {
+                staticInitializer = methodNode;
+                break;
+            }
+        }
+        if (staticInitializer == null) {
+            staticInitializer = new MethodNode(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+            staticInitializer.instructions.add(new InsnNode(Opcodes.RETURN));
+            classNode.methods.add(staticInitializer);
+        }
+        staticInitializer.instructions.insert(initializers);
+        staticInitializer.maxStack = Math.max(staticInitializer.maxStack, 1);
+        return true;
+    }
+
+    private static boolean transformMethod(
+            @NotNull MethodNode methodNode,
+            @NotNull String accessorInternalName,
+            @NotNull I18nTransformerContext i18nTransformerContext
+    ) {
+        boolean hasStringSwitch = hasStringSwitch(methodNode);
+        boolean changed = false;
+        int extraLocals = 0;
+        int extraStack = 0;
+        AbstractInsnNode next;
+        for (AbstractInsnNode insnNode = methodNode.instructions.getFirst(); insnNode != null; insnNode = next) {
+            next = insnNode.getNext();
+            if (insnNode instanceof LdcInsnNode && ((LdcInsnNode) insnNode).cst instanceof String) {
+                String value = (String) ((LdcInsnNode) insnNode).cst;
+                if (!i18nTransformerContext.getScriptDetector().containsMatch(value)) {
+                    continue;
+                }
+                if (hasStringSwitch && isStringEquals(getNextInstruction(insnNode))) {
+                    warn(i18nTransformerContext, "string compared by switch kept in " + methodNode.name + " : " + value);
+                    continue;
+                }
+                methodNode.instructions.set(insnNode, createAccessorCall(value, accessorInternalName, i18nTransformerContext));
+                changed = true;
+            } else if (insnNode instanceof InvokeDynamicInsnNode && isStringConcat((InvokeDynamicInsnNode) insnNode)) {
+                int[] extra = transformStringConcat(
+                        methodNode,
+                        (InvokeDynamicInsnNode) insnNode,
+                        accessorInternalName,
+                        i18nTransformerContext
+                );
+                if (extra != null) {
+                    extraLocals = Math.max(extraLocals, extra[0]);
+                    extraStack = Math.max(extraStack, extra[1]);
+                    changed = true;
+                }
+            }
+        }
+        // every concatenation stores its operands into the same locals past the original ones
+        methodNode.maxLocals += extraLocals;
+        methodNode.maxStack += extraStack;
+        return changed;
+    }
+
+    /**
+     * Replace the text of a concatenation recipe containing Chinese by arguments got from the accessor.
+     * <p/>
+     * The operands pushed after the first replaced text are stored into new locals,
+     * and pushed again with the messages in between.
+     *
+     * @return number of locals and stack slots needed on top of the method's own, or null if nothing got replaced
+     */
+    @Nullable
+    private static int[] transformStringConcat(
+            @NotNull MethodNode methodNode,
+            @NotNull InvokeDynamicInsnNode invokeDynamicInsnNode,
+            @NotNull String accessorInternalName,
+            @NotNull I18nTransformerContext i18nTransformerContext
+    ) {
+        String recipe = (String) invokeDynamicInsnNode.bsmArgs[0];
+        // texts of the recipe, and null for its arguments and constants, in recipe order
+        List<String> parts = new ArrayList<>();
+        List<Character> tags = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < recipe.length(); i++) {
+            char c = recipe.charAt(i);
+            if (c == TAG_ARGUMENT || c == TAG_CONSTANT) {
+                if (text.length() > 0) {
+                    parts.add(text.toString());
+                    tags.add(null);
+                    text.setLength(0);
+                }
+                parts.add(null);
+                tags.add(c);
+            } else {
+                text.append(c);
+            }
+        }
+        if (text.length() > 0) {
+            parts.add(text.toString());
+            tags.add(null);
+        }
+
+        Type[] argumentTypes = Type.getArgumentTypes(invokeDynamicInsnNode.desc);
+        int replacedCount = 0;
+        int argumentSlots = 0;
+        for (Type argumentType : argumentTypes) {
+            argumentSlots += argumentType.getSize();
+        }
+        int firstMovedArgument = -1;
+        int argumentIndex = 0;
+        for (int i = 0; i < parts.size(); i++) {
+            if (parts.get(i) != null && i18nTransformerContext.getScriptDetector().containsMatch(parts.get(i))) {
+                replacedCount++;
+                if (firstMovedArgument < 0) {
+                    firstMovedArgument = argumentIndex;
+                }
+            } else if (tags.get(i) != null && tags.get(i) == TAG_ARGUMENT) {
+                argumentIndex++;
+            }
+        }
+        if (replacedCount == 0) {
+            return null;
+        }
+        if (argumentSlots + replacedCount > MAX_ARGUMENT_SLOTS) {
+            warn(i18nTransformerContext, "string concatenation with too many operands kept in " + methodNode.name + " : " + recipe);
+            return null;
+        }
+
+        int[] slots = new int[argumentTypes.length];
+        int usedLocals = 0;
+        for (int i = firstMovedArgument; i < argumentTypes.length; i++) {
+            slots[i] = methodNode.maxLocals + usedLocals;
+            usedLocals += argumentTypes[i].getSize();
+        }
+        InsnList insnList = new InsnList();
+        for (int i = argumentTypes.length - 1; i >= firstMovedArgument; i--) {
+            insnList.add(new VarInsnNode(argumentTypes[i].getOpcode(Opcodes.ISTORE), slots[i]));
+        }
+        StringBuilder newRecipe = new StringBuilder(recipe.length());
+        List<Type> newArgumentTypes = new ArrayList<>(argumentTypes.length + replacedCount);
+        argumentIndex = 0;
+        for (int i = 0; i < parts.size(); i++) {
+            String part = parts.get(i);
+            if (part != null && i18nTransformerContext.getScriptDetector().containsMatch(part)) {
+                insnList.add(createAccessorCall(part, accessorInternalName, i18nTransformerContext));
+                newRecipe.append(TAG_ARGUMENT);
+                newArgumentTypes.add(Type.getType(String.class));
+            } else if (part != null) {
+                newRecipe.append(part);
+            } else {
+                newRecipe.append(tags.get(i).charValue());
+                if (tags.get(i) == TAG_ARGUMENT) {
+                    if (argumentIndex >= firstMovedArgument) {
+                        insnList.add(new VarInsnNode(argumentTypes[argumentIndex].getOpcode(Opcodes.ILOAD), slots[argumentIndex]));
+                    }
+                    newArgumentTypes.add(argumentTypes[argumentIndex]);
+                    argumentIndex++;
+                }
+            }
+        }
+        Object[] bsmArgs = invokeDynamicInsnNode.bsmArgs.clone();
+        bsmArgs[0] = newRecipe.toString();
+        insnList.add(
+                new InvokeDynamicInsnNode(
+                        invokeDynamicInsnNode.name,
+                        Type.getMethodDescriptor(
+                                Type.getReturnType(invokeDynamicInsnNode.desc),
+                                newArgumentTypes.toArray(new Type[0])
+                        ),
+                        invokeDynamicInsnNode.bsm,
+                        bsmArgs
+                )
+        );
+        methodNode.instructions.insertBefore(invokeDynamicInsnNode, insnList);
+        methodNode.instructions.remove(invokeDynamicInsnNode);
+        return new int[]{usedLocals, replacedCount};
+    }
+
+    @NotNull
+    private static MethodInsnNode createAccessorCall(
+            @NotNull String value,
+            @NotNull String accessorInternalName,
+            @NotNull I18nTransformerContext i18nTransformerContext
+    ) {
+        String propertyName = I18nTransformerUtil.registerProperty(StringEscapeUtils.escapeJava(value), i18nTransformerContext);
+        return new MethodInsnNode(
+                Opcodes.INVOKESTATIC,
+                accessorInternalName,
+                AccessorGeneratorUtil.toMethodName(propertyName),
+                ACCESSOR_DESCRIPTOR,
+                false
+        );
+    }
+
+    private static boolean isStringConcat(@NotNull InvokeDynamicInsnNode invokeDynamicInsnNode) {
+        return STRING_CONCAT_FACTORY.equals(invokeDynamicInsnNode.bsm.getOwner())
+                && MAKE_CONCAT_WITH_CONSTANTS.equals(invokeDynamicInsnNode.bsm.getName())
+                && invokeDynamicInsnNode.bsmArgs.length > 0
+                && invokeDynamicInsnNode.bsmArgs[0] instanceof String;
+    }
+
+    /**
+     * Whether a method switches on the hash code of a string, which is how javac compiles <code>switch</code> on strings.
+     */
+    private static boolean hasStringSwitch(@NotNull MethodNode methodNode) {
+        for (AbstractInsnNode insnNode = methodNode.instructions.getFirst(); insnNode != null; insnNode = insnNode.getNext()) {
+            if (insnNode.getOpcode() == Opcodes.INVOKEVIRTUAL
+                    && "java/lang/String".equals(((MethodInsnNode) insnNode).owner)
+                    && "hashCode".equals(((MethodInsnNode) insnNode).name)) {
+                AbstractInsnNode nextInstruction = getNextInstruction(insnNode);
+                if (nextInstruction != null
+                        && (nextInstruction.getOpcode() == Opcodes.LOOKUPSWITCH || nextInstruction.getOpcode() == Opcodes.TABLESWITCH)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isStringEquals(@Nullable AbstractInsnNode insnNode) {
+        return insnNode != null
+                && insnNode.getOpcode() == Opcodes.INVOKEVIRTUAL
+                && "java/lang/String".equals(((MethodInsnNode) insnNode).owner)
+                && "equals".equals(((MethodInsnNode) insnNode).name);
+    }
+
+    /**
+     * @return the next instruction which is not a label, line number or frame
+     */
+    @Nullable
+    private static AbstractInsnNode getNextInstruction(@NotNull AbstractInsnNode insnNode) {
+        AbstractInsnNode next = insnNode.getNext();
+        while (next != null && next.getOpcode() < 0) {
+            next = next.getNext();
+        }
+        return next;
+    }
+
+    private static void warn(
+            @NotNull I18nTransformerContext i18nTransformerContext,
+            @NotNull String message
+    ) {
+        i18nTransformerContext.getWarningConsumer().accept(message + " at file : " + i18nTransformerContext.getIdentifier());
+    }
+
+}
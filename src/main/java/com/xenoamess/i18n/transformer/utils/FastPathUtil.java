@@ -0,0 +1,591 @@
+package com.xenoamess.i18n.transformer.utils;
+
+import com.xenoamess.i18n.transformer.contexts.I18nTransformerContext;
+import com.xenoamess.i18n.transformer.entities.TextReplacement;
+import com.xenoamess.i18n.transformer.enums.ConcatenationMode;
+import com.xenoamess.i18n.transformer.enums.ConstantMode;
+import com.xenoamess.i18n.transformer.enums.LiteralContextType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Transform a java file from its tokens only, without building a syntax tree.
+ * <p/>
+ * Only files whose string literals to transform all sit in contexts the neighbouring tokens tell for sure are handled:
+ * method and constructor arguments, array initializer values, operands of <code>+</code>,
+ * and initializers of local variables and fields.
+ * They get the same text replacements {@link I18nTransformerUtil#dfs} records, registered in the same order,
+ * so property names do not depend on which way a file went.
+ * Files with enums, interfaces, records, more than one class, such string literals in annotations,
+ * or in any other context, are left to the syntax tree.
+ */
+public class FastPathUtil {
+
+    private static final Set<String> KEYWORDS = new HashSet<>(
+            Arrays.asList(
+                    "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+                    "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+                    "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+                    "new", "package", "private", "protected", "public", "return", "short", "static", "strictfp",
+                    "super", "switch", "synchronized", "this", "throw", "throws", "transient", "try", "void",
+                    "volatile", "while", "true", "false", "null", "yield"
+            )
+    );
+
+    private static final String OPERATOR_CHARACTERS = "=+-*/%&|^!<>~?:";
+
+    private enum TokenKind {
+        IDENTIFIER,
+        STRING_LITERAL,
+        OTHER_LITERAL,
+        OPERATOR
+    }
+
+    private enum FrameKind {
+        CALL,
+        ANNOTATION,
+        PARENTHESIS,
+        BRACKET,
+        ARRAY_INITIALIZER,
+        CLASS_BODY,
+        BLOCK
+    }
+
+    private static class Token {
+
+        private final TokenKind kind;
+
+        private final int begin;
+
+        private final int end;
+
+        private final String text;
+
+        private Token(
+                @NotNull TokenKind kind,
+                int begin,
+                int end,
+                @NotNull String text
+        ) {
+            this.kind = kind;
+            this.begin = begin;
+            this.end = end;
+            this.text = text;
+        }
+
+    }
+
+    private static class Frame {
+
+        private final FrameKind kind;
+
+        /**
+         * Whether this is the argument list of an object creation, which an anonymous class body may follow.
+         */
+        private final boolean creation;
+
+        /**
+         * String literals to transform which are direct arguments or values of this frame, replaced together.
+         */
+        private final List<Literal> group = new ArrayList<>();
+
+        private Frame(
+                @NotNull FrameKind kind,
+                boolean creation
+        ) {
+            this.kind = kind;
+            this.creation = creation;
+        }
+
+    }
+
+    private static class Literal {
+
+        private final Token token;
+
+        private final LiteralContextType literalContextType;
+
+        @Nullable
+        private final List<Literal> group;
+
+        private boolean handled = false;
+
+        private Literal(
+                @NotNull Token token,
+                @NotNull LiteralContextType literalContextType,
+                @Nullable List<Literal> group
+        ) {
+            this.token = token;
+            this.literalContextType = literalContextType;
+            this.group = group;
+        }
+
+    }
+
+    /**
+     * Try to transform source without a syntax tree.
+     * <p/>
+     * Nothing is registered unless the whole file can be handled,
+     * then the replacements are added to {@link I18nTransformerContext#getTextReplacements()}.
+     *
+     * @param source                 java source
+     * @param i18nTransformerContext context of the file
+     * @return false if the file needs a syntax tree, the context is untouched then
+     */
+    public static boolean transform(
+            @NotNull String source,
+            @NotNull I18nTransformerContext i18nTransformerContext
+    ) {
+        List<Token> tokens = tokenize(source);
+        if (tokens == null) {
+            return false;
+        }
+
+        List<Literal> literals = new ArrayList<>();
+        ArrayDeque<Frame> frames = new ArrayDeque<>();
+        int annotationDepth = 0;
+        boolean pendingClassBody = false;
+        int lastCreationClose = -1;
+        String className = null;
+        StringBuilder packageName = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            switch (token.kind) {
+                case IDENTIFIER:
+                    switch (token.text) {
+                        case "class":
+                            if (isOperator(tokens, i - 1, ".")) {
+                                break;
+                            }
+                            if (className != null || !isIdentifier(tokens, i + 1)) {
+                                return false;
+                            }
+                            className = tokens.get(i + 1).text;
+                            pendingClassBody = true;
+                            break;
+                        case "interface":
+                        case "enum":
+                            return false;
+                        case "record":
+                            if (isIdentifier(tokens, i + 1)) {
+                                return false;
+                            }
+                            break;
+                        case "package":
+                            if (frames.isEmpty() && className == null) {
+                                for (i++; i < tokens.size() && !isOperator(tokens, i, ";"); i++) {
+                                    packageName.append(tokens.get(i).text);
+                                }
+                            }
+                            break;
+                        default:
+                    }
+                    break;
+                case OPERATOR:
+                    switch (token.text) {
+                        case "(": {
+                            Frame frame = openParenthesis(tokens, i);
+                            if (frame.kind == FrameKind.ANNOTATION) {
+                                annotationDepth++;
+                            }
+                            frames.push(frame);
+                            break;
+                        }
+                        case ")": {
+                            Frame frame = frames.poll();
+                            if (frame == null
+                                    || (frame.kind != FrameKind.CALL && frame.kind != FrameKind.ANNOTATION && frame.kind != FrameKind.PARENTHESIS)) {
+                                return false;
+                            }
+                            if (frame.kind == FrameKind.ANNOTATION) {
+                                annotationDepth--;
+                            }
+                            if (frame.creation) {
+                                lastCreationClose = i;
+                            }
+                            break;
+                        }
+                        case "[":
+                            frames.push(new Frame(FrameKind.BRACKET, false));
+                            break;
+                        case "]": {
+                            Frame frame = frames.poll();
+                            if (frame == null || frame.kind != FrameKind.BRACKET) {
+                                return false;
+                            }
+                            break;
+                        }
+                        case "{": {
+                            FrameKind frameKind;
+                            if (pendingClassBody || lastCreationClose == i - 1) {
+                                pendingClassBody = false;
+                                frameKind = FrameKind.CLASS_BODY;
+                            } else if (isOperator(tokens, i - 1, "]")
+                                    || isOperator(tokens, i - 1, "=")
+                                    || (!frames.isEmpty()
+                                    && frames.peek().kind == FrameKind.ARRAY_INITIALIZER
+                                    && (isOperator(tokens, i - 1, "{") || isOperator(tokens, i - 1, ",")))) {
+                                frameKind = FrameKind.ARRAY_INITIALIZER;
+                            } else {
+                                frameKind = FrameKind.BLOCK;
+                            }
+                            frames.push(new Frame(frameKind, false));
+                            break;
+                        }
+                        case "}": {
+                            Frame frame = frames.poll();
+                            if (frame == null
+                                    || (frame.kind != FrameKind.ARRAY_INITIALIZER && frame.kind != FrameKind.CLASS_BODY && frame.kind != FrameKind.BLOCK)) {
+                                return false;
+                            }
+                            break;
+                        }
+                        default:
+                    }
+                    break;
+                case STRING_LITERAL:
+                    if (!i18nTransformerContext.getScriptDetector().containsMatch(
+                            source.subSequence(token.begin + 1, token.end - 1)
+                    )) {
+                        break;
+                    }
+                    if (annotationDepth > 0 || frames.isEmpty() || className == null) {
+                        return false;
+                    }
+                    Literal literal = classify(tokens, i, frames.peek(), i18nTransformerContext);
+                    if (literal == null) {
+                        return false;
+                    }
+                    literals.add(literal);
+                    break;
+                default:
+            }
+        }
+        if (!frames.isEmpty()) {
+            return false;
+        }
+
+        if (literals.isEmpty()) {
+            return true;
+        }
+        if (mayUseConstants(tokens)) {
+            for (Literal literal : literals) {
+                if (literal.literalContextType == LiteralContextType.STATIC_FIELD) {
+                    // only the syntax tree tells whether the field is used where a constant is needed
+                    return false;
+                }
+            }
+        }
+        i18nTransformerContext.setPackageName(packageName.toString());
+        i18nTransformerContext.setPrefixKey(
+                i18nTransformerContext.getPropertyBundleName() + "."
+                        + (packageName.length() == 0 ? className : packageName + "." + className)
+        );
+        i18nTransformerContext.setCurrentIndex(0);
+        i18nTransformerContext.setShardBundleName(I18nTransformerUtil.getShardBundleName(i18nTransformerContext));
+        int[] lineOffsets = lineOffsets(source);
+        for (Literal literal : literals) {
+            if (literal.handled) {
+                continue;
+            }
+            // the syntax tree replaces all arguments or values of a parent once it meets the first of them
+            for (Literal replaced : literal.group != null ? literal.group : List.of(literal)) {
+                replaced.handled = true;
+                i18nTransformerContext.getLiteralCounts().merge(replaced.literalContextType, 1, Integer::sum);
+                String replacement = I18nTransformerUtil.handleString(
+                        source.substring(replaced.token.begin + 1, replaced.token.end - 1),
+                        i18nTransformerContext
+                );
+                i18nTransformerContext.getTextReplacements().add(
+                        toTextReplacement(lineOffsets, replaced.token, replacement)
+                );
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tell an argument list from an annotation and other parentheses, by the name before it.
+     */
+    @NotNull
+    private static Frame openParenthesis(
+            @NotNull List<Token> tokens,
+            int index
+    ) {
+        int nameIndex = index - 1;
+        if (!isIdentifier(tokens, nameIndex)
+                || (KEYWORDS.contains(tokens.get(nameIndex).text)
+                && !"this".equals(tokens.get(nameIndex).text)
+                && !"super".equals(tokens.get(nameIndex).text))) {
+            return new Frame(FrameKind.PARENTHESIS, false);
+        }
+        while (isOperator(tokens, nameIndex - 1, ".") && isIdentifier(tokens, nameIndex - 2)) {
+            nameIndex -= 2;
+        }
+        if (isOperator(tokens, nameIndex - 1, "@")) {
+            return new Frame(FrameKind.ANNOTATION, false);
+        }
+        return new Frame(
+                FrameKind.CALL,
+                isIdentifier(tokens, nameIndex - 1) && "new".equals(tokens.get(nameIndex - 1).text)
+        );
+    }
+
+    /**
+     * @return the string literal at index with its context type, or null if its context is not certain from the tokens
+     */
+    @Nullable
+    private static Literal classify(
+            @NotNull List<Token> tokens,
+            int index,
+            @NotNull Frame frame,
+            @NotNull I18nTransformerContext i18nTransformerContext
+    ) {
+        if (isOperator(tokens, index - 1, "+") || isOperator(tokens, index + 1, "+")) {
+            // a cast before, or a member access after, would take the literal as its operand instead
+            if (i18nTransformerContext.getConcatenationMode() != ConcatenationMode.SPLIT
+                    || isOperator(tokens, index - 1, ")")
+                    || isOperator(tokens, index + 1, ".")
+                    || isOperator(tokens, index + 1, "::")
+                    || isOperator(tokens, index + 1, "[")) {
+                return null;
+            }
+            return new Literal(tokens.get(index), LiteralContextType.BINARY_EXPRESSION, null);
+        }
+        if (frame.kind == FrameKind.CALL
+                && (isOperator(tokens, index - 1, "(") || isOperator(tokens, index - 1, ","))
+                && (isOperator(tokens, index + 1, ")") || isOperator(tokens, index + 1, ","))) {
+            Literal literal = new Literal(tokens.get(index), LiteralContextType.ARGUMENT, frame.group);
+            frame.group.add(literal);
+            return literal;
+        }
+        if (frame.kind == FrameKind.ARRAY_INITIALIZER
+                && (isOperator(tokens, index - 1, "{") || isOperator(tokens, index - 1, ","))
+                && (isOperator(tokens, index + 1, "}") || isOperator(tokens, index + 1, ","))) {
+            Literal literal = new Literal(tokens.get(index), LiteralContextType.ARRAY_INITIALIZER, frame.group);
+            frame.group.add(literal);
+            return literal;
+        }
+        // Type name = "...";
+        if (!isOperator(tokens, index - 1, "=")
+                || !(isOperator(tokens, index + 1, ";") || isOperator(tokens, index + 1, ","))
+                || !isNonKeywordIdentifier(tokens, index - 2)
+                || !isNonKeywordIdentifier(tokens, index - 3)) {
+            return null;
+        }
+        if (frame.kind == FrameKind.BLOCK || frame.kind == FrameKind.PARENTHESIS) {
+            return new Literal(tokens.get(index), LiteralContextType.LOCAL_VARIABLE, null);
+        }
+        if (frame.kind != FrameKind.CLASS_BODY) {
+            return null;
+        }
+        boolean isStatic = false;
+        for (int i = index - 4; i >= 0; i--) {
+            Token token = tokens.get(i);
+            if (token.kind != TokenKind.IDENTIFIER && !".".equals(token.text) && !"@".equals(token.text)) {
+                // annotation arguments could hide the start of the declaration
+                if (!";".equals(token.text) && !"{".equals(token.text) && !"}".equals(token.text)) {
+                    return null;
+                }
+                break;
+            }
+            if ("static".equals(token.text)) {
+                isStatic = true;
+            }
+        }
+        if (!isStatic) {
+            return new Literal(tokens.get(index), LiteralContextType.FIELD, null);
+        }
+        if (i18nTransformerContext.getConstantMode() != ConstantMode.CACHED) {
+            return null;
+        }
+        return new Literal(tokens.get(index), LiteralContextType.STATIC_FIELD, null);
+    }
+
+    /**
+     * @return whether there is any case label or annotation, which may refer to a static field
+     */
+    private static boolean mayUseConstants(@NotNull List<Token> tokens) {
+        for (Token token : tokens) {
+            if ("case".equals(token.text) || "@".equals(token.text)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Split source into tokens, dropping white spaces and comments.
+     *
+     * @return tokens, or null if source does not even lex
+     */
+    @Nullable
+    private static List<Token> tokenize(@NotNull String source) {
+        List<Token> tokens = new ArrayList<>();
+        int length = source.length();
+        int i = 0;
+        while (i < length) {
+            char c = source.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            int begin = i;
+            if (c == '/' && i + 1 < length && source.charAt(i + 1) == '/') {
+                while (i < length && source.charAt(i) != '\n' && source.charAt(i) != '\r') {
+                    i++;
+                }
+                continue;
+            }
+            if (c == '/' && i + 1 < length && source.charAt(i + 1) == '*') {
+                int end = source.indexOf("*/", i + 2);
+                if (end < 0) {
+                    return null;
+                }
+                i = end + 2;
+                continue;
+            }
+            if (c == '"' && source.startsWith("\"\"\"", i)) {
+                // text blocks are not string literal expressions
+                i += 3;
+                while (!source.startsWith("\"\"\"", i)) {
+                    if (i >= length) {
+                        return null;
+                    }
+                    i += source.charAt(i) == '\\' ? 2 : 1;
+                }
+                i += 3;
+                tokens.add(new Token(TokenKind.OTHER_LITERAL, begin, i, source.substring(begin, i)));
+                continue;
+            }
+            if (c == '"' || c == '\'') {
+                i++;
+                while (i >= length || source.charAt(i) != c) {
+                    if (i >= length || source.charAt(i) == '\n' || source.charAt(i) == '\r') {
+                        return null;
+                    }
+                    i += source.charAt(i) == '\\' ? 2 : 1;
+                }
+                i++;
+                tokens.add(
+                        new Token(
+                                c == '"' ? TokenKind.STRING_LITERAL : TokenKind.OTHER_LITERAL,
+                                begin,
+                                i,
+                                source.substring(begin, i)
+                        )
+                );
+                continue;
+            }
+            if (Character.isJavaIdentifierStart(c)) {
+                while (i < length && Character.isJavaIdentifierPart(source.charAt(i))) {
+                    i++;
+                }
+                tokens.add(new Token(TokenKind.IDENTIFIER, begin, i, source.substring(begin, i)));
+                continue;
+            }
+            if (Character.isDigit(c) || (c == '.' && i + 1 < length && Character.isDigit(source.charAt(i + 1)))) {
+                while (i < length && (Character.isJavaIdentifierPart(source.charAt(i)) || source.charAt(i) == '.')) {
+                    i++;
+                }
+                tokens.add(new Token(TokenKind.OTHER_LITERAL, begin, i, source.substring(begin, i)));
+                continue;
+            }
+            if (OPERATOR_CHARACTERS.indexOf(c) >= 0) {
+                // longest run, so that only a single = or + is taken for itself
+                i++;
+                while (i < length
+                        && OPERATOR_CHARACTERS.indexOf(source.charAt(i)) >= 0
+                        && !(source.charAt(i) == '/' && i + 1 < length && (source.charAt(i + 1) == '/' || source.charAt(i + 1) == '*'))) {
+                    i++;
+                }
+            } else {
+                i++;
+            }
+            tokens.add(new Token(TokenKind.OPERATOR, begin, i, source.substring(begin, i)));
+        }
+        return tokens;
+    }
+
+    private static boolean isOperator(
+            @NotNull List<Token> tokens,
+            int index,
+            @NotNull String text
+    ) {
+        return index >= 0
+                && index < tokens.size()
+                && tokens.get(index).kind == TokenKind.OPERATOR
+                && tokens.get(index).text.equals(text);
+    }
+
+    private static boolean isIdentifier(
+            @NotNull List<Token> tokens,
+            int index
+    ) {
+        return index >= 0
+                && index < tokens.size()
+                && tokens.get(index).kind == TokenKind.IDENTIFIER;
+    }
+
+    private static boolean isNonKeywordIdentifier(
+            @NotNull List<Token> tokens,
+            int index
+    ) {
+        return isIdentifier(tokens, index) && !KEYWORDS.contains(tokens.get(index).text);
+    }
+
+    /**
+     * Lines end the same way as in {@link SpliceUtil}.
+     */
+    @NotNull
+    private static int[] lineOffsets(@NotNull String source) {
+        List<Integer> lineOffsets = new ArrayList<>();
+        lineOffsets.add(0);
+        int length = source.length();
+        for (int i = 0; i < length; i++) {
+            char c = source.charAt(i);
+            if (c == '\r') {
+                if (i + 1 < length && source.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                lineOffsets.add(i + 1);
+            } else if (c == '\n') {
+                lineOffsets.add(i + 1);
+            }
+        }
+        int[] result = new int[lineOffsets.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = lineOffsets.get(i);
+        }
+        return result;
+    }
+
+    @NotNull
+    private static TextReplacement toTextReplacement(
+            @NotNull int[] lineOffsets,
+            @NotNull Token token,
+            @NotNull String replacement
+    ) {
+        // string literals do not span lines
+        int line = Arrays.binarySearch(lineOffsets, token.begin);
+        if (line < 0) {
+            line = -line - 2;
+        }
+        int beginColumn = token.begin - lineOffsets[line] + 1;
+        return new TextReplacement(
+                line + 1,
+                beginColumn,
+                line + 1,
+                beginColumn + token.end - token.begin - 1,
+                replacement
+        );
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.xenoamess.i18n.transformer.utils;
+
+import org.apache.maven.project.MavenProject;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keep a directory of generated sources mirroring compile source roots, with transformed copies of some java files.
+ * <p/>
+ * Java files needing no change are hard linked into the mirror, or copied where links are not supported,
+ * so the mirror costs no disk space and no writes in most builds.
+ */
+public class GeneratedSourcesUtil {
+
+    /**
+     * Write a transformed java file into the mirror, unless its copy already has that content.
+     *
+     * @param generatedSourceFile copy of the java file in the mirror
+     * @param javaFile            java file
+     * @param content             transformed content
+     * @throws IOException if any
+     */
+    public static void write(
+            @NotNull Path generatedSourceFile,
+            @NotNull Path javaFile,
+            @NotNull byte[] content
+    ) throws IOException {
+        if (Files.isRegularFile(generatedSourceFile)
+                && !Files.isSameFile(generatedSourceFile, javaFile)
+                && Arrays.equals(Files.readAllBytes(generatedSourceFile), content)) {
+            return;
+        }
+        // it may be a link to the java file, which must not be written through
+        Files.deleteIfExists(generatedSourceFile);
+        Files.createDirectories(generatedSourceFile.getParent());
+        Files.write(generatedSourceFile, content);
+    }
+
+    /**
+     * Make the copy of a java file needing no change a link to it, or a plain copy where links are not supported,
+     * unless it already is one.
+     *
+     * @param generatedSourceFile copy of the java file in the mirror
+     * @param javaFile            java file
+     * @throws IOException if any
+     */
+    public static void link(
+            @NotNull Path generatedSourceFile,
+            @NotNull Path javaFile
+    ) throws IOException {
+        if (Files.isRegularFile(generatedSourceFile)
+                && (Files.isSameFile(generatedSourceFile, javaFile)
+                || (Files.size(generatedSourceFile) == Files.size(javaFile)
+                && Files.getLastModifiedTime(generatedSourceFile).equals(Files.getLastModifiedTime(javaFile))))) {
+            return;
+        }
+        Files.deleteIfExists(generatedSourceFile);
+        Files.createDirectories(generatedSourceFile.getParent());
+        try {
+            Files.createLink(generatedSourceFile, javaFile);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(javaFile, generatedSourceFile, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+    }
+
+    /**
+     * Delete every file of the mirror which is not the copy of a current java file.
+     *
+     * @param directory            the mirror, absolute and normalized
+     * @param generatedSourceFiles copies of all java files of the mirrored source roots, absolute and normalized
+     * @return number of deleted files
+     * @throws IOException if any
+     */
+    public static int deleteStale(
+            @NotNull Path directory,
+            @NotNull Set<Path> generatedSourceFiles
+    ) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        List<Path> staleFiles;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            staleFiles = paths.filter(path -> Files.isRegularFile(path) && !generatedSourceFiles.contains(path))
+                    .collect(Collectors.toList());
+        }
+        for (Path staleFile : staleFiles) {
+            Files.delete(staleFile);
+        }
+        return staleFiles.size();
+    }
+
+    /**
+     * Compile the mirror instead of the mirrored source roots.
+     *
+     * @param project                   project
+     * @param sourceRoots               mirrored source roots, the way the project names them
+     * @param generatedSourcesDirectory the mirror
+     */
+    public static void swapSourceRoots(
+            @NotNull MavenProject project,
+            @NotNull Collection<String> sourceRoots,
+            @NotNull File generatedSourcesDirectory
+    ) {
+        project.getCompileSourceRoots().removeAll(sourceRoots);
+        project.addCompileSourceRoot(generatedSourcesDirectory.getPath());
+    }
+
+}
@@ -1,29 +1,56 @@
 package com.xenoamess.i18n.transformer.utils;
 
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.PackageDeclaration;
 import com.github.javaparser.ast.body.AnnotationMemberDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.EnumConstantDeclaration;
 import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
 import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.expr.*;
 import com.github.javaparser.ast.nodeTypes.NodeWithArguments;
+import com.github.javaparser.ast.stmt.SwitchEntry;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.utils.StringEscapeUtils;
 import com.xenoamess.i18n.transformer.contexts.I18nTransformerContext;
+import com.xenoamess.i18n.transformer.contexts.PropertyNameIndex;
+import com.xenoamess.i18n.transformer.entities.LiteralOccurrence;
 import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import com.xenoamess.i18n.transformer.entities.TextReplacement;
+import com.xenoamess.i18n.transformer.enums.ConcatenationMode;
+import com.xenoamess.i18n.transformer.enums.ConstantMode;
+import com.xenoamess.i18n.transformer.enums.KeyStrategy;
+import com.xenoamess.i18n.transformer.enums.LiteralContextType;
+import com.xenoamess.i18n.transformer.runtime.MessageTemplate;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Pattern;
 
 public class I18nTransformerUtil {
 
+    /**
+     * Walk the tree in pre-order, handling every string literal in it.
+     * <p/>
+     * Uses an explicit stack instead of recursion, so deeply nested expressions cannot overflow the thread stack.
+     * Children are pushed as they are when their parent is visited, and skipped when popped if a handled sibling
+     * detached them meanwhile; string literals are skipped too if any of their ancestors got detached,
+     * as a whole concatenation can be replaced at once. Nodes inserted during the walk are not visited.
+     *
+     * @param node                   root of the tree
+     * @param i18nTransformerContext context of the current file
+     */
     public static void dfs(
             @Nullable Node node,
             @NotNull I18nTransformerContext i18nTransformerContext
@@ -31,32 +58,140 @@ public class I18nTransformerUtil {
         if (node == null) {
             return;
         }
-        if (node instanceof StringLiteralExpr) {
-            handleStringLiteralExpr((StringLiteralExpr) node, i18nTransformerContext);
-            return;
-        }
-        if (node instanceof ClassOrInterfaceDeclaration) {
-            Optional<String> classFullNameOptional = ((ClassOrInterfaceDeclaration) node).getFullyQualifiedName();
-            String prefixKey = classFullNameOptional.map(
-                    classFullName -> i18nTransformerContext.getPropertyBundleName() + "." + classFullName
-            ).orElseGet(
-                    () -> i18nTransformerContext.getPropertyBundleName() + "." + "default"
-            );
-            i18nTransformerContext.setPrefixKey(prefixKey);
-            i18nTransformerContext.setCurrentIndex(0);
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        stack.push(node);
+        while (!stack.isEmpty()) {
+            Node current = stack.pop();
+            if (current != node && current.getParentNode().isEmpty()) {
+                continue;
+            }
+            if (current instanceof StringLiteralExpr) {
+                if (isAttached(current, node)) {
+                    handleStringLiteralExpr((StringLiteralExpr) current, i18nTransformerContext);
+                }
+                continue;
+            }
+            if (current instanceof CompilationUnit) {
+                i18nTransformerContext.setPackageName(
+                        ((CompilationUnit) current).getPackageDeclaration().map(
+                                PackageDeclaration::getNameAsString
+                        ).orElse("")
+                );
+            }
+            if (current instanceof TypeDeclaration) {
+                Optional<String> classFullNameOptional = ((TypeDeclaration<?>) current).getFullyQualifiedName();
+                String prefixKey = classFullNameOptional.map(
+                        classFullName -> i18nTransformerContext.getPropertyBundleName() + "." + classFullName
+                ).orElseGet(
+                        () -> i18nTransformerContext.getPropertyBundleName() + "." + "default"
+                );
+                i18nTransformerContext.setPrefixKey(prefixKey);
+                i18nTransformerContext.setCurrentIndex(0);
+                if (((TypeDeclaration<?>) current).isTopLevelType()) {
+                    i18nTransformerContext.setShardBundleName(getShardBundleName(i18nTransformerContext));
+                }
+            }
+            List<Node> children = current.getChildNodes();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                Node child = children.get(i);
+                // leaves other than string literals have nothing to visit
+                if (child instanceof StringLiteralExpr || !child.getChildNodes().isEmpty()) {
+                    stack.push(child);
+                }
+            }
         }
-        List<Node> childrenMirror = new ArrayList<>(node.getChildNodes());
-        for (Node child : childrenMirror) {
-            if (child.getParentNode().isPresent()) {
-                dfs(child, i18nTransformerContext);
+    }
+
+    /**
+     * Whether node is still in the tree under root.
+     */
+    private static boolean isAttached(
+            @NotNull Node node,
+            @NotNull Node root
+    ) {
+        Node current = node;
+        while (current != root) {
+            Optional<Node> parentOptional = current.getParentNode();
+            if (parentOptional.isEmpty()) {
+                return false;
             }
+            current = parentOptional.get();
         }
+        return true;
     }
 
-    private static final Pattern PATTERN_CHINESE = Pattern.compile(".*[\\u4E00-\\u9FA5]+.*");
+    /**
+     * Whether a string literal contains any code point of the configured scripts.
+     * The verdict is cached per node, as sibling literals get checked again when their parent is handled.
+     */
+    private static boolean isTarget(
+            @NotNull StringLiteralExpr node,
+            @NotNull I18nTransformerContext i18nTransformerContext
+    ) {
+        Map<StringLiteralExpr, Boolean> literalVerdicts = i18nTransformerContext.getLiteralVerdicts();
+        Boolean verdict = literalVerdicts.get(node);
+        if (verdict == null) {
+            verdict = i18nTransformerContext.getScriptDetector().containsMatch(node.getValue());
+            literalVerdicts.put(node, verdict);
+        }
+        return verdict;
+    }
 
+    /**
+     * Name of the bundle string literals of the current top level class go into,
+     * from {@link I18nTransformerContext#getPackageName()} and {@link I18nTransformerContext#getPrefixKey()}.
+     * <p/>
+     * Shards are named like packages under the main bundle, so {@link java.util.ResourceBundle#getBundle(String)}
+     * finds them in a directory named after the main bundle.
+     *
+     * @param i18nTransformerContext context of the current file, prefixKey being the one of a top level class
+     * @return shard bundle name, or null for the main bundle
+     */
+    @Nullable
+    public static String getShardBundleName(
+            @NotNull I18nTransformerContext i18nTransformerContext
+    ) {
+        switch (i18nTransformerContext.getBundleSharding()) {
+            case PACKAGE:
+                return StringUtils.isEmpty(i18nTransformerContext.getPackageName())
+                        ? null
+                        : i18nTransformerContext.getPropertyBundleName() + "." + i18nTransformerContext.getPackageName();
+            case CLASS:
+                return i18nTransformerContext.getPrefixKey();
+            case NONE:
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Register originalString as a property, and build the expression replacing it.
+     *
+     * @param originalString         string literal content
+     * @param i18nTransformerContext context of the current file
+     * @return java expression to replace the string literal with
+     */
     @NotNull
-    private static String handleString(
+    public static String handleString(
+            @NotNull String originalString,
+            @NotNull I18nTransformerContext i18nTransformerContext
+    ) {
+        return buildReplacement(
+                registerProperty(originalString, i18nTransformerContext),
+                i18nTransformerContext.getI18nTemplate(),
+                i18nTransformerContext
+        );
+    }
+
+    /**
+     * Register originalString as a property.
+     *
+     * @param originalString         string literal content
+     * @param i18nTransformerContext context of the current file
+     * @return property name of originalString
+     */
+    @NotNull
+    public static String registerProperty(
             @NotNull String originalString,
             @NotNull I18nTransformerContext i18nTransformerContext
     ) {
@@ -68,29 +203,91 @@ public class I18nTransformerUtil {
 
         String chineseValue = originalString;
 
-        String propertyName = prefixKey + "." + currentIndex;
+        PropertyNameIndex propertyNameIndex = i18nTransformerContext.getPropertyNameIndex();
+        String existingPropertyName = propertyNameIndex.getExistingPropertyName(chineseValue);
+        if (propertyNameIndex.getKeyStrategy() == KeyStrategy.HASH) {
+            String propertyName = existingPropertyName != null
+                    ? existingPropertyName
+                    : propertyNameIndex.getHashPropertyName(
+                    getHashKeyPrefix(i18nTransformerContext),
+                    chineseValue
+            );
+            String existedPropertyName = propertyNameIndex.putIfAbsent(
+                    getDedupScopeKey(i18nTransformerContext),
+                    chineseValue,
+                    propertyName
+            );
+            if (existedPropertyName != null) {
+                propertyName = existedPropertyName;
+            }
+            // every file lists the entries it uses, so its list does not depend on other files, duplicates are merged later
+            addPropertiesEntity(propertyName, chineseValue, i18nTransformerContext);
+            return propertyName;
+        }
+
+        String propertyName;
+        if (existingPropertyName != null) {
+            propertyName = existingPropertyName;
+        } else {
+            // skip names the bundle already has for other values
+            while (propertyNameIndex.isTakenByOtherValue(prefixKey + "." + currentIndex, chineseValue)) {
+                ++currentIndex;
+            }
+            i18nTransformerContext.setCurrentIndex(currentIndex);
+            propertyName = prefixKey + "." + currentIndex;
+        }
 
         {
             // remove duplication logic
-            boolean ifAlreadyIn = false;
-            for (PropertiesEntity propertiesEntity : i18nTransformerContext.getChinesePropertiesEntities()) {
-                if (StringUtils.equals(propertiesEntity.getChineseValue(), chineseValue)) {
-                    propertyName = propertiesEntity.getPropertyName();
-                    ifAlreadyIn = true;
-                    break;
-                }
-            }
-            if (!ifAlreadyIn) {
-                i18nTransformerContext.getChinesePropertiesEntities().add(
-                        new PropertiesEntity(
-                                propertyName,
-                                chineseValue
-                        )
-                );
+            String existedPropertyName = propertyNameIndex.putIfAbsent(
+                    getDedupScopeKey(i18nTransformerContext),
+                    chineseValue,
+                    propertyName
+            );
+            if (existedPropertyName != null) {
+                propertyName = existedPropertyName;
             }
+            // every file lists the entries it uses, even those of other files, so a file reused from the cache
+            // keeps them in the bundle, and the shard of every call site gets them. duplicates are merged later
+            addPropertiesEntity(propertyName, chineseValue, i18nTransformerContext);
+        }
+        return propertyName;
+    }
+
+    /**
+     * Add an entry to the entries of the current file, unless the file already has it in the same shard.
+     */
+    private static void addPropertiesEntity(
+            @NotNull String propertyName,
+            @NotNull String chineseValue,
+            @NotNull I18nTransformerContext i18nTransformerContext
+    ) {
+        String shardBundleName = i18nTransformerContext.getShardBundleName();
+        String localPropertyName = shardBundleName == null ? propertyName : shardBundleName + "=" + propertyName;
+        if (i18nTransformerContext.getLocalPropertyNames().add(localPropertyName)) {
+            i18nTransformerContext.getChinesePropertiesEntities().add(
+                    new PropertiesEntity(
+                            propertyName,
+                            chineseValue,
+                            shardBundleName
+                    )
+            );
         }
+    }
 
-        String result = i18nTransformerContext.getI18nTemplate();
+    /**
+     * @param propertyName           property name
+     * @param template               template to fill in
+     * @param i18nTransformerContext context of the current file
+     * @return java expression to replace a string literal of propertyName with
+     */
+    @NotNull
+    private static String buildReplacement(
+            @NotNull String propertyName,
+            @NotNull String template,
+            @NotNull I18nTransformerContext i18nTransformerContext
+    ) {
+        String result = template;
         result = StringUtils.replace(
                 result,
                 "${value}",
@@ -99,8 +296,18 @@ public class I18nTransformerUtil {
         result = StringUtils.replace(
                 result,
                 "${propertyBundleName}",
-                i18nTransformerContext.getPropertyBundleName()
+                StringUtils.defaultString(
+                        i18nTransformerContext.getShardBundleName(),
+                        i18nTransformerContext.getPropertyBundleName()
+                )
         );
+        if (result.contains("${accessorMethodName}")) {
+            result = StringUtils.replace(
+                    result,
+                    "${accessorMethodName}",
+                    AccessorGeneratorUtil.toMethodName(propertyName)
+            );
+        }
         String identifier = i18nTransformerContext.getIdentifier();
         String[] identifiers = identifier.split("[\\\\/.]+");
         boolean haveJava = false;
@@ -128,17 +335,347 @@ public class I18nTransformerUtil {
         return result;
     }
 
+    /**
+     * Prefix of {@link KeyStrategy#HASH} property names, the widest name that still identifies the dedup scope.
+     */
+    @NotNull
+    private static String getHashKeyPrefix(
+            @NotNull I18nTransformerContext i18nTransformerContext
+    ) {
+        String propertyBundleName = i18nTransformerContext.getPropertyBundleName();
+        switch (i18nTransformerContext.getPropertyNameIndex().getDedupScope()) {
+            case PACKAGE:
+                return StringUtils.isEmpty(i18nTransformerContext.getPackageName())
+                        ? propertyBundleName
+                        : propertyBundleName + "." + i18nTransformerContext.getPackageName();
+            case MODULE:
+                return propertyBundleName;
+            case CLASS:
+            case FILE:
+            default:
+                return String.valueOf(i18nTransformerContext.getPrefixKey());
+        }
+    }
+
+    @NotNull
+    private static String getDedupScopeKey(
+            @NotNull I18nTransformerContext i18nTransformerContext
+    ) {
+        switch (i18nTransformerContext.getPropertyNameIndex().getDedupScope()) {
+            case CLASS:
+                return String.valueOf(i18nTransformerContext.getPrefixKey());
+            case PACKAGE:
+                return String.valueOf(i18nTransformerContext.getPackageName());
+            case MODULE:
+                return "";
+            case FILE:
+            default:
+                return i18nTransformerContext.getIdentifier();
+        }
+    }
+
+    /**
+     * Record the source text replacement of a string literal, for rewriting the file without re-printing it.
+     */
+    private static void recordReplacement(
+            @NotNull Node originalNode,
+            @NotNull String replacement,
+            @NotNull I18nTransformerContext i18nTransformerContext
+    ) {
+        Optional<Range> rangeOptional = originalNode.getRange();
+        if (rangeOptional.isEmpty()) {
+            i18nTransformerContext.setStructurallyModified(true);
+            return;
+        }
+        Range range = rangeOptional.get();
+        i18nTransformerContext.getTextReplacements().add(
+                new TextReplacement(
+                        range.begin.line,
+                        range.begin.column,
+                        range.end.line,
+                        range.end.column,
+                        replacement
+                )
+        );
+    }
+
+    /**
+     * Classify a string literal the same way {@link #handleStringLiteralExpr} decides how to replace it.
+     *
+     * @param node string literal
+     * @return context type of the literal
+     */
+    @NotNull
+    public static LiteralContextType getLiteralContextType(
+            @NotNull StringLiteralExpr node
+    ) {
+        Optional<Node> parentOptional = node.getParentNode();
+        if (parentOptional.isEmpty()) {
+            return LiteralContextType.OTHER;
+        }
+        Node parentNode = parentOptional.get();
+        if (parentNode instanceof VariableDeclarator) {
+            Optional<Node> parentParentOptional = parentNode.getParentNode();
+            if (parentParentOptional.isEmpty()) {
+                return LiteralContextType.OTHER;
+            }
+            Node parentParentNode = parentParentOptional.get();
+            if (parentParentNode instanceof FieldDeclaration) {
+                if (((FieldDeclaration) parentParentNode).isStatic()) {
+                    return LiteralContextType.STATIC_FIELD;
+                }
+                Optional<Node> parentParentParentOptional = parentParentNode.getParentNode();
+                if (parentParentParentOptional.isPresent() && parentParentParentOptional.get() instanceof ClassOrInterfaceDeclaration && ((ClassOrInterfaceDeclaration) parentParentParentOptional.get()).isInterface()) {
+                    return LiteralContextType.STATIC_FIELD;
+                }
+                return LiteralContextType.FIELD;
+            } else if (parentParentNode instanceof VariableDeclarationExpr) {
+                return LiteralContextType.LOCAL_VARIABLE;
+            }
+            return LiteralContextType.OTHER;
+        } else if (parentNode instanceof EnumConstantDeclaration) {
+            return LiteralContextType.ENUM_CONSTANT;
+        } else if (parentNode instanceof NodeWithArguments) {
+            return LiteralContextType.ARGUMENT;
+        } else if (parentNode instanceof ArrayInitializerExpr) {
+            return LiteralContextType.ARRAY_INITIALIZER;
+        } else if (parentNode instanceof BinaryExpr) {
+            return LiteralContextType.BINARY_EXPRESSION;
+        } else if (parentNode instanceof SingleMemberAnnotationExpr || parentNode instanceof MemberValuePair || parentNode instanceof AnnotationMemberDeclaration) {
+            return LiteralContextType.ANNOTATION;
+        }
+        return LiteralContextType.OTHER;
+    }
+
+    /**
+     * Replace the whole <code>+</code> chain node is an operand of by one property,
+     * with a <code>{n}</code> placeholder for every operand which is not a string literal.
+     * <p/>
+     * Operands before the first string literal are not string concatenations yet, so they stay one argument together.
+     * Chains with Chinese string literals inside other operands are not collapsed,
+     * as those operands get copied into the replacement as source text.
+     * All string literals of such a chain are replaced one by one at once instead,
+     * so later operands are not collapsed with the already replaced ones as their argument.
+     *
+     * @param node                   string literal in the chain
+     * @param i18nTransformerContext context of the current file
+     * @return whether the chain got replaced, if not node is to be replaced on its own
+     */
+    private static boolean handleConcatenation(
+            @NotNull StringLiteralExpr node,
+            @NotNull I18nTransformerContext i18nTransformerContext
+    ) {
+        String formatTemplate = i18nTransformerContext.getFormatTemplate();
+        if (formatTemplate == null) {
+            return false;
+        }
+        // the chain is left associative, so only the first step up may come from a right operand
+        BinaryExpr root = null;
+        Node current = node;
+        while (current.getParentNode().isPresent()) {
+            Node parent = current.getParentNode().get();
+            if (!(parent instanceof BinaryExpr) || ((BinaryExpr) parent).getOperator() != BinaryExpr.Operator.PLUS) {
+                break;
+            }
+            if (root != null && ((BinaryExpr) parent).getLeft() != current) {
+                break;
+            }
+            root = (BinaryExpr) parent;
+            current = parent;
+        }
+        if (root == null) {
+            return false;
+        }
+        List<Expression> operands = new ArrayList<>();
+        List<Expression> prefixes = new ArrayList<>();
+        Expression left = root;
+        while (left instanceof BinaryExpr && ((BinaryExpr) left).getOperator() == BinaryExpr.Operator.PLUS) {
+            operands.add(((BinaryExpr) left).getRight());
+            prefixes.add(((BinaryExpr) left).getLeft());
+            left = ((BinaryExpr) left).getLeft();
+        }
+        operands.add(left);
+        prefixes.add(null);
+        Collections.reverse(operands);
+        Collections.reverse(prefixes);
+
+        int firstStringIndex = 0;
+        while (!(operands.get(firstStringIndex) instanceof StringLiteralExpr)) {
+            firstStringIndex++;
+        }
+        List<Expression> arguments = new ArrayList<>();
+        if (firstStringIndex > 0) {
+            // prefixes.get(i) is the chain of all operands before i
+            arguments.add(prefixes.get(firstStringIndex));
+        }
+        for (int i = firstStringIndex + 1; i < operands.size(); i++) {
+            if (!(operands.get(i) instanceof StringLiteralExpr)) {
+                arguments.add(operands.get(i));
+            }
+        }
+        for (Expression argument : arguments) {
+            if (argument.findFirst(
+                    StringLiteralExpr.class,
+                    stringLiteralExpr -> isTarget(stringLiteralExpr, i18nTransformerContext)
+            ).isPresent()) {
+                for (Expression operand : operands) {
+                    if (operand instanceof StringLiteralExpr && isTarget((StringLiteralExpr) operand, i18nTransformerContext)) {
+                        if (operand != node) {
+                            countLiteral((StringLiteralExpr) operand, i18nTransformerContext);
+                        }
+                        String handleResultString = handleString(((StringLiteralExpr) operand).getValue(), i18nTransformerContext);
+                        recordReplacement(operand, handleResultString, i18nTransformerContext);
+                        operand.replace(new NameExpr(handleResultString));
+                    }
+                }
+                return true;
+            }
+        }
+
+        for (Expression operand : operands) {
+            if (operand != node
+                    && operand instanceof StringLiteralExpr
+                    && isTarget((StringLiteralExpr) operand, i18nTransformerContext)) {
+                countLiteral((StringLiteralExpr) operand, i18nTransformerContext);
+            }
+        }
+        String replacement;
+        if (arguments.isEmpty()) {
+            StringBuilder value = new StringBuilder();
+            for (Expression operand : operands) {
+                value.append(((StringLiteralExpr) operand).getValue());
+            }
+            replacement = handleString(value.toString(), i18nTransformerContext);
+        } else {
+            StringBuilder pattern = new StringBuilder();
+            int argumentIndex = 0;
+            if (firstStringIndex > 0) {
+                pattern.append('{').append(argumentIndex++).append('}');
+            }
+            for (int i = firstStringIndex; i < operands.size(); i++) {
+                Expression operand = operands.get(i);
+                if (operand instanceof StringLiteralExpr) {
+                    pattern.append(
+                            MessageTemplate.quote(StringEscapeUtils.unescapeJava(((StringLiteralExpr) operand).getValue()))
+                    );
+                } else {
+                    pattern.append('{').append(argumentIndex++).append('}');
+                }
+            }
+            StringBuilder argumentsSource = new StringBuilder();
+            if (arguments.size() == 1) {
+                // a single array argument would become the varargs array itself
+                argumentsSource.append("(Object) ").append(toOperandSource(arguments.get(0)));
+            } else {
+                for (Expression argument : arguments) {
+                    if (argumentsSource.length() > 0) {
+                        argumentsSource.append(", ");
+                    }
+                    argumentsSource.append(argument);
+                }
+            }
+            replacement = buildReplacement(
+                    registerProperty(StringEscapeUtils.escapeJava(pattern.toString()), i18nTransformerContext),
+                    StringUtils.replace(formatTemplate, "${arguments}", argumentsSource.toString()),
+                    i18nTransformerContext
+            );
+        }
+        recordReplacement(root, replacement, i18nTransformerContext);
+        root.replace(new NameExpr(replacement));
+        return true;
+    }
+
+    /**
+     * @return source of expression, parenthesized unless it binds tighter than a cast
+     */
+    @NotNull
+    private static String toOperandSource(@NotNull Expression expression) {
+        if (expression instanceof NameExpr
+                || expression instanceof LiteralExpr
+                || expression instanceof MethodCallExpr
+                || expression instanceof FieldAccessExpr
+                || expression instanceof ArrayAccessExpr
+                || expression instanceof EnclosedExpr) {
+            return expression.toString();
+        }
+        return "(" + expression + ")";
+    }
+
+    /**
+     * Whether a field is referred to by name in a case label or an annotation of its file, which need constants.
+     * Fields of the same name in other classes count too.
+     */
+    private static boolean isUsedAsConstant(@NotNull VariableDeclarator variableDeclarator) {
+        Optional<CompilationUnit> compilationUnitOptional = variableDeclarator.findCompilationUnit();
+        if (compilationUnitOptional.isEmpty()) {
+            return false;
+        }
+        String name = variableDeclarator.getNameAsString();
+        for (SwitchEntry switchEntry : compilationUnitOptional.get().findAll(SwitchEntry.class)) {
+            for (Expression label : switchEntry.getLabels()) {
+                if (refersTo(label, name)) {
+                    return true;
+                }
+            }
+        }
+        for (AnnotationExpr annotationExpr : compilationUnitOptional.get().findAll(AnnotationExpr.class)) {
+            if (refersTo(annotationExpr, name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean refersTo(
+            @NotNull Node node,
+            @NotNull String name
+    ) {
+        return node.findFirst(NameExpr.class, nameExpr -> nameExpr.getNameAsString().equals(name)).isPresent()
+                || node.findFirst(FieldAccessExpr.class, fieldAccessExpr -> fieldAccessExpr.getNameAsString().equals(name)).isPresent();
+    }
+
+    /**
+     * Count a string literal by its context type, literals replaced together with a visited sibling are counted too.
+     */
+    private static void countLiteral(
+            @NotNull StringLiteralExpr node,
+            @NotNull I18nTransformerContext i18nTransformerContext
+    ) {
+        i18nTransformerContext.getLiteralCounts().merge(getLiteralContextType(node), 1, Integer::sum);
+    }
+
+    private static void warn(
+            @NotNull I18nTransformerContext i18nTransformerContext,
+            @NotNull String message
+    ) {
+        i18nTransformerContext.getWarningConsumer().accept(message + " at file : " + i18nTransformerContext.getIdentifier());
+    }
+
     private static void handleStringLiteralExpr(
             @NotNull StringLiteralExpr node,
             @NotNull I18nTransformerContext i18nTransformerContext
     ) {
-        if (!PATTERN_CHINESE.matcher(node.getValue()).matches()) {
+        if (!isTarget(node, i18nTransformerContext)) {
             // not Chinese
             return;
         }
+        if (i18nTransformerContext.isReportOnly()) {
+            Optional<Range> rangeOptional = node.getRange();
+            i18nTransformerContext.getLiteralOccurrences().add(
+                    new LiteralOccurrence(
+                            i18nTransformerContext.getIdentifier(),
+                            rangeOptional.map(range -> range.begin.line).orElse(0),
+                            rangeOptional.map(range -> range.begin.column).orElse(0),
+                            getLiteralContextType(node),
+                            node.getValue()
+                    )
+            );
+            return;
+        }
+        countLiteral(node, i18nTransformerContext);
         Optional<Node> parentOptional = node.getParentNode();
         if (parentOptional.isEmpty()) {
-            System.err.println("warn: StringLiteralExpr have no parent : " + node + " at file : " + i18nTransformerContext.getIdentifier());
+            warn(i18nTransformerContext, "StringLiteralExpr have no parent : " + node);
             return;
         }
         Node parentNode = parentOptional.get();
@@ -160,8 +697,15 @@ public class I18nTransformerUtil {
                         if (parentParentParentOptional.isPresent() && parentParentParentOptional.get() instanceof ClassOrInterfaceDeclaration && ((ClassOrInterfaceDeclaration) parentParentParentOptional.get()).isInterface()) {
                             canModify = false;
                         }
-                        if (!canModify) {
-                            System.err.println("warn: change static field but still need manually handle: " + parentParentNode + " at file : " + i18nTransformerContext.getIdentifier());
+                        if (!canModify
+                                && i18nTransformerContext.getConstantMode() == ConstantMode.CACHED
+                                && isUsedAsConstant(variableDeclarator)) {
+                            // a field initialized at runtime is no constant any more, so these usages would not compile
+                            String propertyName = registerProperty(node.getValue(), i18nTransformerContext);
+                            warn(i18nTransformerContext, "static field used in a case label or annotation registered as " + propertyName + " but not replaced : " + parentParentNode);
+                        } else if (!canModify && i18nTransformerContext.getConstantMode() == ConstantMode.SUPPLIER) {
+                            warn(i18nTransformerContext, "change static field but still need manually handle: " + parentParentNode);
+                            i18nTransformerContext.setStructurallyModified(true);
                             variableDeclarator.setType(
                                     "java.util.function.Supplier<String>"
                             );
@@ -172,36 +716,39 @@ public class I18nTransformerUtil {
                                     "() -> (" + handleResultString + ")"
                             );
                         } else {
+                            recordReplacement(node, handleResultString, i18nTransformerContext);
                             variableDeclarator.setInitializer(
                                     handleResultString
                             );
                         }
                     } else if (parentParentNode instanceof VariableDeclarationExpr) {
                         Optional<Expression> initializer = variableDeclarator.getInitializer();
+                        String handleResultString = handleString(
+                                node.getValue(),
+                                i18nTransformerContext
+                        );
+                        recordReplacement(node, handleResultString, i18nTransformerContext);
                         variableDeclarator.setInitializer(
-                                handleString(
-                                        node.getValue(),
-                                        i18nTransformerContext
-                                )
+                                handleResultString
                         );
                     }
                 }
             }
             return;
-        } else if (parentNode instanceof EnumConstantDeclaration) {
-            System.err.println("warn: EnumConstantDeclaration need manual change : " + parentNode + " at file : " + i18nTransformerContext.getIdentifier());
+        } else if (parentNode instanceof EnumConstantDeclaration && i18nTransformerContext.getConstantMode() == ConstantMode.SUPPLIER) {
+            warn(i18nTransformerContext, "EnumConstantDeclaration need manual change : " + parentNode);
         } else if (parentNode instanceof NodeWithArguments) {
             NodeList<Expression> arguments = ((NodeWithArguments<?>) parentNode).getArguments();
-            List<Pair<Integer, String>> modifyList = new ArrayList<>(arguments.size());
+            List<Pair<Integer, StringLiteralExpr>> modifyList = new ArrayList<>(arguments.size());
             int i = -1;
             for (Expression expression : arguments) {
                 ++i;
                 if (expression instanceof StringLiteralExpr) {
-                    if (PATTERN_CHINESE.matcher(((StringLiteralExpr) expression).getValue()).matches()) {
+                    if (isTarget((StringLiteralExpr) expression, i18nTransformerContext)) {
                         modifyList.add(
                                 Pair.of(
                                         i,
-                                        ((StringLiteralExpr) expression).getValue()
+                                        (StringLiteralExpr) expression
                                 )
 
                         );
@@ -209,30 +756,35 @@ public class I18nTransformerUtil {
                 }
             }
 
-            for (Pair<Integer, String> modifySingle : modifyList) {
+            for (Pair<Integer, StringLiteralExpr> modifySingle : modifyList) {
+                if (modifySingle.getValue() != node) {
+                    countLiteral(modifySingle.getValue(), i18nTransformerContext);
+                }
+                String handleResultString = handleString(
+                        modifySingle.getValue().getValue(),
+                        i18nTransformerContext
+                );
+                recordReplacement(modifySingle.getValue(), handleResultString, i18nTransformerContext);
                 ((NodeWithArguments<?>) parentNode).setArgument(
                         modifySingle.getKey(),
                         new NameExpr(
-                                handleString(
-                                        node.getValue(),
-                                        i18nTransformerContext
-                                )
+                                handleResultString
                         )
                 );
             }
 
         } else if (parentNode instanceof ArrayInitializerExpr) {
             NodeList<Expression> arguments = ((ArrayInitializerExpr) parentNode).getValues();
-            List<Pair<Integer, String>> modifyList = new ArrayList<>(arguments.size());
+            List<Pair<Integer, StringLiteralExpr>> modifyList = new ArrayList<>(arguments.size());
             int i = -1;
             for (Expression expression : arguments) {
                 ++i;
                 if (expression instanceof StringLiteralExpr) {
-                    if (PATTERN_CHINESE.matcher(((StringLiteralExpr) expression).getValue()).matches()) {
+                    if (isTarget((StringLiteralExpr) expression, i18nTransformerContext)) {
                         modifyList.add(
                                 Pair.of(
                                         i,
-                                        ((StringLiteralExpr) expression).getValue()
+                                        (StringLiteralExpr) expression
                                 )
 
                         );
@@ -240,14 +792,19 @@ public class I18nTransformerUtil {
                 }
             }
 
-            for (Pair<Integer, String> modifySingle : modifyList) {
+            for (Pair<Integer, StringLiteralExpr> modifySingle : modifyList) {
+                if (modifySingle.getValue() != node) {
+                    countLiteral(modifySingle.getValue(), i18nTransformerContext);
+                }
+                String handleResultString = handleString(
+                        modifySingle.getValue().getValue(),
+                        i18nTransformerContext
+                );
+                recordReplacement(modifySingle.getValue(), handleResultString, i18nTransformerContext);
                 arguments.set(
                         modifySingle.getKey(),
                         new NameExpr(
-                                handleString(
-                                        node.getValue(),
-                                        i18nTransformerContext
-                                )
+                                handleResultString
                         )
                 );
             }
@@ -255,16 +812,25 @@ public class I18nTransformerUtil {
                     arguments
             );
         } else if (parentNode instanceof BinaryExpr) {
+            if (i18nTransformerContext.getConcatenationMode() == ConcatenationMode.PLACEHOLDER
+                    && handleConcatenation(node, i18nTransformerContext)) {
+                return;
+            }
             {
                 Expression left = ((BinaryExpr) parentNode).getLeft();
                 if (left instanceof StringLiteralExpr) {
-                    if (PATTERN_CHINESE.matcher(((StringLiteralExpr) left).getValue()).matches()) {
+                    if (isTarget((StringLiteralExpr) left, i18nTransformerContext)) {
+                        if (left != node) {
+                            countLiteral((StringLiteralExpr) left, i18nTransformerContext);
+                        }
+                        String handleResultString = handleString(
+                                ((StringLiteralExpr) left).getValue(),
+                                i18nTransformerContext
+                        );
+                        recordReplacement(left, handleResultString, i18nTransformerContext);
                         ((BinaryExpr) parentNode).setLeft(
                                 new NameExpr(
-                                        handleString(
-                                                ((StringLiteralExpr) left).getValue(),
-                                                i18nTransformerContext
-                                        )
+                                        handleResultString
                                 )
                         );
                     }
@@ -273,22 +839,33 @@ public class I18nTransformerUtil {
             {
                 Expression right = ((BinaryExpr) parentNode).getRight();
                 if (right instanceof StringLiteralExpr) {
-                    if (PATTERN_CHINESE.matcher(((StringLiteralExpr) right).getValue()).matches()) {
+                    if (isTarget((StringLiteralExpr) right, i18nTransformerContext)) {
+                        if (right != node) {
+                            countLiteral((StringLiteralExpr) right, i18nTransformerContext);
+                        }
+                        String handleResultString = handleString(
+                                ((StringLiteralExpr) right).getValue(),
+                                i18nTransformerContext
+                        );
+                        recordReplacement(right, handleResultString, i18nTransformerContext);
                         ((BinaryExpr) parentNode).setRight(
                                 new NameExpr(
-                                        handleString(
-                                                ((StringLiteralExpr) right).getValue(),
-                                                i18nTransformerContext
-                                        )
+                                        handleResultString
                                 )
                         );
                     }
                 }
             }
         } else if (parentNode instanceof SingleMemberAnnotationExpr || parentNode instanceof MemberValuePair || parentNode instanceof AnnotationMemberDeclaration) {
-            System.err.println("unhandled annotation : " + parentNode.getClass().getName() + " for node " + parentNode + " at file : " + i18nTransformerContext.getIdentifier());
+            if (i18nTransformerContext.getConstantMode() == ConstantMode.CACHED) {
+                // annotation values must stay constants, only make the message available in the bundle
+                String propertyName = registerProperty(node.getValue(), i18nTransformerContext);
+                warn(i18nTransformerContext, "annotation value registered as " + propertyName + " but not replaced : " + parentNode);
+                return;
+            }
+            warn(i18nTransformerContext, "unhandled annotation : " + parentNode.getClass().getName() + " for node " + parentNode);
         } else {
-            System.err.println("unhandled class : " + parentNode.getClass().getName() + " for node " + parentNode + " at file : " + i18nTransformerContext.getIdentifier());
+            warn(i18nTransformerContext, "unhandled class : " + parentNode.getClass().getName() + " for node " + parentNode);
         }
 
     }
@@ -0,0 +1,59 @@
+package com.xenoamess.i18n.transformer.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Just enough json writing for the reports of this plugin, without a json library.
+ */
+public class JsonUtil {
+
+    private JsonUtil() {
+    }
+
+    /**
+     * Append a string as a json string literal, or <code>null</code>.
+     *
+     * @param stringBuilder string builder to append to
+     * @param value         string value
+     * @return stringBuilder
+     */
+    @NotNull
+    public static StringBuilder appendString(
+            @NotNull StringBuilder stringBuilder,
+            @Nullable String value
+    ) {
+        if (value == null) {
+            return stringBuilder.append("null");
+        }
+        stringBuilder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    stringBuilder.append("\\\"");
+                    break;
+                case '\\':
+                    stringBuilder.append("\\\\");
+                    break;
+                case '\n':
+                    stringBuilder.append("\\n");
+                    break;
+                case '\r':
+                    stringBuilder.append("\\r");
+                    break;
+                case '\t':
+                    stringBuilder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        stringBuilder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        stringBuilder.append(c);
+                    }
+            }
+        }
+        return stringBuilder.append('"');
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.xenoamess.i18n.transformer.utils;
+
+import com.xenoamess.i18n.transformer.detectors.ScriptDetector;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fast check on raw file content, to find out whether a java file can contain any string literal to transform at all.
+ * <p/>
+ * Files that fail this check do not need to be parsed.
+ * The check is conservative: it looks at the whole file rather than only at string literals,
+ * and it also accepts characters written as unicode escapes like <code>&#92;u4E2D</code>.
+ */
+public class PreScanUtil {
+
+    /**
+     * @param content        file content
+     * @param charset        encoding of the file
+     * @param scriptDetector scripts to look for
+     * @return false if content surely contains no code point scriptDetector matches
+     */
+    public static boolean mayContainMatch(
+            @NotNull byte[] content,
+            @NotNull Charset charset,
+            @NotNull ScriptDetector scriptDetector
+    ) {
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            return mayContainMatchUtf8(content, scriptDetector);
+        }
+        CharBuffer charBuffer = charset.decode(ByteBuffer.wrap(content));
+        if (scriptDetector.containsMatch(charBuffer)) {
+            return true;
+        }
+        int length = charBuffer.length();
+        for (int i = 0; i < length; i++) {
+            if (charBuffer.get(i) == '\\' && isMatchedUnicodeEscape(charBuffer, i, length, scriptDetector)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean mayContainMatchUtf8(
+            @NotNull byte[] content,
+            @NotNull ScriptDetector scriptDetector
+    ) {
+        int length = content.length;
+        for (int i = 0; i < length; i++) {
+            int b = content[i] & 0xFF;
+            if (b < 0x80) {
+                if (b == '\\' && isMatchedUnicodeEscape(content, i, length, scriptDetector)) {
+                    return true;
+                }
+                if (scriptDetector.matches(b)) {
+                    return true;
+                }
+                continue;
+            }
+            int codePoint;
+            int trailingByteCount;
+            if ((b & 0xE0) == 0xC0) {
+                codePoint = b & 0x1F;
+                trailingByteCount = 1;
+            } else if ((b & 0xF0) == 0xE0) {
+                codePoint = b & 0x0F;
+                trailingByteCount = 2;
+            } else if ((b & 0xF8) == 0xF0) {
+                codePoint = b & 0x07;
+                trailingByteCount = 3;
+            } else {
+                // stray continuation byte
+                continue;
+            }
+            if (i + trailingByteCount >= length) {
+                return false;
+            }
+            for (int j = 1; j <= trailingByteCount; j++) {
+                codePoint = (codePoint << 6) | (content[i + j] & 0x3F);
+            }
+            if (scriptDetector.matches(codePoint)) {
+                return true;
+            }
+            i += trailingByteCount;
+        }
+        return false;
+    }
+
+    /**
+     * A unicode escape is a backslash, one or more 'u', and 4 hex digits.
+     * An escaped high surrogate is accepted whenever supplementary code points are detected.
+     */
+    private static boolean isMatchedUnicodeEscape(
+            @NotNull byte[] content,
+            int index,
+            int length,
+            @NotNull ScriptDetector scriptDetector
+    ) {
+        int i = index + 1;
+        if (i >= length || content[i] != 'u') {
+            return false;
+        }
+        while (i < length && content[i] == 'u') {
+            i++;
+        }
+        if (i + 4 > length) {
+            return false;
+        }
+        int codePoint = 0;
+        for (int j = i; j < i + 4; j++) {
+            int digit = Character.digit(content[j], 16);
+            if (digit < 0) {
+                return false;
+            }
+            codePoint = (codePoint << 4) | digit;
+        }
+        return isMatchedEscapedChar(codePoint, scriptDetector);
+    }
+
+    private static boolean isMatchedUnicodeEscape(
+            @NotNull CharBuffer content,
+            int index,
+            int length,
+            @NotNull ScriptDetector scriptDetector
+    ) {
+        int i = index + 1;
+        if (i >= length || content.get(i) != 'u') {
+            return false;
+        }
+        while (i < length && content.get(i) == 'u') {
+            i++;
+        }
+        if (i + 4 > length) {
+            return false;
+        }
+        int codePoint = 0;
+        for (int j = i; j < i + 4; j++) {
+            int digit = Character.digit(content.get(j), 16);
+            if (digit < 0) {
+                return false;
+            }
+            codePoint = (codePoint << 4) | digit;
+        }
+        return isMatchedEscapedChar(codePoint, scriptDetector);
+    }
+
+    private static boolean isMatchedEscapedChar(
+            int c,
+            @NotNull ScriptDetector scriptDetector
+    ) {
+        if (Character.isHighSurrogate((char) c)) {
+            return scriptDetector.hasSupplementaryRanges();
+        }
+        return scriptDetector.matches(c);
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.xenoamess.i18n.transformer.utils;
+
+import com.github.javaparser.utils.StringEscapeUtils;
+import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Read properties files written by {@link PropertiesWriterUtil} back into properties entities, in file order.
+ */
+public class PropertiesReaderUtil {
+
+    /**
+     * @param path properties file, encoded in UTF-8
+     * @return properties entities, values escaped as java string literal content again
+     * @throws IOException if any
+     */
+    @NotNull
+    public static List<PropertiesEntity> read(@NotNull Path path) throws IOException {
+        List<PropertiesEntity> propertiesEntities = new ArrayList<>();
+        Properties properties = new Properties() {
+            @Override
+            public synchronized Object put(Object key, Object value) {
+                propertiesEntities.add(
+                        new PropertiesEntity(
+                                (String) key,
+                                StringEscapeUtils.escapeJava((String) value)
+                        )
+                );
+                return super.put(key, value);
+            }
+        };
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return propertiesEntities;
+    }
+
+    /**
+     * Find every shard bundle under the directory named after the main bundle, in path order,
+     * whichever sharding they were written with.
+     * Shards are looked up like classes, so the directories below are the dots of their names.
+     *
+     * @param resourcesDirectory directory the main bundle is in
+     * @param propertyBundleName name of the main bundle
+     * @param extension          extension of the bundle files, with the dot
+     * @return names of the shard bundles
+     * @throws IOException if any
+     */
+    @NotNull
+    public static List<String> findShardBundleNames(
+            @NotNull Path resourcesDirectory,
+            @NotNull String propertyBundleName,
+            @NotNull String extension
+    ) throws IOException {
+        Path shardDirectory = resourcesDirectory.resolve(propertyBundleName.replace('.', '/'));
+        List<String> shardBundleNames = new ArrayList<>();
+        if (!Files.isDirectory(shardDirectory)) {
+            return shardBundleNames;
+        }
+        List<Path> shardFiles;
+        try (Stream<Path> paths = Files.walk(shardDirectory)) {
+            shardFiles = paths.filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().endsWith(extension)
+                            && !path.getFileName().toString().endsWith("_zh_CN" + extension))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        for (Path shardFile : shardFiles) {
+            String relativePath = shardDirectory.relativize(shardFile).toString();
+            shardBundleNames.add(
+                    propertyBundleName + "."
+                            + relativePath.substring(0, relativePath.length() - extension.length()).replace(File.separatorChar, '.')
+            );
+        }
+        return shardBundleNames;
+    }
+
+}
@@ -0,0 +1,236 @@
+package com.xenoamess.i18n.transformer.utils;
+
+import com.github.javaparser.utils.StringEscapeUtils;
+import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Write properties entities in properties file format, encoded in UTF-8.
+ * <p/>
+ * Values are java string literal contents, they are unescaped first,
+ * then keys and values are escaped so that {@link java.util.Properties#load(java.io.Reader)} reads them back unchanged.
+ * Non ASCII characters are written as they are.
+ */
+public class PropertiesWriterUtil {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * @param propertiesEntities properties entities
+     * @return content of the properties file
+     */
+    @NotNull
+    public static String toPropertiesString(@NotNull List<PropertiesEntity> propertiesEntities) {
+        StringWriter stringWriter = new StringWriter();
+        try {
+            writeEntries(propertiesEntities, stringWriter);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return stringWriter.toString();
+    }
+
+    /**
+     * @param propertiesEntities properties entities
+     * @param writer             writer to write lines to, not closed
+     * @throws IOException if any
+     */
+    public static void writeEntries(
+            @NotNull List<PropertiesEntity> propertiesEntities,
+            @NotNull Writer writer
+    ) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (PropertiesEntity propertiesEntity : propertiesEntities) {
+            line.setLength(0);
+            escape(line, propertiesEntity.getPropertyName(), true);
+            line.append('=');
+            escape(line, StringEscapeUtils.unescapeJava(propertiesEntity.getChineseValue()), false);
+            line.append('\n');
+            writer.append(line);
+        }
+    }
+
+    /**
+     * Write the same properties file to every target, streaming entries to disk.
+     * <p/>
+     * The content goes to a temp file next to the first target first, and every target is then replaced by an atomic rename,
+     * so readers never see a half written file.
+     * Targets whose content is already the same are not touched at all, keeping their modification time.
+     *
+     * @param propertiesEntities properties entities
+     * @param targets            properties files to write
+     * @return number of targets actually written
+     * @throws IOException if any
+     */
+    public static int writeIfChanged(
+            @NotNull List<PropertiesEntity> propertiesEntities,
+            @NotNull List<Path> targets
+    ) throws IOException {
+        if (targets.isEmpty()) {
+            return 0;
+        }
+        Path firstTarget = targets.get(0).toAbsolutePath();
+        Files.createDirectories(firstTarget.getParent());
+        Path tempFile = getTempFile(firstTarget);
+        try {
+            MessageDigest messageDigest = newMessageDigest();
+            try (
+                    FileChannel fileChannel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                    Writer writer = new BufferedWriter(
+                            new OutputStreamWriter(
+                                    new DigestOutputStream(Channels.newOutputStream(fileChannel), messageDigest),
+                                    StandardCharsets.UTF_8
+                            ),
+                            BUFFER_SIZE
+                    )
+            ) {
+                writeEntries(propertiesEntities, writer);
+            }
+            byte[] contentHash = messageDigest.digest();
+            long contentSize = Files.size(tempFile);
+
+            int writtenCount = 0;
+            // the temp file itself is moved to the first target last, others get copies of it
+            for (int i = targets.size() - 1; i >= 0; i--) {
+                Path target = targets.get(i).toAbsolutePath();
+                if (hasContent(target, contentSize, contentHash)) {
+                    continue;
+                }
+                if (i == 0) {
+                    moveAtomically(tempFile, target);
+                } else {
+                    Files.createDirectories(target.getParent());
+                    Path copy = getTempFile(target);
+                    try {
+                        Files.copy(tempFile, copy, StandardCopyOption.REPLACE_EXISTING);
+                        moveAtomically(copy, target);
+                    } finally {
+                        Files.deleteIfExists(copy);
+                    }
+                }
+                writtenCount++;
+            }
+            return writtenCount;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static void escape(
+            @NotNull StringBuilder stringBuilder,
+            @NotNull String string,
+            boolean isKey
+    ) {
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case ' ':
+                    if (isKey || i == 0) {
+                        stringBuilder.append('\\');
+                    }
+                    stringBuilder.append(' ');
+                    break;
+                case '\t':
+                    stringBuilder.append("\\t");
+                    break;
+                case '\n':
+                    stringBuilder.append("\\n");
+                    break;
+                case '\r':
+                    stringBuilder.append("\\r");
+                    break;
+                case '\f':
+                    stringBuilder.append("\\f");
+                    break;
+                case '\\':
+                    stringBuilder.append("\\\\");
+                    break;
+                case '=':
+                case ':':
+                case '#':
+                case '!':
+                    // only separators and comment markers in keys are special, values are taken as they are
+                    if (isKey) {
+                        stringBuilder.append('\\');
+                    }
+                    stringBuilder.append(c);
+                    break;
+                default:
+                    if (c < 0x20 || c == 0x7F) {
+                        stringBuilder.append(String.format("\\u%04X", (int) c));
+                    } else {
+                        stringBuilder.append(c);
+                    }
+            }
+        }
+    }
+
+    /**
+     * Not {@link Files#createTempFile}, which would leave the target owner-only readable after the rename.
+     */
+    @NotNull
+    static Path getTempFile(@NotNull Path target) {
+        return target.resolveSibling(target.getFileName() + ".tmp");
+    }
+
+    static boolean hasContent(
+            @NotNull Path path,
+            long size,
+            @NotNull byte[] hash
+    ) throws IOException {
+        if (!Files.isRegularFile(path) || Files.size(path) != size) {
+            return false;
+        }
+        MessageDigest messageDigest = newMessageDigest();
+        try (InputStream inputStream = new DigestInputStream(Files.newInputStream(path), messageDigest)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (inputStream.read(buffer) >= 0) {
+                // only digesting
+            }
+        }
+        return Arrays.equals(messageDigest.digest(), hash);
+    }
+
+    static void moveAtomically(
+            @NotNull Path source,
+            @NotNull Path target
+    ) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @NotNull
+    static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported", e);
+        }
+    }
+
+}
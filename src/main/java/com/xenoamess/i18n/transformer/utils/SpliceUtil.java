@@ -0,0 +1,85 @@
+package com.xenoamess.i18n.transformer.utils;
+
+import com.xenoamess.i18n.transformer.entities.TextReplacement;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Apply {@link TextReplacement}s to source text, keeping every other character untouched.
+ */
+public class SpliceUtil {
+
+    /**
+     * @param source           original source text
+     * @param textReplacements replacements, must not overlap
+     * @return source text with replacements applied
+     */
+    @NotNull
+    public static String apply(
+            @NotNull String source,
+            @NotNull List<TextReplacement> textReplacements
+    ) {
+        if (textReplacements.isEmpty()) {
+            return source;
+        }
+        List<TextReplacement> sortedTextReplacements = new ArrayList<>(textReplacements);
+        sortedTextReplacements.sort(
+                Comparator.comparingInt(TextReplacement::getBeginLine)
+                        .thenComparingInt(TextReplacement::getBeginColumn)
+        );
+        int maxLine = 0;
+        for (TextReplacement textReplacement : sortedTextReplacements) {
+            maxLine = Math.max(maxLine, textReplacement.getEndLine());
+        }
+        int[] lineOffsets = lineOffsets(source, maxLine);
+
+        StringBuilder stringBuilder = new StringBuilder(source.length());
+        int copiedUntil = 0;
+        for (TextReplacement textReplacement : sortedTextReplacements) {
+            int begin = lineOffsets[textReplacement.getBeginLine() - 1] + textReplacement.getBeginColumn() - 1;
+            int end = lineOffsets[textReplacement.getEndLine() - 1] + textReplacement.getEndColumn();
+            if (begin < copiedUntil || end > source.length()) {
+                throw new IllegalArgumentException("Overlapping or out of bounds text replacement : " + textReplacement);
+            }
+            stringBuilder.append(source, copiedUntil, begin);
+            stringBuilder.append(textReplacement.getReplacement());
+            copiedUntil = end;
+        }
+        stringBuilder.append(source, copiedUntil, source.length());
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Lines end with <code>\n</code>, <code>\r\n</code> or <code>\r</code>, the same as in the java lexer.
+     *
+     * @return offsets of the first maxLine lines
+     */
+    @NotNull
+    private static int[] lineOffsets(
+            @NotNull String source,
+            int maxLine
+    ) {
+        int[] lineOffsets = new int[Math.max(maxLine, 1)];
+        int line = 1;
+        int length = source.length();
+        for (int i = 0; i < length && line < maxLine; i++) {
+            char c = source.charAt(i);
+            if (c == '\r') {
+                if (i + 1 < length && source.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                lineOffsets[line++] = i + 1;
+            } else if (c == '\n') {
+                lineOffsets[line++] = i + 1;
+            }
+        }
+        if (line < maxLine) {
+            throw new IllegalArgumentException("Text replacement after the end of source, line " + maxLine);
+        }
+        return lineOffsets;
+    }
+
+}
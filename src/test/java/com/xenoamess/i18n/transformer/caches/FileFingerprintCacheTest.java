@@ -0,0 +1,61 @@
+package com.xenoamess.i18n.transformer.caches;
+
+import com.xenoamess.i18n.transformer.entities.FileFingerprint;
+import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class FileFingerprintCacheTest {
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        Path directory = Files.createTempDirectory("file-fingerprint-cache-test");
+        try {
+            File cacheFile = directory.resolve("cache/xi18nt.cache").toFile();
+            FileFingerprint sharded = new FileFingerprint(
+                    "/a/A.java",
+                    10,
+                    20,
+                    "hash",
+                    Arrays.asList(
+                            new PropertiesEntity("b.t.A.1", "一", "b.t"),
+                            new PropertiesEntity("b.t.A.2", "二")
+                    ),
+                    "t"
+            );
+            FileFingerprint skipped = new FileFingerprint("/a/B.java", 1, 2, "other", Collections.emptyList());
+            FileFingerprintCache fileFingerprintCache = FileFingerprintCache.load(cacheFile, "signature");
+            assertNull(fileFingerprintCache.getPrevious("/a/A.java"));
+            fileFingerprintCache.put(sharded);
+            fileFingerprintCache.put(skipped);
+            fileFingerprintCache.save();
+
+            fileFingerprintCache = FileFingerprintCache.load(cacheFile, "signature");
+            assertEquals(sharded, fileFingerprintCache.getPrevious("/a/A.java"));
+            assertEquals(skipped, fileFingerprintCache.getPrevious("/a/B.java"));
+
+            // another configuration may produce other entities from the same files
+            assertNull(FileFingerprintCache.load(cacheFile, "other signature").getPrevious("/a/A.java"));
+
+            // caches written by another version of the plugin are dropped
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(cacheFile, "rw")) {
+                randomAccessFile.seek(4);
+                randomAccessFile.writeInt(2);
+            }
+            assertNull(FileFingerprintCache.load(cacheFile, "signature").getPrevious("/a/A.java"));
+        } finally {
+            FileUtils.deleteDirectory(directory.toFile());
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.xenoamess.i18n.transformer.contexts;
+
+import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import com.xenoamess.i18n.transformer.enums.DedupScope;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MergedBundleTest {
+
+    private static final List<PropertiesEntity> EXISTING = Arrays.asList(
+            new PropertiesEntity("b.t.A.0", "\\u7532"),
+            new PropertiesEntity("b.t.A.1", "乙"),
+            new PropertiesEntity("b.t.A.2", "丙")
+    );
+
+    @Test
+    public void testMerge() {
+        // a literal escaped otherwise than in the bundle still reuses its name
+        PropertyNameIndex propertyNameIndex = new PropertyNameIndex(DedupScope.FILE);
+        propertyNameIndex.registerExisting(EXISTING);
+        List<PropertiesEntity> generated = Arrays.asList(
+                new PropertiesEntity(propertyNameIndex.getExistingPropertyName("甲"), "甲"),
+                new PropertiesEntity("b.u.B.0", "丁"),
+                new PropertiesEntity("b.u.B.0", "丁")
+        );
+        assertEquals("b.t.A.0", generated.get(0).getPropertyName());
+
+        // existing entries are kept as they are, new entries appended once
+        MergedBundle mergedBundle = new MergedBundle(EXISTING, generated, null);
+        assertEquals(
+                Arrays.asList(
+                        new PropertiesEntity("b.t.A.0", "\\u7532"),
+                        new PropertiesEntity("b.t.A.1", "乙"),
+                        new PropertiesEntity("b.t.A.2", "丙"),
+                        new PropertiesEntity("b.u.B.0", "丁")
+                ),
+                mergedBundle.getPropertiesEntities()
+        );
+        assertEquals(3, mergedBundle.getKeptCount());
+        assertEquals(1, mergedBundle.getAppendedCount());
+        assertEquals(0, mergedBundle.getOrphanCount());
+
+        // with removeOrphans, an existing entry stays if generated, or referenced by name or accessor method
+        mergedBundle = new MergedBundle(EXISTING, generated, new HashSet<>(Collections.singletonList("b_t_A_1")));
+        assertEquals(
+                Arrays.asList(
+                        new PropertiesEntity("b.t.A.0", "\\u7532"),
+                        new PropertiesEntity("b.t.A.1", "乙"),
+                        new PropertiesEntity("b.u.B.0", "丁")
+                ),
+                mergedBundle.getPropertiesEntities()
+        );
+        assertEquals(2, mergedBundle.getKeptCount());
+        assertEquals(1, mergedBundle.getOrphanCount());
+    }
+
+    @Test
+    public void testShards() {
+        // shards may have the same property name
+        MergedBundle mergedBundle = new MergedBundle(
+                Collections.singletonList(new PropertiesEntity("b.t.A.0", "甲", "b.t")),
+                Arrays.asList(
+                        new PropertiesEntity("b.t.A.0", "甲", "b.t"),
+                        new PropertiesEntity("b.t.A.0", "甲")
+                ),
+                Collections.emptySet()
+        );
+        assertEquals(
+                Arrays.asList(
+                        new PropertiesEntity("b.t.A.0", "甲", "b.t"),
+                        new PropertiesEntity("b.t.A.0", "甲")
+                ),
+                mergedBundle.getPropertiesEntities()
+        );
+        assertEquals(0, mergedBundle.getOrphanCount());
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.xenoamess.i18n.transformer.contexts;
+
+import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import com.xenoamess.i18n.transformer.enums.DedupScope;
+import com.xenoamess.i18n.transformer.enums.KeyStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PropertyNameIndexTest {
+
+    @Test
+    public void testHashCollision() {
+        // every value gets the same hash, so every value after the first collides
+        PropertyNameIndex propertyNameIndex = new PropertyNameIndex(DedupScope.FILE, KeyStrategy.HASH, (value, seed) -> seed);
+        propertyNameIndex.registerExisting(Collections.singletonList(new PropertiesEntity("b.0000000000000000", "旧")));
+
+        // a name already in the bundle is skipped whatever the order, so it is no collision
+        assertEquals("b.0000000000000001", propertyNameIndex.getHashPropertyName("b", "乙"));
+        assertFalse(propertyNameIndex.isHashCollided());
+        // the second file got there first on another thread
+        assertEquals("b.0000000000000002", propertyNameIndex.getHashPropertyName("b", "甲"));
+        assertTrue(propertyNameIndex.isHashCollided());
+
+        // transformed again in file order, the first file gets the first free name
+        propertyNameIndex.reset();
+        assertFalse(propertyNameIndex.isHashCollided());
+        assertEquals("b.0000000000000000", propertyNameIndex.getHashPropertyName("b", "旧"));
+        assertEquals("b.0000000000000001", propertyNameIndex.getHashPropertyName("b", "甲"));
+        assertEquals("b.0000000000000002", propertyNameIndex.getHashPropertyName("b", "乙"));
+        assertEquals("b.0000000000000001", propertyNameIndex.getHashPropertyName("b", "甲"));
+        // escaped the same value is the same value
+        assertEquals("b.0000000000000001", propertyNameIndex.getHashPropertyName("b", "\\u7532"));
+    }
+
+    @Test
+    public void testRegisterCached() {
+        List<PropertiesEntity> cachedEntities = Arrays.asList(
+                new PropertiesEntity("t.A.0", "甲"),
+                new PropertiesEntity("t.A.1", "\\u4e59")
+        );
+
+        // in its own scope the value gets the cached name, others take their own
+        PropertyNameIndex classIndex = new PropertyNameIndex(DedupScope.CLASS);
+        classIndex.registerCached("t", cachedEntities);
+        assertEquals("t.A.0", classIndex.putIfAbsent("t.A", "甲", "t.A.2"));
+        assertEquals("t.A.1", classIndex.putIfAbsent("t.A", "\\u4e59", "t.A.2"));
+        assertNull(classIndex.putIfAbsent("t.B", "甲", "t.B.0"));
+
+        PropertyNameIndex packageIndex = new PropertyNameIndex(DedupScope.PACKAGE);
+        packageIndex.registerCached("t", cachedEntities);
+        assertEquals("t.A.0", packageIndex.putIfAbsent("t", "甲", "t.B.0"));
+        assertNull(packageIndex.putIfAbsent("u", "甲", "u.C.0"));
+
+        // without a package the scope of the entries is unknown
+        PropertyNameIndex unknownPackageIndex = new PropertyNameIndex(DedupScope.PACKAGE);
+        unknownPackageIndex.registerCached(null, cachedEntities);
+        assertNull(unknownPackageIndex.putIfAbsent("t", "甲", "t.B.0"));
+
+        PropertyNameIndex moduleIndex = new PropertyNameIndex(DedupScope.MODULE);
+        moduleIndex.registerCached("t", cachedEntities);
+        assertEquals("t.A.0", moduleIndex.putIfAbsent("", "甲", "u.C.0"));
+
+        // no other file shares the scope of a file, but its names stay reserved in every scope
+        PropertyNameIndex fileIndex = new PropertyNameIndex(DedupScope.FILE);
+        fileIndex.registerCached("t", cachedEntities);
+        assertNull(fileIndex.putIfAbsent("t.B", "甲", "t.B.0"));
+        assertFalse(fileIndex.isTakenByOtherValue("t.A.0", "甲"));
+        for (PropertyNameIndex propertyNameIndex : Arrays.asList(classIndex, packageIndex, moduleIndex)) {
+            assertTrue(propertyNameIndex.isTakenByOtherValue("t.A.0", "丙"));
+            assertFalse(propertyNameIndex.isTakenByOtherValue("t.A.1", "乙"));
+        }
+
+        // cached names are kept by reset, names generated during the run are not
+        classIndex.reset();
+        assertEquals("t.A.0", classIndex.putIfAbsent("t.A", "甲", "t.A.2"));
+        assertNull(classIndex.putIfAbsent("t.B", "甲", "t.B.1"));
+    }
+
+    @Test
+    public void testRegisterExisting() {
+        PropertyNameIndex propertyNameIndex = new PropertyNameIndex(DedupScope.FILE);
+        propertyNameIndex.registerExisting(Arrays.asList(
+                new PropertiesEntity("t.A.0", "\\u7532"),
+                new PropertiesEntity("t.A.1", "甲"),
+                new PropertiesEntity("t.A.2", "it\\'s")
+        ));
+
+        // the first name of a value is reused, escaped or not
+        assertEquals("t.A.0", propertyNameIndex.getExistingPropertyName("甲"));
+        assertEquals("t.A.0", propertyNameIndex.getExistingPropertyName("\\u7532"));
+        assertEquals("t.A.2", propertyNameIndex.getExistingPropertyName("it's"));
+        assertNull(propertyNameIndex.getExistingPropertyName("乙"));
+
+        // names in the bundle are not given to other values
+        assertTrue(propertyNameIndex.isTakenByOtherValue("t.A.0", "乙"));
+        assertFalse(propertyNameIndex.isTakenByOtherValue("t.A.0", "甲"));
+        assertFalse(propertyNameIndex.isTakenByOtherValue("t.A.3", "乙"));
+    }
+
+    @Test
+    public void testConcurrentRegister() throws Exception {
+        int threadCount = 8;
+        PropertyNameIndex propertyNameIndex = new PropertyNameIndex(DedupScope.MODULE, KeyStrategy.HASH);
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                String candidate = "t.A" + i + ".0";
+                Callable<List<String>> register = () -> {
+                    start.await();
+                    List<String> propertyNames = new ArrayList<>();
+                    for (int j = 0; j < 1000; j++) {
+                        String existedPropertyName = propertyNameIndex.putIfAbsent("", "值" + j, candidate + j);
+                        propertyNames.add(existedPropertyName == null ? candidate + j : existedPropertyName);
+                        propertyNames.add(propertyNameIndex.getHashPropertyName("b", "值" + j));
+                    }
+                    return propertyNames;
+                };
+                futures.add(executorService.submit(register));
+            }
+            start.countDown();
+
+            // every thread gets the same name for the same value, whichever registered it
+            List<String> expected = futures.get(0).get();
+            for (Future<List<String>> future : futures) {
+                assertEquals(expected, future.get());
+            }
+            Set<String> distinct = new HashSet<>(expected);
+            assertEquals(expected.size(), distinct.size());
+            assertFalse(propertyNameIndex.isHashCollided());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.xenoamess.i18n.transformer.contexts;
+
+import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import com.xenoamess.i18n.transformer.utils.PropertiesReaderUtil;
+import com.xenoamess.i18n.transformer.utils.PropertiesWriterUtil;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SharedBundleTest {
+
+    @Test
+    public void testAdd() throws IOException {
+        SharedBundle sharedBundle = new SharedBundle("b");
+        sharedBundle.add("m1", readBack(SharedBundle.toEntriesFile("b", Arrays.asList(
+                new PropertiesEntity("b.t.A.1", "中"),
+                new PropertiesEntity("b.t.A.2", "文")
+        ))));
+        sharedBundle.add("m2", readBack(SharedBundle.toEntriesFile("b", Arrays.asList(
+                new PropertiesEntity("b.t.A.1", "中"),
+                new PropertiesEntity("b.t.A.2", "字"),
+                new PropertiesEntity("b.u.B.1", "新")
+        ))));
+
+        // same key and value is stored once, same key with another value is a conflict
+        assertEquals(
+                Arrays.asList(
+                        new PropertiesEntity("b.t.A.1", "中"),
+                        new PropertiesEntity("b.t.A.2", "文"),
+                        new PropertiesEntity("b.u.B.1", "新")
+                ),
+                sharedBundle.getPropertiesEntities()
+        );
+        assertEquals(Collections.singletonList("b.t.A.2 is 文 in m1 but 字 in m2"), sharedBundle.getConflicts());
+        assertEquals(Collections.emptyList(), sharedBundle.getBundleNameConflicts());
+        assertEquals(2, sharedBundle.getModuleCount());
+        assertEquals(5, sharedBundle.getEntryCount());
+        assertEquals(1, sharedBundle.getDuplicatedCount());
+    }
+
+    @Test
+    public void testBundleNameConflict() {
+        // modules using the default propertyBundleName look up a bundle named after themselves
+        SharedBundle sharedBundle = new SharedBundle("parent_xi18nt");
+        sharedBundle.add("m1", SharedBundle.toEntriesFile("parent_xi18nt", Collections.singletonList(new PropertiesEntity("parent_xi18nt.A.1", "中"))));
+        sharedBundle.add("m2", SharedBundle.toEntriesFile("m2_xi18nt", Collections.singletonList(new PropertiesEntity("m2_xi18nt.B.1", "文"))));
+        sharedBundle.add("m3", Collections.singletonList(new PropertiesEntity("parent_xi18nt.C.1", "字")));
+        assertEquals(
+                Arrays.asList(
+                        "m2 looks up m2_xi18nt but the shared bundle is parent_xi18nt",
+                        "m3 did not record its propertyBundleName, transform it again"
+                ),
+                sharedBundle.getBundleNameConflicts()
+        );
+        assertEquals(3, sharedBundle.getPropertiesEntities().size());
+    }
+
+    /**
+     * @return entries after writing them to an entries file and reading it back
+     */
+    private static List<PropertiesEntity> readBack(List<PropertiesEntity> propertiesEntities) throws IOException {
+        Path directory = Files.createTempDirectory("shared-bundle-test");
+        try {
+            Path entriesFile = directory.resolve("entries.properties");
+            PropertiesWriterUtil.writeIfChanged(propertiesEntities, Collections.singletonList(entriesFile));
+            return PropertiesReaderUtil.read(entriesFile);
+        } finally {
+            FileUtils.deleteDirectory(directory.toFile());
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.xenoamess.i18n.transformer.detectors;
+
+import com.xenoamess.i18n.transformer.utils.PreScanUtil;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ScriptDetectorTest {
+
+    @Test
+    public void testDefault() {
+        assertTrue(ScriptDetector.DEFAULT.containsMatch("abc中文"));
+        assertFalse(ScriptDetector.DEFAULT.containsMatch("abc，"));
+        assertFalse(ScriptDetector.DEFAULT.containsMatch("ひらがな"));
+        assertFalse(ScriptDetector.DEFAULT.containsMatch("\uD840\uDC00"));
+    }
+
+    @Test
+    public void testScriptsAndRanges() {
+        ScriptDetector scriptDetector = ScriptDetector.parse("han, hiragana", "AC00-D7AF,U+FF01");
+        assertTrue(scriptDetector.containsMatch("ひらがな"));
+        assertTrue(scriptDetector.containsMatch("한국어"));
+        assertTrue(scriptDetector.containsMatch("abc！"));
+        assertTrue(scriptDetector.containsMatch("\uD840\uDC00"));
+        assertTrue(scriptDetector.containsMatch("㐀"));
+        assertFalse(scriptDetector.containsMatch("カタカナ"));
+        assertFalse(scriptDetector.containsMatch("abc"));
+    }
+
+    @Test
+    public void testSupplementaryRangeOnly() {
+        ScriptDetector scriptDetector = ScriptDetector.parse(null, "20000-2A6DF");
+        assertTrue(scriptDetector.matches(0x20001));
+        assertTrue(scriptDetector.containsMatch("\uD840\uDC01"));
+        assertTrue(scriptDetector.containsMatch("abc\uD869\uDEDF"));
+        assertFalse(scriptDetector.containsMatch("中文\uD869\uDEE0"));
+        assertFalse(scriptDetector.containsMatch("\uD840"));
+        assertTrue(PreScanUtil.mayContainMatch("String a = \"\uD840\uDC01\";".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8, scriptDetector));
+    }
+
+    @Test
+    public void testPreScan() {
+        ScriptDetector scriptDetector = ScriptDetector.parse("HANGUL,HAN", null);
+        assertTrue(PreScanUtil.mayContainMatch("String a = \"한\";".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8, scriptDetector));
+        assertTrue(PreScanUtil.mayContainMatch("String a = \"\uD840\uDC00\";".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8, scriptDetector));
+        assertTrue(PreScanUtil.mayContainMatch("String a = \"\\uD55C\";".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8, scriptDetector));
+        assertTrue(PreScanUtil.mayContainMatch("String a = \"한\";".getBytes(Charset.forName("EUC-KR")), Charset.forName("EUC-KR"), scriptDetector));
+        assertFalse(PreScanUtil.mayContainMatch("String a = \"ひら\";".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8, scriptDetector));
+        assertFalse(PreScanUtil.mayContainMatch("String a = \"ひら\";".getBytes(StandardCharsets.UTF_16), StandardCharsets.UTF_16, scriptDetector));
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.xenoamess.i18n.transformer.runtime;
+
+import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import com.xenoamess.i18n.transformer.utils.BinaryBundleWriterUtil;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class BinaryResourceBundleTest {
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        List<PropertiesEntity> propertiesEntities = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            propertiesEntities.add(new PropertiesEntity("x18nt.com.xenoamess.i18n.Main." + i, "值" + (i % 100) + "\\n"));
+        }
+        BinaryResourceBundle binaryResourceBundle = writeAndRead(propertiesEntities);
+        for (int i = 0; i < 5000; i++) {
+            assertEquals("值" + (i % 100) + "\n", binaryResourceBundle.handleGetObject("x18nt.com.xenoamess.i18n.Main." + i));
+        }
+        assertNull(binaryResourceBundle.handleGetObject("x18nt.com.xenoamess.i18n.Main.5000"));
+        Set<String> keys = new HashSet<>(Collections.list(binaryResourceBundle.getKeys()));
+        assertEquals(5000, keys.size());
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        BinaryResourceBundle binaryResourceBundle = writeAndRead(Collections.emptyList());
+        assertNull(binaryResourceBundle.handleGetObject("a"));
+        assertFalse(binaryResourceBundle.getKeys().hasMoreElements());
+    }
+
+    @Test
+    public void testGetBundleFromOtherClassLoader() throws IOException {
+        Path directory = Files.createTempDirectory("binary-resource-bundle-test");
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(directory.resolve("binary_resource_bundle_test_zh_CN.xi18nb"))) {
+                BinaryBundleWriterUtil.write(Collections.singletonList(new PropertiesEntity("a", "一")), outputStream);
+            }
+            // the bundle is only visible to this class loader, not to the system class loader
+            try (URLClassLoader classLoader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, getClass().getClassLoader())) {
+                ResourceBundle resourceBundle = ResourceBundle.getBundle("binary_resource_bundle_test", Locale.CHINA, classLoader);
+                assertEquals("一", resourceBundle.getString("a"));
+            }
+        } finally {
+            FileUtils.deleteDirectory(directory.toFile());
+        }
+    }
+
+    private static BinaryResourceBundle writeAndRead(List<PropertiesEntity> propertiesEntities) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        BinaryBundleWriterUtil.write(propertiesEntities, byteArrayOutputStream);
+        return new BinaryResourceBundle(ByteBuffer.wrap(byteArrayOutputStream.toByteArray()));
+    }
+
+}
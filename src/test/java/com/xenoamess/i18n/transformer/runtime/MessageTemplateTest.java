@@ -0,0 +1,51 @@
+package com.xenoamess.i18n.transformer.runtime;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.MessageFormat;
+import java.util.ListResourceBundle;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MessageTemplateTest {
+
+    @Test
+    public void testFormat() {
+        assertEquals("用户张三已登录", MessageTemplate.format("用户{0}已登录", "张三"));
+        assertEquals("1234元null", MessageTemplate.format("{0}元{1}", 1234, null));
+        assertEquals("{1}在前", MessageTemplate.format("{1}在前", "x"));
+        assertEquals("纯文本", MessageTemplate.format("纯文本"));
+    }
+
+    @Test
+    public void testFormatKey() {
+        assertEquals("旧x", MessageTemplate.format("b", Locale.CHINA, "b.A.1", "旧{0}", "x"));
+        // a reloaded message replaces the template of its key
+        assertEquals("新x", MessageTemplate.format("b", Locale.CHINA, "b.A.1", "新{0}", "x"));
+        assertEquals("旧x", MessageTemplate.format("b", Locale.ROOT, "b.A.1", "旧{0}", "x"));
+        ListResourceBundle resourceBundle = new ListResourceBundle() {
+            @Override
+            protected Object[][] getContents() {
+                return new Object[][]{{"b.A.1", "用户{0}已登录"}};
+            }
+        };
+        assertEquals("用户张三已登录", MessageTemplate.format(resourceBundle, "b.A.1", "张三"));
+    }
+
+    @Test
+    public void testQuoteMatchesMessageFormat() {
+        String text = "单引号'和{括号}'";
+        String pattern = MessageTemplate.quote(text) + "{0}";
+        assertEquals(text + "x", MessageTemplate.format(pattern, "x"));
+        assertEquals(text + "x", MessageFormat.format(pattern, "x"));
+    }
+
+    @Test
+    public void testInvalidPattern() {
+        assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("{0"));
+        assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("{0,number}"));
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.xenoamess.i18n.transformer.runtime;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.MissingResourceException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReloadableBundleTest {
+
+    @Test
+    public void testReload() throws IOException {
+        Path directory = Files.createTempDirectory("reloadable-bundle-test");
+        write(directory.resolve("b.properties"), "a=root\nb=root\n");
+        write(directory.resolve("b_zh_CN.properties"), "a=\\u4e00\n");
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, null)) {
+            ReloadableBundle reloadableBundle = new ReloadableBundle("b", Locale.CHINA, classLoader);
+            assertEquals("一", reloadableBundle.getString("a"));
+            assertEquals("root", reloadableBundle.getString("b"));
+            assertThrows(MissingResourceException.class, () -> reloadableBundle.getString("c"));
+
+            write(directory.resolve("b_zh_CN.properties"), "a=\\u4e8c\nc=\\u4e09\n");
+            assertEquals("一", reloadableBundle.getString("a"));
+            reloadableBundle.reload();
+            assertEquals("二", reloadableBundle.getString("a"));
+            assertEquals("三", reloadableBundle.getString("c"));
+
+            Files.delete(directory.resolve("b.properties"));
+            Files.delete(directory.resolve("b_zh_CN.properties"));
+            assertThrows(MissingResourceException.class, reloadableBundle::reload);
+            assertEquals("二", reloadableBundle.getString("a"));
+        }
+    }
+
+    @Test
+    public void testWatch() throws Exception {
+        Path directory = Files.createTempDirectory("reloadable-bundle-test");
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, null)) {
+            write(directory.resolve("w.properties"), "a=1\nb=1\n");
+            ReloadableBundle reloadableBundle = new ReloadableBundle("w", Locale.ROOT, classLoader);
+            reloadableBundle.watch();
+
+            // a file caught while being written loses keys, the old messages are kept until it is complete
+            write(directory.resolve("w.properties"), "a=2\n");
+            write(directory.resolve("w.properties"), "a=2\nb=2\n");
+            long deadline = System.currentTimeMillis() + 10000;
+            while (!"2".equals(reloadableBundle.getString("b")) && System.currentTimeMillis() < deadline) {
+                assertEquals(2, reloadableBundle.keySet().size());
+                Thread.sleep(20);
+            }
+            assertEquals("2", reloadableBundle.getString("a"));
+            assertEquals("2", reloadableBundle.getString("b"));
+        } finally {
+            FileUtils.deleteDirectory(directory.toFile());
+        }
+    }
+
+    @Test
+    public void testWatchWhileFilesKeepChanging() throws Exception {
+        Path directory = Files.createTempDirectory("reloadable-bundle-test");
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Thread logWriter = new Thread(() -> {
+            try {
+                for (int i = 0; writing.get(); i++) {
+                    write(directory.resolve("app.log"), "line " + i + "\n");
+                    Thread.sleep(ReloadableBundle.QUIET_MILLIS / 4);
+                }
+            } catch (IOException | InterruptedException e) {
+                writing.set(false);
+            }
+        });
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, null)) {
+            write(directory.resolve("l.properties"), "a=1\n");
+            ReloadableBundle reloadableBundle = new ReloadableBundle("l", Locale.ROOT, classLoader);
+            reloadableBundle.watch();
+            logWriter.start();
+
+            // the directory is never quiet, the bundle is reloaded once it waited long enough
+            write(directory.resolve("l.properties"), "a=2\n");
+            long deadline = System.currentTimeMillis() + ReloadableBundle.MAX_WAIT_MILLIS + 5000;
+            while (!"2".equals(reloadableBundle.getString("a")) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertTrue(writing.get());
+            assertEquals("2", reloadableBundle.getString("a"));
+        } finally {
+            writing.set(false);
+            logWriter.join();
+            FileUtils.deleteDirectory(directory.toFile());
+        }
+    }
+
+    private static void write(Path path, String content) throws IOException {
+        Files.write(path, content.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+}
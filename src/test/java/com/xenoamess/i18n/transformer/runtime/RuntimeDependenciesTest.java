@@ -0,0 +1,59 @@
+package com.xenoamess.i18n.transformer.runtime;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RuntimeDependenciesTest {
+
+    private static final String RUNTIME_PACKAGE = "com/xenoamess/i18n/transformer/runtime/";
+
+    /**
+     * The runtime jar is used by transformed applications without any dependency, so its classes may only use the JDK.
+     */
+    @Test
+    public void testOnlyDependsOnJdk() throws IOException, URISyntaxException {
+        Path runtimeDirectory = Paths.get(MessageTemplate.class.getResource("MessageTemplate.class").toURI()).getParent();
+        List<Path> classFiles;
+        try (Stream<Path> paths = Files.list(runtimeDirectory)) {
+            classFiles = paths.filter(path -> path.getFileName().toString().endsWith(".class")).collect(Collectors.toList());
+        }
+        assertTrue(classFiles.size() >= 5, classFiles.toString());
+        List<String> foreignClasses = new ArrayList<>();
+        for (Path classFile : classFiles) {
+            ClassReader classReader = new ClassReader(Files.readAllBytes(classFile));
+            char[] buffer = new char[classReader.getMaxStringLength()];
+            for (int i = 1; i < classReader.getItemCount(); i++) {
+                int offset = classReader.getItem(i);
+                // only CONSTANT_Class entries name classes to load
+                if (offset == 0 || classReader.readByte(offset - 1) != 7) {
+                    continue;
+                }
+                String className = classReader.readUTF8(offset, buffer);
+                String elementName = className.substring(className.lastIndexOf('[') + 1);
+                if (elementName.startsWith("L")) {
+                    elementName = elementName.substring(1, elementName.length() - 1);
+                }
+                if (elementName.length() > 1
+                        && !elementName.startsWith("java/")
+                        && !elementName.startsWith(RUNTIME_PACKAGE)) {
+                    foreignClasses.add(classFile.getFileName() + " uses " + className);
+                }
+            }
+        }
+        assertEquals(new ArrayList<>(), foreignClasses);
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.xenoamess.i18n.transformer.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AccessorGeneratorUtilTest {
+
+    @Test
+    public void testToMethodName() {
+        assertEquals("b_t_A_1", AccessorGeneratorUtil.toMethodName("b.t.A.1"));
+        assertEquals("a$_b$$c", AccessorGeneratorUtil.toMethodName("a_b$c"));
+        assertEquals("$0031a$4e2d", AccessorGeneratorUtil.toMethodName("1a中"));
+        assertEquals("if$k", AccessorGeneratorUtil.toMethodName("if"));
+        assertEquals("$k", AccessorGeneratorUtil.toMethodName(""));
+    }
+
+    @Test
+    public void testToMethodNameNoCollision() {
+        // keywords and the empty name get a suffix, which must not be the encoding of another name
+        List<String> propertyNames = Arrays.asList(
+                "", "$", "$$", "$k", "k", "_", "_k",
+                "if", "if$", "if$k", "if_k", "ifk", "if$$",
+                "class", "class$", "null", "null$", "true$k",
+                "a.b", "a_b", "a$b", "a\u0000b", "a-b", "a$002db"
+        );
+        Map<String, String> propertyNamesByMethodName = new HashMap<>();
+        for (String propertyName : propertyNames) {
+            String methodName = AccessorGeneratorUtil.toMethodName(propertyName);
+            assertTrue(isJavaIdentifier(methodName), methodName);
+            assertNull(
+                    propertyNamesByMethodName.put(methodName, propertyName),
+                    "same method name " + methodName + " for " + propertyName
+            );
+        }
+    }
+
+    private static boolean isJavaIdentifier(String name) {
+        if (name.isEmpty() || !Character.isJavaIdentifierStart(name.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            if (!Character.isJavaIdentifierPart(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.xenoamess.i18n.transformer.utils;
+
+import com.xenoamess.i18n.transformer.contexts.I18nTransformerContext;
+import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class BytecodeTransformUtilTest {
+
+    private static final String SOURCE_A = "package t;\n"
+            + "public class A {\n"
+            + "    public static final String C = \"常量\";\n"
+            + "    public static String run(String k, int x, long y) {\n"
+            + "        StringBuilder sb = new StringBuilder();\n"
+            + "        sb.append(\"本地\").append('|');\n"
+            + "        sb.append(\"前\" + x + \"中\" + y + \"后\").append('|');\n"
+            + "        sb.append(B.D).append('|');\n"
+            + "        switch (k) {\n"
+            + "            case \"一\":\n"
+            + "                sb.append(\"是\");\n"
+            + "                break;\n"
+            + "            default:\n"
+            + "                sb.append(\"否\");\n"
+            + "        }\n"
+            + "        return sb.append('|').append(C).toString();\n"
+            + "    }\n"
+            + "}\n";
+
+    private static final String SOURCE_B = "package t;\n"
+            + "public class B {\n"
+            + "    public static final String D = \"内联\";\n"
+            + "}\n";
+
+    @Test
+    public void testTransform() throws Exception {
+        for (String release : new String[]{"8", "11"}) {
+            Path directory = Files.createTempDirectory("bytecode-transform-util-test");
+            Files.createDirectories(directory.resolve("t"));
+            Files.write(directory.resolve("t/A.java"), SOURCE_A.getBytes(StandardCharsets.UTF_8));
+            Files.write(directory.resolve("t/B.java"), SOURCE_B.getBytes(StandardCharsets.UTF_8));
+            compile(directory, release, directory.resolve("t/A.java"), directory.resolve("t/B.java"));
+
+            List<PropertiesEntity> propertiesEntities = new ArrayList<>();
+            for (String className : new String[]{"A", "B"}) {
+                Path classFile = directory.resolve("t/" + className + ".class");
+                I18nTransformerContext i18nTransformerContext = newContext();
+                byte[] transformed = BytecodeTransformUtil.transform(Files.readAllBytes(classFile), "x.M", i18nTransformerContext);
+                assertNotNull(transformed);
+                assertNull(BytecodeTransformUtil.transform(transformed, "x.M", newContext()));
+                Files.write(classFile, transformed);
+                propertiesEntities.addAll(i18nTransformerContext.getChinesePropertiesEntities());
+            }
+            assertEquals("b.t.A.1", propertiesEntities.get(0).getPropertyName(), release);
+            assertEquals("常量", propertiesEntities.get(0).getChineseValue(), release);
+            assertEquals(9, propertiesEntities.size(), release);
+
+            Files.createDirectories(directory.resolve("x"));
+            Files.write(
+                    directory.resolve("x/M.java"),
+                    AccessorGeneratorUtil.generate("x.M", "b", "java.util.Locale.CHINA", propertiesEntities).getBytes(StandardCharsets.UTF_8)
+            );
+            compile(directory, release, directory.resolve("x/M.java"));
+            List<PropertiesEntity> translated = new ArrayList<>();
+            for (PropertiesEntity propertiesEntity : propertiesEntities) {
+                translated.add(new PropertiesEntity(propertiesEntity.getPropertyName(), "[" + propertiesEntity.getChineseValue() + "]"));
+            }
+            PropertiesWriterUtil.writeIfChanged(translated, Collections.singletonList(directory.resolve("b.properties")));
+
+            try (URLClassLoader classLoader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, null)) {
+                Class<?> a = classLoader.loadClass("t.A");
+                Method run = a.getMethod("run", String.class, int.class, long.class);
+                assertEquals("[本地]|[前]1[中]2[后]|[内联]|[是]|[常量]", run.invoke(null, "一", 1, 2L), release);
+                assertEquals("[本地]|[前]3[中]4[后]|[内联]|[否]|[常量]", run.invoke(null, "二", 3, 4L), release);
+                assertEquals("[常量]", a.getField("C").get(null), release);
+            }
+        }
+    }
+
+    private static I18nTransformerContext newContext() {
+        return new I18nTransformerContext(
+                "",
+                "b",
+                "A.class",
+                null,
+                0,
+                new ArrayList<>()
+        );
+    }
+
+    private static void compile(Path directory, String release, Path... sources) throws IOException {
+        List<String> arguments = new ArrayList<>();
+        Collections.addAll(arguments, "-encoding", "UTF-8", "-nowarn", "-Xlint:-options", "--release", release,
+                "-d", directory.toString(), "-classpath", directory.toString());
+        for (Path source : sources) {
+            arguments.add(source.toString());
+        }
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, arguments.toArray(new String[0])));
+    }
+
+}
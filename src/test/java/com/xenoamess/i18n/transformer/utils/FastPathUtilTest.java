@@ -0,0 +1,82 @@
+package com.xenoamess.i18n.transformer.utils;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.xenoamess.i18n.transformer.contexts.I18nTransformerContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FastPathUtilTest {
+
+    private static final String TEMPLATE = "m(\"${value}\")";
+
+    @Test
+    public void testSameAsSyntaxTree() {
+        String source = "package a;\n"
+                + "// \"注释\"\n"
+                + "public class A {\n"
+                + "    private String f = \"字段\";\n"
+                + "    void m(int x) {\n"
+                + "        char c = '\"';\n"
+                + "        String a = \"本地\";\n"
+                + "        foo(\"一\", bar(\"二\"), \"三\");\n"
+                + "        String[][] b = {{\"四\"}, {\"五\", \"b\"}};\n"
+                + "        System.out.println(\"前\" + x + \"后\");\n"
+                + "        Object o = new Object() {\n"
+                + "            String g = \"匿名\";\n"
+                + "        };\n"
+                + "    }\n"
+                + "}\n";
+
+        I18nTransformerContext fastPathContext = newContext();
+        assertTrue(FastPathUtil.transform(source, fastPathContext));
+
+        I18nTransformerContext syntaxTreeContext = newContext();
+        JavaParser javaParser = new JavaParser(new ParserConfiguration().setStoreTokens(true));
+        I18nTransformerUtil.dfs(javaParser.parse(source).getResult().get(), syntaxTreeContext);
+
+        assertEquals(syntaxTreeContext.getChinesePropertiesEntities(), fastPathContext.getChinesePropertiesEntities());
+        assertEquals(
+                SpliceUtil.apply(source, syntaxTreeContext.getTextReplacements()),
+                SpliceUtil.apply(source, fastPathContext.getTextReplacements())
+        );
+        assertEquals(10, fastPathContext.getTextReplacements().size());
+    }
+
+    @Test
+    public void testFallback() {
+        String[] sources = {
+                "enum E { A(\"一\"); E(String s) {} }",
+                "interface I { String A = \"一\"; }",
+                "class A { static String a = \"一\"; }",
+                "class A { @SuppressWarnings(\"一\") void m() {} }",
+                "class A { String m() { return \"一\"; } }",
+                "class A { void m(String a) { a = \"一\"; } }",
+                "class A { boolean m(String a) { return \"一\".equals(a); } }",
+                "class A { String a = (String) \"一\" + 1; }",
+                "class A { class B { String b = \"一\"; } }",
+        };
+        for (String source : sources) {
+            I18nTransformerContext i18nTransformerContext = newContext();
+            assertFalse(FastPathUtil.transform(source, i18nTransformerContext), source);
+            assertTrue(i18nTransformerContext.getChinesePropertiesEntities().isEmpty(), source);
+        }
+    }
+
+    private static I18nTransformerContext newContext() {
+        return new I18nTransformerContext(
+                TEMPLATE,
+                "b",
+                "A.java",
+                "A.java",
+                0,
+                new ArrayList<>()
+        );
+    }
+
+}
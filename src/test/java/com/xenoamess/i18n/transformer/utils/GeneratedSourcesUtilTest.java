@@ -0,0 +1,91 @@
+package com.xenoamess.i18n.transformer.utils;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GeneratedSourcesUtilTest {
+
+    @Test
+    public void testMirror() throws IOException {
+        Path directory = Files.createTempDirectory("generated-sources-util-test");
+        try {
+            Path sourceRoot = directory.resolve("src/main/java");
+            Path generatedSourcesDirectory = directory.resolve("generated-sources").toAbsolutePath().normalize();
+            byte[] original = "class A {}\n".getBytes(StandardCharsets.UTF_8);
+            byte[] transformed = "class A { }\n".getBytes(StandardCharsets.UTF_8);
+            Path javaFile = sourceRoot.resolve("t/A.java");
+            Path generatedSourceFile = generatedSourcesDirectory.resolve("t/A.java");
+            Files.createDirectories(javaFile.getParent());
+            Files.write(javaFile, original);
+
+            // a java file needing no change is linked, or copied where links are not supported
+            GeneratedSourcesUtil.link(generatedSourceFile, javaFile);
+            assertArrayEquals(original, Files.readAllBytes(generatedSourceFile));
+            assertTrue(
+                    Files.isSameFile(generatedSourceFile, javaFile)
+                            || Files.getLastModifiedTime(generatedSourceFile).equals(Files.getLastModifiedTime(javaFile))
+            );
+
+            // writing the transformed copy must not write through the link
+            GeneratedSourcesUtil.write(generatedSourceFile, javaFile, transformed);
+            assertFalse(Files.isSameFile(generatedSourceFile, javaFile));
+            assertArrayEquals(transformed, Files.readAllBytes(generatedSourceFile));
+            assertArrayEquals(original, Files.readAllBytes(javaFile));
+
+            // an unchanged transformed copy is not written again
+            FileTime lastModifiedTime = FileTime.fromMillis(1000L);
+            Files.setLastModifiedTime(generatedSourceFile, lastModifiedTime);
+            GeneratedSourcesUtil.write(generatedSourceFile, javaFile, transformed);
+            assertEquals(lastModifiedTime, Files.getLastModifiedTime(generatedSourceFile));
+
+            // a java file which no longer needs changes gets its link back
+            GeneratedSourcesUtil.link(generatedSourceFile, javaFile);
+            assertArrayEquals(original, Files.readAllBytes(generatedSourceFile));
+
+            // copies of removed java files are deleted, the others are kept
+            Path staleFile = generatedSourcesDirectory.resolve("t/Removed.java");
+            Files.write(staleFile, original);
+            assertEquals(1, GeneratedSourcesUtil.deleteStale(
+                    generatedSourcesDirectory,
+                    new HashSet<>(Collections.singletonList(generatedSourceFile))
+            ));
+            assertFalse(Files.exists(staleFile));
+            assertTrue(Files.exists(generatedSourceFile));
+            assertEquals(0, GeneratedSourcesUtil.deleteStale(directory.resolve("missing"), Collections.emptySet()));
+
+            MavenProject project = new MavenProject();
+            project.addCompileSourceRoot(sourceRoot.toString());
+            project.addCompileSourceRoot(directory.resolve("target/generated-sources/annotations").toString());
+            GeneratedSourcesUtil.swapSourceRoots(
+                    project,
+                    Collections.singletonList(sourceRoot.toString()),
+                    generatedSourcesDirectory.toFile()
+            );
+            assertEquals(
+                    Arrays.asList(
+                            directory.resolve("target/generated-sources/annotations").toString(),
+                            generatedSourcesDirectory.toString()
+                    ),
+                    project.getCompileSourceRoots()
+            );
+        } finally {
+            FileUtils.deleteDirectory(directory.toFile());
+        }
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.xenoamess.i18n.transformer.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HashUtilTest {
+
+    /**
+     * First 64 bits of the reference MurmurHash3 x64 128, read little endian.
+     */
+    @Test
+    public void testMurmur3() {
+        assertEquals(0x0000000000000000L, HashUtil.murmur3("", 0));
+        assertEquals(0x4610abe56eff5cb5L, HashUtil.murmur3("", 1));
+        assertEquals(0x629942693e10f867L, HashUtil.murmur3("hell", 0));
+        assertEquals(0xcbd8a7b341bd9b02L, HashUtil.murmur3("hello", 0));
+        assertEquals(0xa78ddff5adae8d10L, HashUtil.murmur3("hello", 1));
+        assertEquals(0x944cd9aa8b8e849dL, HashUtil.murmur3("hello wor", 0));
+        assertEquals(0xe34bbc7bbc071b6cL, HashUtil.murmur3("The quick brown fox jumps over the lazy dog", 0));
+        assertEquals(0x740dcf93fe0bd5d7L, HashUtil.murmur3("The quick brown fox jumps over the lazy dog", 42));
+        // one whole block, and one block with a tail
+        assertEquals(0x4be06d94cf4ad1a7L, HashUtil.murmur3("0123456789abcdef", 0));
+        assertEquals(0x8e32612daa45f9deL, HashUtil.murmur3("0123456789abcdefg", 0));
+        // hashed as UTF-8
+        assertEquals(0x9f261c67d99b6659L, HashUtil.murmur3("中文", 0));
+    }
+
+}
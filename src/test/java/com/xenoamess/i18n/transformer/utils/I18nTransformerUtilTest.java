@@ -0,0 +1,229 @@
+package com.xenoamess.i18n.transformer.utils;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.stmt.ReturnStmt;
+import com.xenoamess.i18n.transformer.contexts.I18nTransformerContext;
+import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import com.xenoamess.i18n.transformer.enums.BundleSharding;
+import com.xenoamess.i18n.transformer.enums.ConcatenationMode;
+import com.xenoamess.i18n.transformer.enums.ConstantMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.xenoamess.i18n.transformer.utils.I18nTransformerUtil.dfs;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class I18nTransformerUtilTest {
+
+    private static final String FORMAT_TEMPLATE = "F.format(\"${value}\", ${arguments})";
+
+    @Test
+    public void testPlaceholder() {
+        assertPlaceholder(
+                "\"中\" + a + b + \"文\"",
+                "F.format(\"b.t.A.1\", a, b)",
+                "b.t.A.1=中{0}{1}文"
+        );
+        // operands before the first string literal are added up first, so they are one argument
+        assertPlaceholder(
+                "1 + 2 + \"元\"",
+                "F.format(\"b.t.A.1\", (Object) (1 + 2))",
+                "b.t.A.1={0}元"
+        );
+        // a single array argument must not become the varargs array
+        assertPlaceholder(
+                "\"共\" + b + \"个\"",
+                "F.format(\"b.t.A.1\", (Object) b)",
+                "b.t.A.1=共{0}个"
+        );
+        assertPlaceholder(
+                "x + (\"中\" + y)",
+                "x + (F.format(\"b.t.A.1\", (Object) y))",
+                "b.t.A.1=中{0}"
+        );
+        // an operand with a Chinese literal would be copied into the arguments, so every literal is replaced on its own
+        assertPlaceholder(
+                "\"共\" + f(\"中\") + \"个\"",
+                "toI18n(\"b.t.A.1\") + f(toI18n(\"b.t.A.3\")) + toI18n(\"b.t.A.2\")",
+                "b.t.A.1=共\nb.t.A.2=个\nb.t.A.3=中"
+        );
+    }
+
+    @Test
+    public void testPlaceholderAccessor() {
+        I18nTransformerContext i18nTransformerContext = newContext("M.${accessorMethodName}(${arguments})");
+        assertEquals("M.b_t_A_1(a, b)", transform("\"中\" + a + b + \"文\"", i18nTransformerContext));
+        String accessor = AccessorGeneratorUtil.generate(
+                "x.M",
+                "b",
+                "java.util.Locale.CHINA",
+                i18nTransformerContext.getChinesePropertiesEntities()
+        );
+        assertTrue(accessor.contains("public static String b_t_A_1() {"), accessor);
+        assertTrue(accessor.contains("public static String b_t_A_1(Object... arguments) {"), accessor);
+    }
+
+    @Test
+    public void testCachedConstantUsedInCaseLabel() {
+        String source = "package t;\n"
+                + "class A {\n"
+                + "    static final String C = \"常量\";\n"
+                + "    static final String D = \"标签\";\n"
+                + "    int m(String s) {\n"
+                + "        switch (s) {\n"
+                + "            case D:\n"
+                + "                return 1;\n"
+                + "            default:\n"
+                + "                return 0;\n"
+                + "        }\n"
+                + "    }\n"
+                + "}\n";
+        I18nTransformerContext i18nTransformerContext = newContext(FORMAT_TEMPLATE);
+        i18nTransformerContext.setConstantMode(ConstantMode.CACHED);
+        List<String> warnings = new ArrayList<>();
+        i18nTransformerContext.setWarningConsumer(warnings::add);
+        CompilationUnit compilationUnit = StaticJavaParser.parse(source);
+        dfs(compilationUnit, i18nTransformerContext);
+        assertEquals("toI18n(\"b.t.A.1\")", compilationUnit.findAll(VariableDeclarator.class).get(0).getInitializer().get().toString());
+        assertEquals("\"标签\"", compilationUnit.findAll(VariableDeclarator.class).get(1).getInitializer().get().toString());
+        assertEquals("b.t.A.2", i18nTransformerContext.getChinesePropertiesEntities().get(1).getPropertyName());
+        assertEquals(1, warnings.size());
+        // the fast path leaves the file to the syntax tree
+        I18nTransformerContext fastPathContext = newContext(FORMAT_TEMPLATE);
+        fastPathContext.setConstantMode(ConstantMode.CACHED);
+        assertFalse(FastPathUtil.transform(source, fastPathContext));
+        assertTrue(FastPathUtil.transform("package t;\nclass A {\n    static final String C = \"常量\";\n}\n", fastPathContext));
+    }
+
+    @Test
+    public void testBundleSharding() {
+        assertSharding(
+                BundleSharding.NONE,
+                SHARDED_SOURCE,
+                "b:b.t.u.A.1 b:b.t.u.A.C.1 b:b.t.u.A.1",
+                "null:b.t.u.A.1 null:b.t.u.A.C.1"
+        );
+        assertSharding(
+                BundleSharding.PACKAGE,
+                SHARDED_SOURCE,
+                "b.t.u:b.t.u.A.1 b.t.u:b.t.u.A.C.1 b.t.u:b.t.u.A.1",
+                "b.t.u:b.t.u.A.1 b.t.u:b.t.u.A.C.1"
+        );
+        // nested classes go with their top level class, a value used in two shards is stored in both
+        assertSharding(
+                BundleSharding.CLASS,
+                SHARDED_SOURCE,
+                "b.t.u.A:b.t.u.A.1 b.t.u.A:b.t.u.A.C.1 b.t.u.B:b.t.u.A.1",
+                "b.t.u.A:b.t.u.A.1 b.t.u.A:b.t.u.A.C.1 b.t.u.B:b.t.u.A.1"
+        );
+        // the default package keeps using the main bundle
+        assertSharding(
+                BundleSharding.PACKAGE,
+                SHARDED_SOURCE.replace("package t.u;\n", ""),
+                "b:b.A.1 b:b.A.C.1 b:b.A.1",
+                "null:b.A.1 null:b.A.C.1"
+        );
+    }
+
+    private static final String SHARDED_SOURCE = "package t.u;\n"
+            + "class A {\n"
+            + "    void m() {\n"
+            + "        String s = \"中\";\n"
+            + "    }\n"
+            + "    static class C {\n"
+            + "        void m() {\n"
+            + "            String s = \"文\";\n"
+            + "        }\n"
+            + "    }\n"
+            + "}\n"
+            + "class B {\n"
+            + "    void m() {\n"
+            + "        String s = \"中\";\n"
+            + "    }\n"
+            + "}\n";
+
+    private static void assertSharding(
+            BundleSharding bundleSharding,
+            String source,
+            String expectedLookups,
+            String expectedEntries
+    ) {
+        I18nTransformerContext i18nTransformerContext = new I18nTransformerContext(
+                "${propertyBundleName}:${value}",
+                "b",
+                "A.java",
+                null,
+                0,
+                new ArrayList<>()
+        );
+        i18nTransformerContext.setBundleSharding(bundleSharding);
+        CompilationUnit compilationUnit = StaticJavaParser.parse(source);
+        dfs(compilationUnit, i18nTransformerContext);
+        StringBuilder lookups = new StringBuilder();
+        for (VariableDeclarator variableDeclarator : compilationUnit.findAll(VariableDeclarator.class)) {
+            if (lookups.length() > 0) {
+                lookups.append(' ');
+            }
+            lookups.append(variableDeclarator.getInitializer().get());
+        }
+        assertEquals(expectedLookups, lookups.toString(), bundleSharding.name());
+        StringBuilder entries = new StringBuilder();
+        for (PropertiesEntity propertiesEntity : i18nTransformerContext.getChinesePropertiesEntities()) {
+            if (entries.length() > 0) {
+                entries.append(' ');
+            }
+            entries.append(propertiesEntity.getBundleName()).append(':').append(propertiesEntity.getPropertyName());
+        }
+        assertEquals(expectedEntries, entries.toString(), bundleSharding.name());
+    }
+
+    private static void assertPlaceholder(String expression, String expected, String expectedEntries) {
+        I18nTransformerContext i18nTransformerContext = newContext(FORMAT_TEMPLATE);
+        assertEquals(expected, transform(expression, i18nTransformerContext), expression);
+        StringBuilder entries = new StringBuilder();
+        for (PropertiesEntity propertiesEntity : i18nTransformerContext.getChinesePropertiesEntities()) {
+            if (entries.length() > 0) {
+                entries.append('\n');
+            }
+            entries.append(propertiesEntity.getPropertyName()).append('=').append(propertiesEntity.getChineseValue());
+        }
+        assertEquals(expectedEntries, entries.toString(), expression);
+    }
+
+    private static I18nTransformerContext newContext(String formatTemplate) {
+        I18nTransformerContext i18nTransformerContext = new I18nTransformerContext(
+                "toI18n(\"${value}\")",
+                "b",
+                "A.java",
+                null,
+                0,
+                new ArrayList<>()
+        );
+        i18nTransformerContext.setConcatenationMode(ConcatenationMode.PLACEHOLDER);
+        i18nTransformerContext.setFormatTemplate(formatTemplate);
+        return i18nTransformerContext;
+    }
+
+    /**
+     * @return the returned expression of a method returning expression, after transforming
+     */
+    private static String transform(String expression, I18nTransformerContext i18nTransformerContext) {
+        CompilationUnit compilationUnit = StaticJavaParser.parse(
+                "package t;\n"
+                        + "class A {\n"
+                        + "    Object m(int a, int[] b, Object x, Object y) {\n"
+                        + "        return " + expression + ";\n"
+                        + "    }\n"
+                        + "}\n"
+        );
+        dfs(compilationUnit, i18nTransformerContext);
+        return compilationUnit.findFirst(ReturnStmt.class).get().getExpression().get().toString();
+    }
+
+}
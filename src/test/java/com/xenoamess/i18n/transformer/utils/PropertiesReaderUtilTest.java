@@ -0,0 +1,52 @@
+package com.xenoamess.i18n.transformer.utils;
+
+import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PropertiesReaderUtilTest {
+
+    @Test
+    public void testReadShards() throws IOException {
+        Path directory = Files.createTempDirectory("properties-reader-util-test");
+        try {
+            List<PropertiesEntity> packageShard = Collections.singletonList(new PropertiesEntity("b.t.B.1", "包"));
+            List<PropertiesEntity> classShard = Arrays.asList(
+                    new PropertiesEntity("b.t.A.1", "类\\n"),
+                    new PropertiesEntity("b.t.A.2", "引号\\\"")
+            );
+            PropertiesWriterUtil.writeIfChanged(
+                    Collections.singletonList(new PropertiesEntity("b.M.1", "主")),
+                    Arrays.asList(directory.resolve("b.properties"), directory.resolve("b_zh_CN.properties"))
+            );
+            Files.createDirectories(directory.resolve("b/t"));
+            PropertiesWriterUtil.writeIfChanged(
+                    packageShard,
+                    Arrays.asList(directory.resolve("b/t.properties"), directory.resolve("b/t_zh_CN.properties"))
+            );
+            PropertiesWriterUtil.writeIfChanged(
+                    classShard,
+                    Arrays.asList(directory.resolve("b/t/A.properties"), directory.resolve("b/t/A_zh_CN.properties"))
+            );
+
+            // the main bundle and the locale variants are no shards
+            assertEquals(Arrays.asList("b.t", "b.t.A"), PropertiesReaderUtil.findShardBundleNames(directory, "b", ".properties"));
+            assertEquals(Collections.emptyList(), PropertiesReaderUtil.findShardBundleNames(directory, "c", ".properties"));
+            assertEquals(packageShard, PropertiesReaderUtil.read(directory.resolve("b/t.properties")));
+            // values come back escaped as they were generated
+            assertEquals(classShard, PropertiesReaderUtil.read(directory.resolve("b/t/A.properties")));
+        } finally {
+            FileUtils.deleteDirectory(directory.toFile());
+        }
+    }
+
+}
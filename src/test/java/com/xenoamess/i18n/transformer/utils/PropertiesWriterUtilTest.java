@@ -0,0 +1,97 @@
+package com.xenoamess.i18n.transformer.utils;
+
+import com.xenoamess.i18n.transformer.entities.PropertiesEntity;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PropertiesWriterUtilTest {
+
+    @Test
+    public void testEscape() throws IOException {
+        List<PropertiesEntity> propertiesEntities = Arrays.asList(
+                new PropertiesEntity("a b=c:d#", "值=x:y"),
+                new PropertiesEntity("b", "\\n换行\\t"),
+                new PropertiesEntity("c", " 前导空格"),
+                new PropertiesEntity("d", "反斜杠\\\\ 引号\\\""),
+                new PropertiesEntity("e", "\\u4e2d\\101")
+        );
+        Properties properties = new Properties();
+        properties.load(new StringReader(PropertiesWriterUtil.toPropertiesString(propertiesEntities)));
+        assertEquals("值=x:y", properties.getProperty("a b=c:d#"));
+        assertEquals("\n换行\t", properties.getProperty("b"));
+        assertEquals(" 前导空格", properties.getProperty("c"));
+        assertEquals("反斜杠\\ 引号\"", properties.getProperty("d"));
+        assertEquals("中A", properties.getProperty("e"));
+    }
+
+    @Test
+    public void testWriteIfChanged() throws IOException {
+        Path directory = Files.createTempDirectory("properties-writer-util-test");
+        try {
+            Path first = directory.resolve("a.properties");
+            Path second = directory.resolve("a_zh_CN.properties");
+            List<PropertiesEntity> propertiesEntities = Arrays.asList(
+                    new PropertiesEntity("a", "一"),
+                    new PropertiesEntity("b", "二")
+            );
+            assertEquals(2, PropertiesWriterUtil.writeIfChanged(propertiesEntities, Arrays.asList(first, second)));
+            assertEquals("a=一\nb=二\n", new String(Files.readAllBytes(second), StandardCharsets.UTF_8));
+
+            FileTime old = FileTime.fromMillis(1000000000000L);
+            Files.setLastModifiedTime(first, old);
+            Files.write(second, "a=一\n".getBytes(StandardCharsets.UTF_8));
+            assertEquals(1, PropertiesWriterUtil.writeIfChanged(propertiesEntities, Arrays.asList(first, second)));
+            assertEquals(old, Files.getLastModifiedTime(first));
+            assertEquals("a=一\nb=二\n", new String(Files.readAllBytes(second), StandardCharsets.UTF_8));
+            assertEquals(2, countFiles(directory));
+        } finally {
+            FileUtils.deleteDirectory(directory.toFile());
+        }
+    }
+
+    @Test
+    public void testBinaryWriteIfChanged() throws IOException {
+        Path directory = Files.createTempDirectory("properties-writer-util-test");
+        try {
+            Path first = directory.resolve("a.xi18nb");
+            Path second = directory.resolve("a_zh_CN.xi18nb");
+            List<PropertiesEntity> propertiesEntities = Arrays.asList(
+                    new PropertiesEntity("a", "一"),
+                    new PropertiesEntity("b", "二")
+            );
+            assertEquals(2, BinaryBundleWriterUtil.writeIfChanged(propertiesEntities, Arrays.asList(first, second)));
+
+            FileTime old = FileTime.fromMillis(1000000000000L);
+            Files.setLastModifiedTime(first, old);
+            Files.setLastModifiedTime(second, old);
+            assertEquals(0, BinaryBundleWriterUtil.writeIfChanged(propertiesEntities, Arrays.asList(first, second)));
+            assertEquals(old, Files.getLastModifiedTime(first));
+            assertEquals(old, Files.getLastModifiedTime(second));
+
+            assertEquals(2, BinaryBundleWriterUtil.writeIfChanged(propertiesEntities.subList(0, 1), Arrays.asList(first, second)));
+            assertEquals(2, countFiles(directory));
+        } finally {
+            FileUtils.deleteDirectory(directory.toFile());
+        }
+    }
+
+    private static long countFiles(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.count();
+        }
+    }
+
+}
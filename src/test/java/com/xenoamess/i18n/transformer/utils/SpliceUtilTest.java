@@ -0,0 +1,26 @@
+package com.xenoamess.i18n.transformer.utils;
+
+import com.xenoamess.i18n.transformer.entities.TextReplacement;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SpliceUtilTest {
+
+    @Test
+    public void testApply() {
+        String source = "class A {\r\n\tString a = \"一\";\r    String b = \"二\" + \"三\";\n}\n";
+        String result = SpliceUtil.apply(
+                source,
+                Arrays.asList(
+                        new TextReplacement(3, 22, 3, 24, "c()"),
+                        new TextReplacement(2, 13, 2, 15, "a()"),
+                        new TextReplacement(3, 16, 3, 18, "b()")
+                )
+        );
+        assertEquals("class A {\r\n\tString a = a();\r    String b = b() + c();\n}\n", result);
+    }
+
+}